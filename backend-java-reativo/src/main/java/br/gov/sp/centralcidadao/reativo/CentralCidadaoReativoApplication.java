@@ -0,0 +1,17 @@
+package br.gov.sp.centralcidadao.reativo;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Rotas de leitura da Central do Cidadão (escolas, notificações e acompanhamento de
+ * protocolo) em WebFlux + R2DBC. Roda ao lado da API principal, sobre o mesmo banco,
+ * para atender o tráfego de consulta e polling com poucas threads de event loop.
+ */
+@SpringBootApplication
+public class CentralCidadaoReativoApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(CentralCidadaoReativoApplication.class, args);
+    }
+}
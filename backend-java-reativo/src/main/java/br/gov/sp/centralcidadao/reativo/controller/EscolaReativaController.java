@@ -0,0 +1,55 @@
+package br.gov.sp.centralcidadao.reativo.controller;
+
+import br.gov.sp.centralcidadao.domain.NivelEnsino;
+import br.gov.sp.centralcidadao.dto.EscolaDTO;
+import br.gov.sp.centralcidadao.reativo.service.EscolaReativaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Listas em JSON (array) ou NDJSON (Accept: application/x-ndjson, um item por linha conforme chega do banco)
+@RestController
+@RequestMapping(value = "/api/escolas", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class EscolaReativaController {
+
+    private final EscolaReativaService escolaService;
+
+    @GetMapping
+    public Flux<EscolaDTO> listarTodas() {
+        return escolaService.listarTodas();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<EscolaDTO> buscarPorId(@PathVariable Long id) {
+        return escolaService.buscarPorId(id);
+    }
+
+    @GetMapping("/nivel/{nivel}")
+    public Flux<EscolaDTO> buscarPorNivel(@PathVariable NivelEnsino nivel) {
+        return escolaService.buscarPorNivel(nivel);
+    }
+
+    @GetMapping("/bairro/{bairro}")
+    public Flux<EscolaDTO> buscarPorBairro(@PathVariable String bairro) {
+        return escolaService.buscarPorBairro(bairro);
+    }
+
+    @GetMapping("/nome/{nome}")
+    public Flux<EscolaDTO> buscarPorNome(@PathVariable String nome) {
+        return escolaService.buscarPorNome(nome);
+    }
+
+    @GetMapping("/vagas-disponiveis")
+    public Flux<EscolaDTO> buscarComVagasDisponiveis() {
+        return escolaService.buscarComVagasDisponiveis();
+    }
+
+    @GetMapping("/vagas-disponiveis/nivel/{nivel}")
+    public Flux<EscolaDTO> buscarComVagasDisponiveisPorNivel(@PathVariable NivelEnsino nivel) {
+        return escolaService.buscarComVagasDisponiveisPorNivel(nivel);
+    }
+}
@@ -0,0 +1,35 @@
+package br.gov.sp.centralcidadao.reativo.controller;
+
+import br.gov.sp.centralcidadao.dto.NotificacaoDTO;
+import br.gov.sp.centralcidadao.reativo.service.NotificacaoReativaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping(value = "/api/notificacoes", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class NotificacaoReativaController {
+
+    private final NotificacaoReativaService notificacaoService;
+
+    @GetMapping("/cidadao/{cidadaoId}")
+    public Flux<NotificacaoDTO> listarPorCidadao(@PathVariable Long cidadaoId) {
+        return notificacaoService.listarPorCidadao(cidadaoId);
+    }
+
+    @GetMapping("/cidadao/{cidadaoId}/nao-lidas")
+    public Flux<NotificacaoDTO> listarNaoLidasPorCidadao(@PathVariable Long cidadaoId) {
+        return notificacaoService.listarNaoLidasPorCidadao(cidadaoId);
+    }
+
+    @GetMapping("/cidadao/{cidadaoId}/contador")
+    public Mono<Map<String, Long>> contarNaoLidas(@PathVariable Long cidadaoId) {
+        return notificacaoService.contarNaoLidas(cidadaoId).map(total -> Map.of("count", total));
+    }
+}
@@ -0,0 +1,26 @@
+package br.gov.sp.centralcidadao.reativo.controller;
+
+import br.gov.sp.centralcidadao.dto.MatriculaDTO;
+import br.gov.sp.centralcidadao.dto.SolicitacaoServicoDTO;
+import br.gov.sp.centralcidadao.reativo.service.ProtocoloReativoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ProtocoloReativoController {
+
+    private final ProtocoloReativoService protocoloService;
+
+    @GetMapping("/api/matriculas/protocolo/{protocolo}")
+    public Mono<MatriculaDTO> buscarMatricula(@PathVariable String protocolo) {
+        return protocoloService.buscarMatricula(protocolo);
+    }
+
+    @GetMapping("/api/solicitacoes/protocolo/{protocolo}")
+    public Mono<SolicitacaoServicoDTO> buscarSolicitacao(@PathVariable String protocolo) {
+        return protocoloService.buscarSolicitacao(protocolo);
+    }
+}
@@ -0,0 +1,35 @@
+package br.gov.sp.centralcidadao.reativo.exception;
+
+import br.gov.sp.centralcidadao.exception.ErroResposta;
+import br.gov.sp.centralcidadao.exception.ErroResposta.ErroPadrao;
+import br.gov.sp.centralcidadao.exception.RecursoNaoEncontradoException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * Mesmo corpo de erro da API principal.
+ */
+@RestControllerAdvice
+public class ReativoExceptionHandler {
+
+    @ExceptionHandler(RecursoNaoEncontradoException.class)
+    public ResponseEntity<ErroResposta> handleNaoEncontrado(RecursoNaoEncontradoException ex) {
+        return resposta(ErroPadrao.NAO_ENCONTRADO, ex.getMessage());
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ErroResposta> handleEntradaInvalida(ServerWebInputException ex) {
+        return resposta(ErroPadrao.REQUISICAO_INVALIDA, ex.getReason());
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErroResposta> handleGenericException(Exception ex) {
+        return resposta(ErroPadrao.INTERNO, "Ocorreu um erro inesperado. Tente novamente mais tarde.");
+    }
+
+    private static ResponseEntity<ErroResposta> resposta(ErroPadrao padrao, String mensagem) {
+        return ResponseEntity.status(padrao.getStatus()).body(ErroResposta.de(padrao, mensagem));
+    }
+}
@@ -0,0 +1,95 @@
+package br.gov.sp.centralcidadao.reativo.service;
+
+import br.gov.sp.centralcidadao.domain.NivelEnsino;
+import br.gov.sp.centralcidadao.dto.EscolaDTO;
+import br.gov.sp.centralcidadao.exception.RecursoNaoEncontradoException;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+@Service
+@RequiredArgsConstructor
+public class EscolaReativaService {
+
+    private static final String SQL_ESCOLAS =
+            "SELECT id, nome, endereco, bairro, cidade, telefone, latitude, longitude, nivel_ensino, " +
+            "vagas_totais, vagas_ocupadas FROM escolas ";
+
+    private static final String COM_VAGAS = "AND (vagas_totais - vagas_ocupadas) > 0 ";
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<EscolaDTO> listarTodas() {
+        return listar(SQL_ESCOLAS + "WHERE ativo = true ORDER BY id", null);
+    }
+
+    public Mono<EscolaDTO> buscarPorId(Long id) {
+        return databaseClient.sql(SQL_ESCOLAS + "WHERE id = :id")
+                .bind("id", id)
+                .map(EscolaReativaService::toDTO)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new RecursoNaoEncontradoException("Escola não encontrada", id)));
+    }
+
+    public Flux<EscolaDTO> buscarPorNivel(NivelEnsino nivel) {
+        return listar(SQL_ESCOLAS + "WHERE ativo = true AND nivel_ensino = :valor ORDER BY id", nivel.name());
+    }
+
+    public Flux<EscolaDTO> buscarPorBairro(String bairro) {
+        return listar(SQL_ESCOLAS + "WHERE ativo = true AND bairro LIKE :valor ORDER BY id", "%" + bairro + "%");
+    }
+
+    public Flux<EscolaDTO> buscarPorNome(String nome) {
+        return listar(SQL_ESCOLAS + "WHERE ativo = true AND nome LIKE :valor ORDER BY id", "%" + nome + "%");
+    }
+
+    public Flux<EscolaDTO> buscarComVagasDisponiveis() {
+        return listar(SQL_ESCOLAS + "WHERE ativo = true " + COM_VAGAS + "ORDER BY id", null);
+    }
+
+    public Flux<EscolaDTO> buscarComVagasDisponiveisPorNivel(NivelEnsino nivel) {
+        return listar(SQL_ESCOLAS + "WHERE ativo = true AND nivel_ensino = :valor " + COM_VAGAS + "ORDER BY id",
+                nivel.name());
+    }
+
+    // As linhas seguem para o cliente conforme a demanda dele: o driver não lê adiante do que foi pedido
+    private Flux<EscolaDTO> listar(String sql, String valor) {
+        DatabaseClient.GenericExecuteSpec consulta = databaseClient.sql(sql);
+        if (valor != null) {
+            consulta = consulta.bind("valor", valor);
+        }
+        return consulta.map(EscolaReativaService::toDTO).all();
+    }
+
+    // Mesmos campos calculados do EscolaService da API principal
+    private static EscolaDTO toDTO(Readable linha) {
+        int totais = Linhas.inteiro(linha, "vagas_totais");
+        int ocupadas = Linhas.inteiro(linha, "vagas_ocupadas");
+        int disponiveis = totais - ocupadas;
+        double percentual = totais == 0 ? 0.0 : ((double) ocupadas / totais) * 100;
+
+        EscolaDTO dto = new EscolaDTO();
+        dto.setId(linha.get("id", Long.class));
+        dto.setNome(linha.get("nome", String.class));
+        dto.setEndereco(linha.get("endereco", String.class));
+        dto.setBairro(linha.get("bairro", String.class));
+        dto.setCidade(linha.get("cidade", String.class));
+        dto.setTelefone(linha.get("telefone", String.class));
+        dto.setLatitude(linha.get("latitude", BigDecimal.class));
+        dto.setLongitude(linha.get("longitude", BigDecimal.class));
+        NivelEnsino nivel = Linhas.enumeracao(linha, "nivel_ensino", NivelEnsino.class);
+        dto.setNivelEnsino(nivel);
+        dto.setNivelEnsinoDescricao(nivel.getDescricao());
+        dto.setVagasTotais(totais);
+        dto.setVagasOcupadas(ocupadas);
+        dto.setVagasDisponiveis(disponiveis);
+        dto.setPercentualOcupacao(percentual);
+        dto.setStatusVagas(disponiveis <= 0 ? "LOTADO" : percentual >= 80 ? "LIMITADO" : "DISPONIVEL");
+        return dto;
+    }
+}
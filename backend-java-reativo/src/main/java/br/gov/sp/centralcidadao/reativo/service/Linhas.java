@@ -0,0 +1,22 @@
+package br.gov.sp.centralcidadao.reativo.service;
+
+import io.r2dbc.spi.Readable;
+
+/**
+ * Leitura de colunas opcionais das linhas R2DBC.
+ */
+final class Linhas {
+
+    private Linhas() {
+    }
+
+    static <E extends Enum<E>> E enumeracao(Readable linha, String coluna, Class<E> tipo) {
+        String valor = linha.get(coluna, String.class);
+        return valor != null ? Enum.valueOf(tipo, valor) : null;
+    }
+
+    static int inteiro(Readable linha, String coluna) {
+        Integer valor = linha.get(coluna, Integer.class);
+        return valor != null ? valor : 0;
+    }
+}
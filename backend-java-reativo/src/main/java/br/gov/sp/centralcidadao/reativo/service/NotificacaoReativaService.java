@@ -0,0 +1,108 @@
+package br.gov.sp.centralcidadao.reativo.service;
+
+import br.gov.sp.centralcidadao.domain.TipoNotificacao;
+import br.gov.sp.centralcidadao.dto.NotificacaoDTO;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+@Service
+@RequiredArgsConstructor
+public class NotificacaoReativaService {
+
+    private static final String SQL_CURSOR =
+            "COALESCE((SELECT l.ultimo_comunicado_id FROM cursores_leitura l WHERE l.cidadao_id = :cidadaoId), 0)";
+
+    private static final String SQL_CURSOR_NOTIFICACOES =
+            "COALESCE((SELECT l.ultima_notificacao_id FROM cursores_leitura l WHERE l.cidadao_id = :cidadaoId), 0)";
+
+    private static final String SQL_NOTIFICACOES =
+            "SELECT id, cidadao_id, protocolo, titulo, mensagem, tipo, lida, data_criacao, " +
+            SQL_CURSOR_NOTIFICACOES + " AS ultima_lida FROM notificacoes WHERE cidadao_id = :cidadaoId ";
+
+    private static final String SQL_NAO_LIDAS = "AND lida = false AND id > " + SQL_CURSOR_NOTIFICACOES + " ";
+
+    // Mesmo público da API principal: comunicados gerais ou do bairro do cidadão, ainda em vigor
+    private static final String SQL_COMUNICADOS =
+            "SELECT c.id, c.titulo, c.mensagem, c.tipo, c.data_publicacao, c.data_expiracao, " + SQL_CURSOR + " AS ultimo_lido " +
+            "FROM comunicados c WHERE (c.bairro IS NULL OR c.bairro = (SELECT bairro FROM cidadaos WHERE id = :cidadaoId)) " +
+            "AND (c.data_expiracao IS NULL OR c.data_expiracao > :agora) ";
+
+    private static final Comparator<NotificacaoDTO> MAIS_RECENTES = Comparator.comparing(
+            NotificacaoDTO::getDataCriacao, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<NotificacaoDTO> listarPorCidadao(Long cidadaoId) {
+        return Flux.mergeComparing(MAIS_RECENTES,
+                listar(SQL_NOTIFICACOES + "ORDER BY data_criacao DESC", cidadaoId),
+                listarComunicados(SQL_COMUNICADOS + "ORDER BY c.data_publicacao DESC", cidadaoId));
+    }
+
+    public Flux<NotificacaoDTO> listarNaoLidasPorCidadao(Long cidadaoId) {
+        return Flux.mergeComparing(MAIS_RECENTES,
+                listar(SQL_NOTIFICACOES + SQL_NAO_LIDAS + "ORDER BY data_criacao DESC", cidadaoId),
+                listarComunicados(SQL_COMUNICADOS + "AND c.id > " + SQL_CURSOR + " ORDER BY c.data_publicacao DESC", cidadaoId));
+    }
+
+    public Mono<Long> contarNaoLidas(Long cidadaoId) {
+        return databaseClient.sql("SELECT (SELECT COUNT(*) FROM notificacoes WHERE cidadao_id = :cidadaoId " + SQL_NAO_LIDAS + ") + " +
+                        "(SELECT COUNT(*) FROM (" + SQL_COMUNICADOS + "AND c.id > " + SQL_CURSOR + ") v) AS total")
+                .bind("cidadaoId", cidadaoId)
+                .bind("agora", LocalDateTime.now())
+                .map(linha -> linha.get("total", Long.class))
+                .one();
+    }
+
+    private Flux<NotificacaoDTO> listar(String sql, Long cidadaoId) {
+        return databaseClient.sql(sql)
+                .bind("cidadaoId", cidadaoId)
+                .map(NotificacaoReativaService::toDTO)
+                .all();
+    }
+
+    private Flux<NotificacaoDTO> listarComunicados(String sql, Long cidadaoId) {
+        return databaseClient.sql(sql)
+                .bind("cidadaoId", cidadaoId)
+                .bind("agora", LocalDateTime.now())
+                .map(linha -> comunicadoToDTO(linha, cidadaoId))
+                .all();
+    }
+
+    private static NotificacaoDTO toDTO(Readable linha) {
+        Long id = linha.get("id", Long.class);
+        Long ultimaLida = linha.get("ultima_lida", Long.class);
+        NotificacaoDTO dto = new NotificacaoDTO();
+        dto.setId(id);
+        dto.setCidadaoId(linha.get("cidadao_id", Long.class));
+        dto.setProtocolo(linha.get("protocolo", String.class));
+        dto.setTitulo(linha.get("titulo", String.class));
+        dto.setMensagem(linha.get("mensagem", String.class));
+        dto.setTipo(Linhas.enumeracao(linha, "tipo", TipoNotificacao.class));
+        // Lida pela marcação individual ou por estar até o cursor de leitura do cidadão
+        dto.setLida(Boolean.TRUE.equals(linha.get("lida", Boolean.class)) || (ultimaLida != null && id <= ultimaLida));
+        dto.setDataCriacao(linha.get("data_criacao", LocalDateTime.class));
+        return dto;
+    }
+
+    private static NotificacaoDTO comunicadoToDTO(Readable linha, Long cidadaoId) {
+        Long id = linha.get("id", Long.class);
+        Long ultimoLido = linha.get("ultimo_lido", Long.class);
+        NotificacaoDTO dto = new NotificacaoDTO();
+        dto.setComunicadoId(id);
+        dto.setCidadaoId(cidadaoId);
+        dto.setTitulo(linha.get("titulo", String.class));
+        dto.setMensagem(linha.get("mensagem", String.class));
+        dto.setTipo(Linhas.enumeracao(linha, "tipo", TipoNotificacao.class));
+        dto.setLida(ultimoLido != null && id <= ultimoLido);
+        dto.setDataCriacao(linha.get("data_publicacao", LocalDateTime.class));
+        dto.setDataExpiracao(linha.get("data_expiracao", LocalDateTime.class));
+        return dto;
+    }
+}
@@ -0,0 +1,119 @@
+package br.gov.sp.centralcidadao.reativo.service;
+
+import br.gov.sp.centralcidadao.domain.NivelEnsino;
+import br.gov.sp.centralcidadao.domain.Prioridade;
+import br.gov.sp.centralcidadao.domain.StatusMatricula;
+import br.gov.sp.centralcidadao.domain.StatusSolicitacao;
+import br.gov.sp.centralcidadao.domain.TipoServico;
+import br.gov.sp.centralcidadao.dto.MatriculaDTO;
+import br.gov.sp.centralcidadao.dto.SolicitacaoServicoDTO;
+import br.gov.sp.centralcidadao.exception.RecursoNaoEncontradoException;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Acompanhamento de matrículas e solicitações pelo número de protocolo.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProtocoloReativoService {
+
+    private static final String SQL_MATRICULA =
+            "SELECT m.id, m.protocolo, m.cidadao_id, c.nome AS cidadao_nome, m.escola_id, e.nome AS escola_nome, " +
+            "m.nome_aluno, m.data_nascimento, m.nivel_ensino, m.serie, m.status, m.observacoes, " +
+            "m.data_solicitacao, m.data_atualizacao " +
+            "FROM matriculas m JOIN cidadaos c ON c.id = m.cidadao_id JOIN escolas e ON e.id = m.escola_id " +
+            "WHERE m.protocolo = :protocolo";
+
+    // %s: tabela ativa ou de arquivo, que têm as mesmas colunas
+    private static final String SQL_SOLICITACAO =
+            "SELECT s.id, s.protocolo, s.cidadao_id, c.nome AS cidadao_nome, s.tipo_servico, s.descricao, " +
+            "s.endereco, s.bairro, s.ponto_referencia, s.latitude, s.longitude, s.foto_url, s.status, s.prioridade, " +
+            "s.solicitacao_principal_id, s.data_solicitacao, s.data_atualizacao, s.data_conclusao " +
+            "FROM %s s JOIN cidadaos c ON c.id = s.cidadao_id WHERE s.protocolo = :protocolo";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<MatriculaDTO> buscarMatricula(String protocolo) {
+        return databaseClient.sql(SQL_MATRICULA)
+                .bind("protocolo", protocolo)
+                .map(ProtocoloReativoService::toMatriculaDTO)
+                .one()
+                .switchIfEmpty(Mono.error(() ->
+                        new RecursoNaoEncontradoException("Matrícula não encontrada com protocolo", protocolo)));
+    }
+
+    // Solicitações encerradas há muito tempo ficam na tabela de arquivo
+    public Mono<SolicitacaoServicoDTO> buscarSolicitacao(String protocolo) {
+        return buscarSolicitacao("solicitacoes_servicos", protocolo)
+                .switchIfEmpty(Mono.defer(() -> buscarSolicitacao("solicitacoes_servicos_arquivo", protocolo)))
+                .switchIfEmpty(Mono.error(() ->
+                        new RecursoNaoEncontradoException("Solicitação não encontrada com protocolo", protocolo)));
+    }
+
+    private Mono<SolicitacaoServicoDTO> buscarSolicitacao(String tabela, String protocolo) {
+        return databaseClient.sql(String.format(SQL_SOLICITACAO, tabela))
+                .bind("protocolo", protocolo)
+                .map(ProtocoloReativoService::toSolicitacaoDTO)
+                .one();
+    }
+
+    private static MatriculaDTO toMatriculaDTO(Readable linha) {
+        MatriculaDTO dto = new MatriculaDTO();
+        dto.setId(linha.get("id", Long.class));
+        dto.setProtocolo(linha.get("protocolo", String.class));
+        dto.setCidadaoId(linha.get("cidadao_id", Long.class));
+        dto.setCidadaoNome(linha.get("cidadao_nome", String.class));
+        dto.setEscolaId(linha.get("escola_id", Long.class));
+        dto.setEscolaNome(linha.get("escola_nome", String.class));
+        dto.setNomeAluno(linha.get("nome_aluno", String.class));
+        dto.setDataNascimento(linha.get("data_nascimento", LocalDate.class));
+        NivelEnsino nivel = Linhas.enumeracao(linha, "nivel_ensino", NivelEnsino.class);
+        dto.setNivelEnsino(nivel);
+        dto.setNivelEnsinoDescricao(nivel.getDescricao());
+        dto.setSerie(linha.get("serie", String.class));
+        StatusMatricula status = Linhas.enumeracao(linha, "status", StatusMatricula.class);
+        dto.setStatus(status);
+        dto.setStatusDescricao(status != null ? status.getDescricao() : null);
+        dto.setObservacoes(linha.get("observacoes", String.class));
+        dto.setDataSolicitacao(linha.get("data_solicitacao", LocalDateTime.class));
+        dto.setDataAtualizacao(linha.get("data_atualizacao", LocalDateTime.class));
+        return dto;
+    }
+
+    private static SolicitacaoServicoDTO toSolicitacaoDTO(Readable linha) {
+        SolicitacaoServicoDTO dto = new SolicitacaoServicoDTO();
+        dto.setId(linha.get("id", Long.class));
+        dto.setProtocolo(linha.get("protocolo", String.class));
+        dto.setCidadaoId(linha.get("cidadao_id", Long.class));
+        dto.setCidadaoNome(linha.get("cidadao_nome", String.class));
+        TipoServico tipo = Linhas.enumeracao(linha, "tipo_servico", TipoServico.class);
+        dto.setTipoServico(tipo);
+        dto.setTipoServicoDescricao(tipo.getDescricao());
+        dto.setDescricao(linha.get("descricao", String.class));
+        dto.setEndereco(linha.get("endereco", String.class));
+        dto.setBairro(linha.get("bairro", String.class));
+        dto.setPontoReferencia(linha.get("ponto_referencia", String.class));
+        dto.setLatitude(linha.get("latitude", BigDecimal.class));
+        dto.setLongitude(linha.get("longitude", BigDecimal.class));
+        dto.setFotoUrl(linha.get("foto_url", String.class));
+        StatusSolicitacao status = Linhas.enumeracao(linha, "status", StatusSolicitacao.class);
+        dto.setStatus(status);
+        dto.setStatusDescricao(status != null ? status.getDescricao() : null);
+        Prioridade prioridade = Linhas.enumeracao(linha, "prioridade", Prioridade.class);
+        dto.setPrioridade(prioridade);
+        dto.setPrioridadeDescricao(prioridade != null ? prioridade.getDescricao() : null);
+        dto.setSolicitacaoPrincipalId(linha.get("solicitacao_principal_id", Long.class));
+        dto.setDataSolicitacao(linha.get("data_solicitacao", LocalDateTime.class));
+        dto.setDataAtualizacao(linha.get("data_atualizacao", LocalDateTime.class));
+        dto.setDataConclusao(linha.get("data_conclusao", LocalDateTime.class));
+        return dto;
+    }
+}
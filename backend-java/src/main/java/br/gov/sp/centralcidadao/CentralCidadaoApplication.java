@@ -2,8 +2,10 @@ package br.gov.sp.centralcidadao;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CentralCidadaoApplication {
 
     public static void main(String[] args) {
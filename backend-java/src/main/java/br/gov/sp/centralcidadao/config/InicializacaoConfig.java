@@ -0,0 +1,46 @@
+package br.gov.sp.centralcidadao.config;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Adia a criação de beans que não atendem o tráfego dos cidadãos (documentação da API)
+ * para o primeiro uso, encurtando o tempo até a aplicação aceitar requisições.
+ * Os demais beans continuam sendo criados na inicialização, mantendo os agendamentos
+ * e a validação do esquema.
+ */
+@Configuration
+public class InicializacaoConfig {
+
+    private static final List<String> PACOTES_LAZY = List.of("org.springdoc.");
+
+    @Bean
+    public static BeanFactoryPostProcessor beansNaoCriticosLazy() {
+        return beanFactory -> {
+            for (String nome : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definicao = beanFactory.getBeanDefinition(nome);
+                String origem = origem(beanFactory, definicao);
+                if (origem != null && PACOTES_LAZY.stream().anyMatch(origem::startsWith)) {
+                    definicao.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    // Beans criados por métodos @Bean são atribuídos à classe de configuração que os declara
+    private static String origem(ConfigurableListableBeanFactory beanFactory, BeanDefinition definicao) {
+        if (definicao.getBeanClassName() != null) {
+            return definicao.getBeanClassName();
+        }
+        String fabrica = definicao.getFactoryBeanName();
+        if (fabrica != null && beanFactory.containsBeanDefinition(fabrica)) {
+            return beanFactory.getBeanDefinition(fabrica).getBeanClassName();
+        }
+        return null;
+    }
+}
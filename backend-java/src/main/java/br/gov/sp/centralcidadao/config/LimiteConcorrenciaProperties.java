@@ -0,0 +1,30 @@
+package br.gov.sp.centralcidadao.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "limite-concorrencia")
+public class LimiteConcorrenciaProperties {
+
+    private boolean habilitado = true;
+
+    // Avaliadas na ordem declarada; a primeira classe compatível é aplicada
+    private List<Classe> classes = new ArrayList<>();
+
+    @Data
+    public static class Classe {
+        private String nome;
+        private String padrao;
+        private List<String> metodos = new ArrayList<>();
+        private int limiteInicial = 20;
+        private int limiteMinimo = 4;
+        private int limiteMaximo = 100;
+        // Quanto a latência recente pode superar a de referência antes de reduzir o limite
+        private double tolerancia = 1.5;
+        private double suavizacao = 0.2;
+    }
+}
@@ -0,0 +1,40 @@
+package br.gov.sp.centralcidadao.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "limite-requisicoes")
+public class LimiteRequisicoesProperties {
+
+    private boolean habilitado = true;
+
+    // Quantidade máxima de baldes mantidos em memória
+    private int maxBaldes = 100_000;
+
+    private long limpezaIntervaloMs = 30_000;
+
+    // Avaliadas na ordem declarada; a primeira rota compatível é aplicada
+    private List<Rota> rotas = new ArrayList<>();
+
+    @Data
+    public static class Rota {
+        private String nome;
+        private String padrao;
+        private List<String> metodos = new ArrayList<>();
+        private TipoChave chave = TipoChave.IP;
+        private int limite = 60;
+        private long periodoSegundos = 60;
+        private int rajada = 10;
+    }
+
+    public enum TipoChave {
+        IP,
+        // Usuário autenticado da requisição; requisições anônimas caem no IP. Enquanto a
+        // aplicação não tiver autenticação, equivale a IP
+        CIDADAO
+    }
+}
@@ -0,0 +1,62 @@
+package br.gov.sp.centralcidadao.config;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Shard da thread atual. Definido pelo filtro de shards a partir do município da requisição
+ * (ou pela consulta em todos os shards) e lido pelo DataSource de roteamento ao abrir
+ * uma conexão. Sem shard definido, vale o padrão.
+ */
+public final class ShardContexto {
+
+    private static final ThreadLocal<String> ATUAL = new ThreadLocal<>();
+
+    private ShardContexto() {
+    }
+
+    public static String atual() {
+        return ATUAL.get();
+    }
+
+    public static void definir(String shard) {
+        ATUAL.set(shard);
+    }
+
+    public static void limpar() {
+        ATUAL.remove();
+    }
+
+    public static <T> T executarEm(String shard, Supplier<T> tarefa) {
+        String anterior = ATUAL.get();
+        ATUAL.set(shard);
+        try {
+            return tarefa.get();
+        } finally {
+            if (anterior != null) {
+                ATUAL.set(anterior);
+            } else {
+                ATUAL.remove();
+            }
+        }
+    }
+
+    // Leva o shard da thread que agenda para a thread que executa a tarefa
+    public static Runnable propagar(Runnable tarefa) {
+        String shard = ATUAL.get();
+        if (shard == null) {
+            return tarefa;
+        }
+        return () -> executarEm(shard, () -> {
+            tarefa.run();
+            return null;
+        });
+    }
+
+    // "São Paulo", "sao paulo" e "SAO PAULO" caem na mesma chave
+    public static String normalizarMunicipio(String municipio) {
+        String semAcentos = Normalizer.normalize(municipio.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return semAcentos.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,74 @@
+package br.gov.sp.centralcidadao.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Com shards.habilitado=true, substitui o DataSource único por um que escolhe o banco
+ * a cada conexão conforme o {@link ShardContexto}. Cada shard tem o próprio pool,
+ * então a carga de um município grande não consome as conexões dos demais.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardsProperties.class)
+@ConditionalOnProperty(prefix = "shards", name = "habilitado", havingValue = "true")
+public class ShardsConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, ShardsProperties shards) {
+        HikariDataSource padrao = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        padrao.setPoolName("shard-" + shards.getPadrao());
+
+        Map<Object, Object> destinos = new LinkedHashMap<>();
+        destinos.put(shards.getPadrao(), padrao);
+        shards.getBases().forEach((nome, base) -> {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + nome);
+            dataSource.setJdbcUrl(base.getUrl());
+            dataSource.setUsername(base.getUsuario());
+            dataSource.setPassword(base.getSenha());
+            dataSource.setMaximumPoolSize(base.getMaxConexoes());
+            destinos.put(nome, dataSource);
+        });
+
+        RoteamentoShards roteamento = new RoteamentoShards();
+        roteamento.setTargetDataSources(destinos);
+        roteamento.setDefaultTargetDataSource(padrao);
+        // Shard desconhecido é erro de configuração, não motivo para gravar no banco padrão
+        roteamento.setLenientFallback(false);
+        return roteamento;
+    }
+
+    // Respostas assíncronas (exportações em streaming) continuam no shard da requisição
+    @Bean
+    public TaskDecorator propagarShard() {
+        return ShardContexto::propagar;
+    }
+
+    static class RoteamentoShards extends AbstractRoutingDataSource implements AutoCloseable {
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return ShardContexto.atual();
+        }
+
+        // Fecha os pools de cada shard junto com o contexto
+        @Override
+        public void close() {
+            getResolvedDataSources().values().forEach(dataSource -> ((HikariDataSource) dataSource).close());
+        }
+    }
+}
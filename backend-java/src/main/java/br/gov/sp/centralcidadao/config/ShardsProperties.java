@@ -0,0 +1,49 @@
+package br.gov.sp.centralcidadao.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "shards")
+public class ShardsProperties {
+
+    private boolean habilitado = false;
+
+    // Shard dos municípios sem entrada no mapa; usa a conexão de spring.datasource.*
+    private String padrao = "principal";
+
+    // Demais shards, por nome
+    private Map<String, Base> bases = new LinkedHashMap<>();
+
+    // Município (como gravado em cidade, sem diferenciar acentos/maiúsculas) -> nome do shard
+    private Map<String, String> municipios = new LinkedHashMap<>();
+
+    // Todos os shards, começando pelo padrão; com shards desligados, só o padrão
+    public List<String> nomes() {
+        List<String> nomes = new ArrayList<>();
+        nomes.add(padrao);
+        if (habilitado) {
+            nomes.addAll(bases.keySet());
+        }
+        return nomes;
+    }
+
+    // Shard da thread atual; sem shard definido, as conexões vão para o padrão
+    public String atual() {
+        String shard = ShardContexto.atual();
+        return shard != null ? shard : padrao;
+    }
+
+    @Data
+    public static class Base {
+        private String url;
+        private String usuario;
+        private String senha;
+        private int maxConexoes = 10;
+    }
+}
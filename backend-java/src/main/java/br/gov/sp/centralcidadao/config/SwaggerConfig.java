@@ -6,11 +6,13 @@ import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.info.License;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 @Configuration
 public class SwaggerConfig {
 
     @Bean
+    @Lazy
     public OpenAPI centralCidadaoOpenAPI() {
         return new OpenAPI()
                 .info(new Info()
@@ -1,15 +1,20 @@
 package br.gov.sp.centralcidadao.controller;
 
+import br.gov.sp.centralcidadao.dto.CidadaoBuscaDTO;
 import br.gov.sp.centralcidadao.dto.CidadaoDTO;
+import br.gov.sp.centralcidadao.dto.ResumoCidadaoDTO;
 import br.gov.sp.centralcidadao.service.CidadaoService;
+import br.gov.sp.centralcidadao.service.ResumoCidadaoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -20,6 +25,7 @@ import java.util.List;
 public class CidadaoController {
 
     private final CidadaoService cidadaoService;
+    private final ResumoCidadaoService resumoCidadaoService;
 
     @GetMapping
     @Operation(summary = "Listar todos os cidadãos")
@@ -33,6 +39,24 @@ public class CidadaoController {
         return ResponseEntity.ok(cidadaoService.buscarPorId(id));
     }
 
+    @GetMapping("/{id}/resumo")
+    @Operation(summary = "Resumo da tela inicial: perfil, matrículas, solicitações e notificações não lidas")
+    public ResponseEntity<ResumoCidadaoDTO> buscarResumo(@PathVariable Long id) {
+        return ResponseEntity.ok(resumoCidadaoService.buscar(id));
+    }
+
+    @GetMapping("/busca")
+    @Operation(summary = "Buscar cidadãos por nome aproximado (sem acentos, fonética e erros de digitação)")
+    public ResponseEntity<List<CidadaoBuscaDTO>> buscarPorNome(
+            @RequestParam String nome,
+            @RequestParam(required = false) String bairro,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate cadastradoDe,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate cadastradoAte,
+            @RequestParam(defaultValue = "20") int limite) {
+        int limiteAjustado = Math.max(1, Math.min(limite, 100));
+        return ResponseEntity.ok(cidadaoService.buscarPorNome(nome, bairro, cadastradoDe, cadastradoAte, limiteAjustado));
+    }
+
     @GetMapping("/cpf/{cpf}")
     @Operation(summary = "Buscar cidadão por CPF")
     public ResponseEntity<CidadaoDTO> buscarPorCpf(@PathVariable String cpf) {
@@ -0,0 +1,35 @@
+package br.gov.sp.centralcidadao.controller;
+
+import br.gov.sp.centralcidadao.dto.ComunicadoDTO;
+import br.gov.sp.centralcidadao.service.ComunicadoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/comunicados")
+@RequiredArgsConstructor
+@Tag(name = "Comunicados", description = "Avisos para todos os cidadãos ou para um bairro")
+@CrossOrigin(origins = "*")
+public class ComunicadoController {
+
+    private final ComunicadoService comunicadoService;
+
+    @GetMapping
+    @Operation(summary = "Listar comunicados em vigor")
+    public ResponseEntity<List<ComunicadoDTO>> listarEmVigor() {
+        return ResponseEntity.ok(comunicadoService.listarEmVigor());
+    }
+
+    @PostMapping
+    @Operation(summary = "Publicar comunicado (sem bairro: todos os cidadãos)")
+    public ResponseEntity<ComunicadoDTO> publicar(@Valid @RequestBody ComunicadoDTO dto) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(comunicadoService.publicar(dto));
+    }
+}
@@ -0,0 +1,110 @@
+package br.gov.sp.centralcidadao.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Envio de arquivos do disco com suporte a Range (um intervalo), If-None-Match e HEAD.
+ * No Tomcat o corpo sai por sendfile, que usa FileChannel.transferTo direto para o socket
+ * depois que a requisição libera a thread; nos demais casos o transferTo escreve na saída
+ * da resposta sem carregar o arquivo em memória.
+ */
+final class EnvioArquivos {
+
+    public static final String CACHE_IMUTAVEL = "public, max-age=31536000, immutable";
+
+    private static final String SENDFILE_SUPORTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARQUIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIM = "org.apache.tomcat.sendfile.end";
+    // Abaixo disso o sendfile não compensa (mesmo limiar do DefaultServlet do Tomcat)
+    private static final long TAMANHO_MINIMO_SENDFILE = 48 * 1024;
+    private static final Pattern INTERVALO = Pattern.compile("bytes=(\\d{0,18})-(\\d{0,18})");
+
+    private EnvioArquivos() {
+    }
+
+    static void enviar(HttpServletRequest request, HttpServletResponse response, Path arquivo,
+                       String contentType, String etag, String cacheControl) throws IOException {
+        long tamanho = Files.size(arquivo);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, Files.getLastModifiedTime(arquivo).toMillis());
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            if (correspondeEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        long inicio = 0;
+        long fim = tamanho;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        Matcher intervalo = range != null ? INTERVALO.matcher(range.trim()) : null;
+        // Vários intervalos ou sintaxe desconhecida: o arquivo vai inteiro, como permite a RFC 9110
+        if (intervalo != null && intervalo.matches() && (ifRange == null || ifRange.equals(etag))
+                && !(intervalo.group(1).isEmpty() && intervalo.group(2).isEmpty())) {
+            if (intervalo.group(1).isEmpty()) {
+                inicio = Math.max(0, tamanho - Long.parseLong(intervalo.group(2)));
+            } else {
+                inicio = Long.parseLong(intervalo.group(1));
+                if (!intervalo.group(2).isEmpty()) {
+                    fim = Math.min(tamanho, Long.parseLong(intervalo.group(2)) + 1);
+                }
+            }
+            if (inicio >= fim) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamanho);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + (fim - 1) + "/" + tamanho);
+        }
+
+        response.setContentType(contentType);
+        response.setContentLengthLong(fim - inicio);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (fim - inicio >= TAMANHO_MINIMO_SENDFILE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPORTE))) {
+            request.setAttribute(SENDFILE_ARQUIVO, arquivo.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIM, fim);
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            WritableByteChannel saida = Channels.newChannel(response.getOutputStream());
+            long posicao = inicio;
+            while (posicao < fim) {
+                posicao += canal.transferTo(posicao, fim - posicao, saida);
+            }
+        }
+    }
+
+    private static boolean correspondeEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*") || valor.equals(etag) || valor.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
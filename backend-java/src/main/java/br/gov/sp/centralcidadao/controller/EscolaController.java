@@ -9,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -50,6 +51,24 @@ public class EscolaController {
         return ResponseEntity.ok(escolaService.buscarPorNome(nome));
     }
 
+    @PatchMapping("/{id}/vagas/{vagasTotais}")
+    @Operation(summary = "Atualizar total de vagas da escola")
+    public ResponseEntity<EscolaDTO> atualizarVagas(@PathVariable Long id, @PathVariable Integer vagasTotais) {
+        return ResponseEntity.ok(escolaService.atualizarVagas(id, vagasTotais));
+    }
+
+    @GetMapping("/proximas")
+    @Operation(summary = "Listar as escolas com vagas mais próximas de uma coordenada ou do endereço do cidadão")
+    public ResponseEntity<List<EscolaDTO>> buscarProximasComVagas(
+            @RequestParam(required = false) BigDecimal latitude,
+            @RequestParam(required = false) BigDecimal longitude,
+            @RequestParam(required = false) Long cidadaoId,
+            @RequestParam(required = false) NivelEnsino nivel,
+            @RequestParam(defaultValue = "10") int limite) {
+        int limiteAjustado = Math.max(1, Math.min(limite, 50));
+        return ResponseEntity.ok(escolaService.buscarProximasComVagas(latitude, longitude, cidadaoId, nivel, limiteAjustado));
+    }
+
     @GetMapping("/vagas-disponiveis")
     @Operation(summary = "Listar escolas com vagas disponíveis")
     public ResponseEntity<List<EscolaDTO>> buscarComVagasDisponiveis() {
@@ -0,0 +1,68 @@
+package br.gov.sp.centralcidadao.controller;
+
+import br.gov.sp.centralcidadao.domain.FormatoExportacao;
+import br.gov.sp.centralcidadao.service.ExportacaoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/exportacoes")
+@RequiredArgsConstructor
+@Tag(name = "Dados Abertos", description = "Exportação de solicitações e matrículas")
+@CrossOrigin(origins = "*")
+public class ExportacaoController {
+
+    private final ExportacaoService exportacaoService;
+
+    @GetMapping("/solicitacoes")
+    @Operation(summary = "Exportar solicitações de serviços (CSV ou NDJSON)")
+    public ResponseEntity<StreamingResponseBody> exportarSolicitacoes(
+            @RequestParam(defaultValue = "CSV") FormatoExportacao formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            @RequestParam(defaultValue = "true") boolean anonimizar,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return responder("solicitacoes", formato, gzip, saida ->
+                exportacaoService.exportarSolicitacoes(formato, dataInicio, dataFim, anonimizar, saida));
+    }
+
+    @GetMapping("/matriculas")
+    @Operation(summary = "Exportar matrículas (CSV ou NDJSON)")
+    public ResponseEntity<StreamingResponseBody> exportarMatriculas(
+            @RequestParam(defaultValue = "CSV") FormatoExportacao formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            @RequestParam(defaultValue = "true") boolean anonimizar,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return responder("matriculas", formato, gzip, saida ->
+                exportacaoService.exportarMatriculas(formato, dataInicio, dataFim, anonimizar, saida));
+    }
+
+    private ResponseEntity<StreamingResponseBody> responder(String nome, FormatoExportacao formato, boolean gzip,
+                                                            StreamingResponseBody corpo) {
+        String arquivo = nome + "." + formato.getExtensao() + (gzip ? ".gz" : "");
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + arquivo + "\"");
+
+        if (!gzip) {
+            return resposta.contentType(MediaType.parseMediaType(formato.getContentType() + ";charset=UTF-8"))
+                    .body(corpo);
+        }
+        return resposta.contentType(MediaType.parseMediaType("application/gzip"))
+                .body(saida -> {
+                    GZIPOutputStream compactado = new GZIPOutputStream(saida, 64 * 1024);
+                    corpo.writeTo(compactado);
+                    compactado.finish();
+                });
+    }
+}
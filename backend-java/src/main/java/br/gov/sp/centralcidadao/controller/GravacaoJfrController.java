@@ -0,0 +1,61 @@
+package br.gov.sp.centralcidadao.controller;
+
+import br.gov.sp.centralcidadao.dto.GravacaoJfrDTO;
+import br.gov.sp.centralcidadao.service.GravacaoJfrService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+// Desligado por padrão: não há autenticação na API e a gravação expõe detalhes internos
+@RestController
+@RequestMapping("/api/admin/jfr")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "jfr.admin.habilitado", havingValue = "true")
+@Tag(name = "Administração", description = "Gravações JFR sob demanda")
+public class GravacaoJfrController {
+
+    private final GravacaoJfrService gravacaoJfrService;
+
+    @GetMapping
+    @Operation(summary = "Situação da gravação e arquivos disponíveis")
+    public ResponseEntity<GravacaoJfrDTO> situacao() {
+        return ResponseEntity.ok(gravacaoJfrService.situacao());
+    }
+
+    @PostMapping("/iniciar")
+    @Operation(summary = "Iniciar gravação (configuração default ou profile)")
+    public ResponseEntity<GravacaoJfrDTO> iniciar(@RequestParam(required = false) String configuracao,
+                                                  @RequestParam(required = false) Long duracaoMinutos) {
+        return ResponseEntity.ok(gravacaoJfrService.iniciar(configuracao, duracaoMinutos));
+    }
+
+    @PostMapping("/parar")
+    @Operation(summary = "Parar a gravação e gravar o arquivo")
+    public ResponseEntity<GravacaoJfrDTO> parar() {
+        return ResponseEntity.ok(gravacaoJfrService.parar());
+    }
+
+    @PostMapping("/dump")
+    @Operation(summary = "Gravar o conteúdo atual sem parar a gravação")
+    public ResponseEntity<GravacaoJfrDTO> dump() {
+        return ResponseEntity.ok(gravacaoJfrService.dump());
+    }
+
+    @GetMapping("/arquivos/{arquivo}")
+    @Operation(summary = "Baixar gravação (.jfr)")
+    public void baixar(@PathVariable String arquivo, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + arquivo + "\"");
+        EnvioArquivos.enviar(request, response, gravacaoJfrService.arquivo(arquivo),
+                MediaType.APPLICATION_OCTET_STREAM_VALUE, null, "no-store");
+    }
+}
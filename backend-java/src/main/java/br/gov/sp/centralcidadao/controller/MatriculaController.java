@@ -1,6 +1,7 @@
 package br.gov.sp.centralcidadao.controller;
 
 import br.gov.sp.centralcidadao.domain.StatusMatricula;
+import br.gov.sp.centralcidadao.dto.LoteDTO;
 import br.gov.sp.centralcidadao.dto.MatriculaDTO;
 import br.gov.sp.centralcidadao.service.MatriculaService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -28,6 +29,14 @@ public class MatriculaController {
         return ResponseEntity.ok(matriculaService.listarTodas());
     }
 
+    @GetMapping("/lote")
+    @Operation(summary = "Buscar várias matrículas por IDs ou protocolos")
+    public ResponseEntity<LoteDTO<MatriculaDTO>> buscarEmLote(
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) List<String> protocolos) {
+        return ResponseEntity.ok(matriculaService.buscarEmLote(ids, protocolos));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Buscar matrícula por ID")
     public ResponseEntity<MatriculaDTO> buscarPorId(@PathVariable Long id) {
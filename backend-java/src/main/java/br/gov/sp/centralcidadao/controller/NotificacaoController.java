@@ -45,8 +45,15 @@ public class NotificacaoController {
         return ResponseEntity.ok(notificacaoService.marcarComoLida(id));
     }
 
+    @PatchMapping("/cidadao/{cidadaoId}/comunicados/{comunicadoId}/lido")
+    @Operation(summary = "Marcar comunicado (e os anteriores) como lido pelo cidadão")
+    public ResponseEntity<Void> marcarComunicadoComoLido(@PathVariable Long cidadaoId, @PathVariable Long comunicadoId) {
+        notificacaoService.marcarComunicadoComoLido(cidadaoId, comunicadoId);
+        return ResponseEntity.noContent().build();
+    }
+
     @PatchMapping("/cidadao/{cidadaoId}/marcar-todas-lidas")
-    @Operation(summary = "Marcar todas as notificações de um cidadão como lidas")
+    @Operation(summary = "Marcar todas as notificações e comunicados de um cidadão como lidos")
     public ResponseEntity<Void> marcarTodasComoLidas(@PathVariable Long cidadaoId) {
         notificacaoService.marcarTodasComoLidas(cidadaoId);
         return ResponseEntity.noContent().build();
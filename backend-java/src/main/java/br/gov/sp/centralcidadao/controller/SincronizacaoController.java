@@ -0,0 +1,26 @@
+package br.gov.sp.centralcidadao.controller;
+
+import br.gov.sp.centralcidadao.dto.SincronizacaoDTO;
+import br.gov.sp.centralcidadao.service.SincronizacaoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@Tag(name = "Sincronização", description = "Alterações incrementais para o aplicativo offline")
+@CrossOrigin(origins = "*")
+public class SincronizacaoController {
+
+    private final SincronizacaoService sincronizacaoService;
+
+    @GetMapping
+    @Operation(summary = "Matrículas, solicitações e notificações alteradas desde o cursor (sem cursor: carga completa)")
+    public ResponseEntity<SincronizacaoDTO> sincronizar(@RequestParam Long cidadaoId,
+                                                        @RequestParam(required = false) Long since) {
+        return ResponseEntity.ok(sincronizacaoService.sincronizar(cidadaoId, since));
+    }
+}
@@ -2,17 +2,26 @@ package br.gov.sp.centralcidadao.controller;
 
 import br.gov.sp.centralcidadao.domain.StatusSolicitacao;
 import br.gov.sp.centralcidadao.domain.TipoServico;
+import br.gov.sp.centralcidadao.dto.LoteDTO;
 import br.gov.sp.centralcidadao.dto.SolicitacaoServicoDTO;
+import br.gov.sp.centralcidadao.service.ArmazenamentoFotos;
 import br.gov.sp.centralcidadao.service.SolicitacaoServicoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/solicitacoes")
@@ -22,6 +31,7 @@ import java.util.List;
 public class SolicitacaoServicoController {
 
     private final SolicitacaoServicoService solicitacaoService;
+    private final ArmazenamentoFotos armazenamentoFotos;
 
     @GetMapping
     @Operation(summary = "Listar todas as solicitações")
@@ -29,6 +39,14 @@ public class SolicitacaoServicoController {
         return ResponseEntity.ok(solicitacaoService.listarTodas());
     }
 
+    @GetMapping("/lote")
+    @Operation(summary = "Buscar várias solicitações por IDs ou protocolos")
+    public ResponseEntity<LoteDTO<SolicitacaoServicoDTO>> buscarEmLote(
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) List<String> protocolos) {
+        return ResponseEntity.ok(solicitacaoService.buscarEmLote(ids, protocolos));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Buscar solicitação por ID")
     public ResponseEntity<SolicitacaoServicoDTO> buscarPorId(@PathVariable Long id) {
@@ -41,6 +59,12 @@ public class SolicitacaoServicoController {
         return ResponseEntity.ok(solicitacaoService.buscarPorProtocolo(protocolo));
     }
 
+    @GetMapping("/{id}/duplicadas")
+    @Operation(summary = "Listar solicitações vinculadas como duplicatas")
+    public ResponseEntity<List<SolicitacaoServicoDTO>> listarDuplicadas(@PathVariable Long id) {
+        return ResponseEntity.ok(solicitacaoService.listarDuplicadas(id));
+    }
+
     @GetMapping("/cidadao/{cidadaoId}")
     @Operation(summary = "Listar solicitações de um cidadão")
     public ResponseEntity<List<SolicitacaoServicoDTO>> listarPorCidadao(@PathVariable Long cidadaoId) {
@@ -73,4 +97,36 @@ public class SolicitacaoServicoController {
             @PathVariable StatusSolicitacao status) {
         return ResponseEntity.ok(solicitacaoService.atualizarStatus(id, status));
     }
+
+    @PostMapping(value = "/{id}/foto", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Anexar foto à solicitação (JPEG ou PNG)")
+    public ResponseEntity<SolicitacaoServicoDTO> anexarFoto(
+            @PathVariable Long id,
+            @RequestParam("arquivo") MultipartFile arquivo) {
+        return ResponseEntity.ok(solicitacaoService.anexarFoto(id, arquivo));
+    }
+
+    @GetMapping("/{id}/fotos/{arquivo}")
+    @Operation(summary = "Baixar foto da solicitação (aceita Range)")
+    public void baixarFoto(@PathVariable Long id, @PathVariable String arquivo,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path original = armazenamentoFotos.original(id, arquivo);
+        EnvioArquivos.enviar(request, response, original, ArmazenamentoFotos.contentType(arquivo),
+                "\"" + arquivo + "\"", EnvioArquivos.CACHE_IMUTAVEL);
+    }
+
+    @GetMapping("/{id}/fotos/{arquivo}/miniatura")
+    @Operation(summary = "Baixar miniatura da foto da solicitação")
+    public void baixarMiniatura(@PathVariable Long id, @PathVariable String arquivo,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> miniatura = armazenamentoFotos.miniatura(id, arquivo);
+        if (miniatura.isPresent()) {
+            EnvioArquivos.enviar(request, response, miniatura.get(), MediaType.IMAGE_JPEG_VALUE,
+                    "\"" + arquivo + "-miniatura\"", EnvioArquivos.CACHE_IMUTAVEL);
+            return;
+        }
+        // Miniatura ainda em geração: envia a original sem cache, para não fixá-la no lugar da miniatura
+        EnvioArquivos.enviar(request, response, armazenamentoFotos.original(id, arquivo),
+                ArmazenamentoFotos.contentType(arquivo), null, "no-cache");
+    }
 }
@@ -5,15 +5,23 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cidadaos")
+@Table(name = "cidadaos", uniqueConstraints = {
+        @UniqueConstraint(name = Cidadao.RESTRICAO_CPF, columnNames = "cpf"),
+        @UniqueConstraint(name = Cidadao.RESTRICAO_EMAIL, columnNames = "email")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Cidadao {
 
+    // Nomes das restrições UNIQUE no init.sql, usados para identificar o campo duplicado
+    public static final String RESTRICAO_CPF = "uk_cidadaos_cpf";
+    public static final String RESTRICAO_EMAIL = "uk_cidadaos_email";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -21,10 +29,10 @@ public class Cidadao {
     @Column(nullable = false)
     private String nome;
 
-    @Column(unique = true, nullable = false, length = 14)
+    @Column(nullable = false, length = 14)
     private String cpf;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
     @Column(length = 20)
@@ -50,6 +58,16 @@ public class Cidadao {
     @Column(length = 2)
     private String estado;
 
+    @Column(precision = 10, scale = 8)
+    private BigDecimal latitude;
+
+    @Column(precision = 11, scale = 8)
+    private BigDecimal longitude;
+
+    // Quando ativo, atualizações de protocolos são entregues em um resumo diário
+    @Column(name = "resumo_diario")
+    private Boolean resumoDiario = false;
+
     @Column(name = "data_cadastro")
     private LocalDateTime dataCadastro;
 
@@ -0,0 +1,54 @@
+package br.gov.sp.centralcidadao.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aviso da prefeitura para todos os cidadãos ou para os de um bairro. É gravado uma única
+ * vez e entra nas notificações de cada cidadão na leitura; o que já foi lido é controlado
+ * pelo cursor do cidadão (CursorLeitura).
+ */
+@Entity
+@Table(name = "comunicados")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Comunicado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String titulo;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String mensagem;
+
+    @Enumerated(EnumType.STRING)
+    private TipoNotificacao tipo = TipoNotificacao.INFO;
+
+    // Nulo: todos os cidadãos
+    @Column(length = 100)
+    private String bairro;
+
+    @Column(name = "data_publicacao")
+    private LocalDateTime dataPublicacao;
+
+    // Depois dessa data o comunicado deixa de aparecer; nulo não expira
+    @Column(name = "data_expiracao")
+    private LocalDateTime dataExpiracao;
+
+    // Preenchida pelo banco a cada INSERT/UPDATE da linha; base da sincronização incremental
+    @Column(name = "data_sincronizacao", insertable = false, updatable = false)
+    private LocalDateTime dataSincronizacao;
+
+    @PrePersist
+    protected void onCreate() {
+        dataPublicacao = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,34 @@
+package br.gov.sp.centralcidadao.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Até onde o cidadão já leu: comunicados e notificações com id menor ou igual ao cursor
+ * correspondente contam como lidos. "Marcar todas como lidas" só avança os cursores;
+ * notificações lidas uma a uma depois do cursor continuam marcadas na própria linha (lida).
+ * Uma linha por cidadão, criada na primeira leitura.
+ */
+@Entity
+@Table(name = "cursores_leitura")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorLeitura {
+
+    @Id
+    @Column(name = "cidadao_id")
+    private Long cidadaoId;
+
+    @Column(name = "ultimo_comunicado_id", nullable = false)
+    private Long ultimoComunicadoId = 0L;
+
+    @Column(name = "ultima_notificacao_id", nullable = false)
+    private Long ultimaNotificacaoId = 0L;
+
+    public static CursorLeitura inicial(Long cidadaoId) {
+        return new CursorLeitura(cidadaoId, 0L, 0L);
+    }
+}
@@ -0,0 +1,7 @@
+package br.gov.sp.centralcidadao.domain;
+
+// Entidades que podem deixar a visão do cidadão e por isso geram registro de remoção
+public enum EntidadeSincronizacao {
+    SOLICITACAO,
+    NOTIFICACAO
+}
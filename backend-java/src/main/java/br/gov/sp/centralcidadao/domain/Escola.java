@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
@@ -32,6 +33,12 @@ public class Escola {
     @Column(length = 20)
     private String telefone;
 
+    @Column(precision = 10, scale = 8)
+    private BigDecimal latitude;
+
+    @Column(precision = 11, scale = 8)
+    private BigDecimal longitude;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "nivel_ensino", nullable = false)
     private NivelEnsino nivelEnsino;
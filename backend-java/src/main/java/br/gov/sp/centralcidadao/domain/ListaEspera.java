@@ -0,0 +1,44 @@
+package br.gov.sp.centralcidadao.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "lista_espera")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListaEspera {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "matricula_id", nullable = false, unique = true)
+    private Matricula matricula;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "escola_id", nullable = false)
+    private Escola escola;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "nivel_ensino", nullable = false)
+    private NivelEnsino nivelEnsino;
+
+    // Maior prioridade é atendida primeiro; empates seguem a ordem de chegada (id)
+    @Column(nullable = false)
+    private Integer prioridade = 0;
+
+    @Column(name = "data_entrada")
+    private LocalDateTime dataEntrada;
+
+    @PrePersist
+    protected void onCreate() {
+        dataEntrada = LocalDateTime.now();
+    }
+}
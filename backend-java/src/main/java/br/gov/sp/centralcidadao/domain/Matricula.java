@@ -46,6 +46,15 @@ public class Matricula {
     @Enumerated(EnumType.STRING)
     private StatusMatricula status = StatusMatricula.PENDENTE;
 
+    // Controle otimista: gravações pela entidade falham se outra operação alterou a linha
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+
+    // Saiu da lista de espera: reserva uma das vagas livres da escola enquanto aguarda análise
+    @Column(name = "promovida_lista_espera", nullable = false)
+    private Boolean promovidaListaEspera = false;
+
     @Column(columnDefinition = "TEXT")
     private String observacoes;
 
@@ -55,6 +64,10 @@ public class Matricula {
     @Column(name = "data_atualizacao")
     private LocalDateTime dataAtualizacao;
 
+    // Preenchida pelo banco a cada INSERT/UPDATE da linha; base da sincronização incremental
+    @Column(name = "data_sincronizacao", insertable = false, updatable = false)
+    private LocalDateTime dataSincronizacao;
+
     @PrePersist
     protected void onCreate() {
         dataSolicitacao = LocalDateTime.now();
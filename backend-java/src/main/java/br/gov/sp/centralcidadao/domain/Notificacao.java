@@ -22,6 +22,10 @@ public class Notificacao {
     @JoinColumn(name = "cidadao_id", nullable = false)
     private Cidadao cidadao;
 
+    // Protocolo da matrícula/solicitação a que a notificação se refere, usado para agrupar atualizações
+    @Column(length = 20)
+    private String protocolo;
+
     @Column(nullable = false)
     private String titulo;
 
@@ -36,6 +40,10 @@ public class Notificacao {
     @Column(name = "data_criacao")
     private LocalDateTime dataCriacao;
 
+    // Preenchida pelo banco a cada INSERT/UPDATE da linha; base da sincronização incremental
+    @Column(name = "data_sincronizacao", insertable = false, updatable = false)
+    private LocalDateTime dataSincronizacao;
+
     @PrePersist
     protected void onCreate() {
         dataCriacao = LocalDateTime.now();
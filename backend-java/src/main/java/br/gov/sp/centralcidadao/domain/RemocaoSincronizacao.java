@@ -0,0 +1,38 @@
+package br.gov.sp.centralcidadao.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro de remoção (tombstone) de uma solicitação ou notificação do cidadão, hoje
+ * gerado pelo arquivamento. Permite à sincronização incremental avisar o aplicativo do
+ * que deve sair da cópia local. Mantido por sincronizacao.remocoes.dias.
+ */
+@Entity
+@Table(name = "remocoes_sincronizacao")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RemocaoSincronizacao {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cidadao_id", nullable = false)
+    private Long cidadaoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EntidadeSincronizacao entidade;
+
+    @Column(name = "registro_id", nullable = false)
+    private Long registroId;
+
+    @Column(name = "data_remocao", insertable = false, updatable = false)
+    private LocalDateTime dataRemocao;
+}
@@ -0,0 +1,39 @@
+package br.gov.sp.centralcidadao.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "resumos_pendentes",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"cidadao_id", "protocolo"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoPendente {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cidadao_id", nullable = false)
+    private Cidadao cidadao;
+
+    @Column(nullable = false, length = 20)
+    private String protocolo;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String mensagem;
+
+    @Column(name = "data_atualizacao")
+    private LocalDateTime dataAtualizacao;
+
+    @PrePersist
+    protected void onCreate() {
+        dataAtualizacao = LocalDateTime.now();
+    }
+}
@@ -54,9 +54,19 @@ public class SolicitacaoServico {
     @Enumerated(EnumType.STRING)
     private StatusSolicitacao status = StatusSolicitacao.ABERTA;
 
+    // Controle otimista: gravações pela entidade falham se outra operação alterou a linha
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+
     @Enumerated(EnumType.STRING)
     private Prioridade prioridade = Prioridade.MEDIA;
 
+    // Preenchida quando a solicitação é duplicata de outra já aberta
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "solicitacao_principal_id")
+    private SolicitacaoServico solicitacaoPrincipal;
+
     @Column(name = "data_solicitacao")
     private LocalDateTime dataSolicitacao;
 
@@ -66,6 +76,10 @@ public class SolicitacaoServico {
     @Column(name = "data_conclusao")
     private LocalDateTime dataConclusao;
 
+    // Preenchida pelo banco a cada INSERT/UPDATE da linha; base da sincronização incremental
+    @Column(name = "data_sincronizacao", insertable = false, updatable = false)
+    private LocalDateTime dataSincronizacao;
+
     @PrePersist
     protected void onCreate() {
         dataSolicitacao = LocalDateTime.now();
@@ -1,12 +1,28 @@
 package br.gov.sp.centralcidadao.domain;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum StatusMatricula {
     PENDENTE("Pendente"),
+    LISTA_ESPERA("Lista de Espera"),
     EM_ANALISE("Em Análise"),
     APROVADA("Aprovada"),
     REJEITADA("Rejeitada"),
     CANCELADA("Cancelada");
 
+    // Transições permitidas a partir de cada status; status sem entrada são finais
+    private static final Map<StatusMatricula, Set<StatusMatricula>> TRANSICOES = new EnumMap<>(StatusMatricula.class);
+
+    static {
+        TRANSICOES.put(PENDENTE, EnumSet.of(EM_ANALISE, APROVADA, REJEITADA, CANCELADA));
+        TRANSICOES.put(LISTA_ESPERA, EnumSet.of(PENDENTE, REJEITADA, CANCELADA));
+        TRANSICOES.put(EM_ANALISE, EnumSet.of(APROVADA, REJEITADA, CANCELADA));
+        TRANSICOES.put(APROVADA, EnumSet.of(REJEITADA, CANCELADA));
+    }
+
     private final String descricao;
 
     StatusMatricula(String descricao) {
@@ -16,4 +32,12 @@ public enum StatusMatricula {
     public String getDescricao() {
         return descricao;
     }
+
+    public boolean podeMudarPara(StatusMatricula destino) {
+        return TRANSICOES.getOrDefault(this, Set.of()).contains(destino);
+    }
+
+    public boolean isFinal() {
+        return !TRANSICOES.containsKey(this);
+    }
 }
@@ -1,5 +1,10 @@
 package br.gov.sp.centralcidadao.domain;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum StatusSolicitacao {
     ABERTA("Aberta"),
     EM_ANALISE("Em Análise"),
@@ -7,6 +12,15 @@ public enum StatusSolicitacao {
     CONCLUIDA("Concluída"),
     CANCELADA("Cancelada");
 
+    // Transições permitidas a partir de cada status; status sem entrada são finais
+    private static final Map<StatusSolicitacao, Set<StatusSolicitacao>> TRANSICOES = new EnumMap<>(StatusSolicitacao.class);
+
+    static {
+        TRANSICOES.put(ABERTA, EnumSet.of(EM_ANALISE, EM_EXECUCAO, CONCLUIDA, CANCELADA));
+        TRANSICOES.put(EM_ANALISE, EnumSet.of(EM_EXECUCAO, CONCLUIDA, CANCELADA));
+        TRANSICOES.put(EM_EXECUCAO, EnumSet.of(CONCLUIDA, CANCELADA));
+    }
+
     private final String descricao;
 
     StatusSolicitacao(String descricao) {
@@ -16,4 +30,12 @@ public enum StatusSolicitacao {
     public String getDescricao() {
         return descricao;
     }
+
+    public boolean podeMudarPara(StatusSolicitacao destino) {
+        return TRANSICOES.getOrDefault(this, Set.of()).contains(destino);
+    }
+
+    public boolean isFinal() {
+        return !TRANSICOES.containsKey(this);
+    }
 }
@@ -0,0 +1,21 @@
+package br.gov.sp.centralcidadao.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CidadaoBuscaDTO {
+
+    private Long id;
+    private String nome;
+    private String bairro;
+    private LocalDate dataCadastro;
+
+    // De 0 a 1; quanto maior, mais parecido com o nome buscado
+    private Double pontuacao;
+}
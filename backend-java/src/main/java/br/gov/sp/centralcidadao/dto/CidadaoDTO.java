@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,4 +33,7 @@ public class CidadaoDTO {
     private String bairro;
     private String cidade;
     private String estado;
+    private BigDecimal latitude;
+    private BigDecimal longitude;
+    private Boolean resumoDiario;
 }
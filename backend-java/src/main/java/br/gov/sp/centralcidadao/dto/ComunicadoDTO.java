@@ -0,0 +1,31 @@
+package br.gov.sp.centralcidadao.dto;
+
+import br.gov.sp.centralcidadao.domain.TipoNotificacao;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComunicadoDTO {
+
+    private Long id;
+
+    @NotBlank(message = "Título é obrigatório")
+    private String titulo;
+
+    @NotBlank(message = "Mensagem é obrigatória")
+    private String mensagem;
+
+    private TipoNotificacao tipo;
+
+    // Vazio: comunicado para todos os cidadãos
+    private String bairro;
+
+    private LocalDateTime dataPublicacao;
+    private LocalDateTime dataExpiracao;
+}
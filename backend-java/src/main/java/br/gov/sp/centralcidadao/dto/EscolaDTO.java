@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,6 +18,8 @@ public class EscolaDTO {
     private String bairro;
     private String cidade;
     private String telefone;
+    private BigDecimal latitude;
+    private BigDecimal longitude;
     private NivelEnsino nivelEnsino;
     private String nivelEnsinoDescricao;
     private Integer vagasTotais;
@@ -23,4 +27,5 @@ public class EscolaDTO {
     private Integer vagasDisponiveis;
     private Double percentualOcupacao;
     private String statusVagas; // "DISPONIVEL", "LIMITADO", "LOTADO"
+    private Double distanciaKm;
 }
@@ -0,0 +1,25 @@
+package br.gov.sp.centralcidadao.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GravacaoJfrDTO {
+
+    private boolean ativa;
+    private String configuracao;
+    private Instant inicio;
+    private Long duracaoMaximaSegundos;
+
+    // Arquivo gerado pela última operação (parar ou dump)
+    private String arquivo;
+
+    // Gravações disponíveis para download, da mais recente para a mais antiga
+    private List<String> arquivos;
+}
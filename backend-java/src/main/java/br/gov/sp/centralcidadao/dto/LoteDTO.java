@@ -0,0 +1,17 @@
+package br.gov.sp.centralcidadao.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteDTO<T> {
+
+    // Na mesma ordem da requisição, com null nas posições não encontradas
+    private List<T> itens;
+    private List<String> naoEncontrados;
+}
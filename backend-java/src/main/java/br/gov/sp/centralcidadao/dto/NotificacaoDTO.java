@@ -14,9 +14,16 @@ public class NotificacaoDTO {
     
     private Long id;
     private Long cidadaoId;
+    private String protocolo;
     private String titulo;
     private String mensagem;
     private TipoNotificacao tipo;
     private Boolean lida;
     private LocalDateTime dataCriacao;
+
+    // Preenchido só nos comunicados (avisos gerais), que não têm id de notificação
+    private Long comunicadoId;
+
+    // Só em comunicados: depois dela o comunicado some da lista (a cópia local deve descartá-lo)
+    private LocalDateTime dataExpiracao;
 }
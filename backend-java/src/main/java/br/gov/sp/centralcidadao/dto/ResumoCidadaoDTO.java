@@ -0,0 +1,21 @@
+package br.gov.sp.centralcidadao.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoCidadaoDTO {
+
+    private CidadaoDTO cidadao;
+    private List<MatriculaDTO> matriculas;
+    private List<SolicitacaoServicoDTO> solicitacoes;
+    private Long notificacoesNaoLidas;
+
+    // Seções que falharam ou excederam o tempo limite e vieram sem dados
+    private List<String> secoesIndisponiveis;
+}
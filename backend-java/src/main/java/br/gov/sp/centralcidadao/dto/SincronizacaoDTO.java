@@ -0,0 +1,32 @@
+package br.gov.sp.centralcidadao.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SincronizacaoDTO {
+
+    // Enviar como since na próxima sincronização
+    private Long cursor;
+
+    // Carga completa: o aplicativo substitui a cópia local em vez de aplicar as alterações
+    private boolean completa;
+
+    private List<MatriculaDTO> matriculas = new ArrayList<>();
+    private List<SolicitacaoServicoDTO> solicitacoes = new ArrayList<>();
+    private List<NotificacaoDTO> notificacoes = new ArrayList<>();
+
+    // Ids que saíram da visão do cidadão (arquivados) desde o cursor anterior
+    private List<Long> solicitacoesRemovidas = new ArrayList<>();
+    private List<Long> notificacoesRemovidas = new ArrayList<>();
+
+    // Cursores de leitura: notificações/comunicados com id até eles contam como lidos
+    private Long ultimaNotificacaoLida;
+    private Long ultimoComunicadoLido;
+}
@@ -45,6 +45,7 @@ public class SolicitacaoServicoDTO {
     private String statusDescricao;
     private Prioridade prioridade;
     private String prioridadeDescricao;
+    private Long solicitacaoPrincipalId;
     private LocalDateTime dataSolicitacao;
     private LocalDateTime dataAtualizacao;
     private LocalDateTime dataConclusao;
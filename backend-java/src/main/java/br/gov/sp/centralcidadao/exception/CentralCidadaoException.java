@@ -0,0 +1,13 @@
+package br.gov.sp.centralcidadao.exception;
+
+/**
+ * Base das exceções de domínio. São erros esperados (consulta de protocolo inexistente,
+ * cadastro duplicado etc.), então não capturam a pilha de chamadas: o custo de criação
+ * fica no mesmo patamar de um objeto comum.
+ */
+public abstract class CentralCidadaoException extends RuntimeException {
+
+    protected CentralCidadaoException(String mensagem) {
+        super(mensagem, null, false, false);
+    }
+}
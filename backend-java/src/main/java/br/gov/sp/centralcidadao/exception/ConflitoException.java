@@ -0,0 +1,11 @@
+package br.gov.sp.centralcidadao.exception;
+
+/**
+ * Conflito com o estado atual do recurso, como CPF ou email já cadastrado (HTTP 409).
+ */
+public class ConflitoException extends CentralCidadaoException {
+
+    public ConflitoException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -0,0 +1,47 @@
+package br.gov.sp.centralcidadao.exception;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Corpo das respostas de erro, com os mesmos campos do formato anterior em mapa.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ErroResposta(LocalDateTime timestamp, int status, String error, String message,
+                           Map<String, String> errors) {
+
+    public static ErroResposta de(ErroPadrao padrao, String message) {
+        return de(padrao, message, null);
+    }
+
+    public static ErroResposta de(ErroPadrao padrao, String message, Map<String, String> errors) {
+        return new ErroResposta(LocalDateTime.now(), padrao.status, padrao.error, message, errors);
+    }
+
+    /**
+     * Status e título fixos de cada tipo de erro, criados uma única vez.
+     */
+    public enum ErroPadrao {
+        REQUISICAO_INVALIDA(400, "Erro na requisição"),
+        VALIDACAO(400, "Erro de validação"),
+        NAO_ENCONTRADO(404, "Recurso não encontrado"),
+        CONFLITO(409, "Conflito"),
+        ARQUIVO_GRANDE(413, "Arquivo muito grande"),
+        REGRA_NEGOCIO(422, "Regra de negócio violada"),
+        INTERNO(500, "Erro interno do servidor");
+
+        private final int status;
+        private final String error;
+
+        ErroPadrao(int status, String error) {
+            this.status = status;
+            this.error = error;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+}
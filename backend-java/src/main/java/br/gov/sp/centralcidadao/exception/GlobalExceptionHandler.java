@@ -1,56 +1,70 @@
 package br.gov.sp.centralcidadao.exception;
 
-import org.springframework.http.HttpStatus;
+import br.gov.sp.centralcidadao.exception.ErroResposta.ErroPadrao;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @ExceptionHandler(RecursoNaoEncontradoException.class)
+    public ResponseEntity<ErroResposta> handleNaoEncontrado(RecursoNaoEncontradoException ex) {
+        return resposta(ErroPadrao.NAO_ENCONTRADO, ex.getMessage());
+    }
+
+    @ExceptionHandler(ConflitoException.class)
+    public ResponseEntity<ErroResposta> handleConflito(ConflitoException ex) {
+        return resposta(ErroPadrao.CONFLITO, ex.getMessage());
+    }
+
+    // Versão da entidade mudou entre a leitura e a gravação (@Version)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErroResposta> handleVersaoConcorrente(OptimisticLockingFailureException ex) {
+        return resposta(ErroPadrao.CONFLITO, "Registro alterado por outra operação, tente novamente");
+    }
+
+    @ExceptionHandler(RegraNegocioException.class)
+    public ResponseEntity<ErroResposta> handleRegraNegocio(RegraNegocioException ex) {
+        return resposta(ErroPadrao.REGRA_NEGOCIO, ex.getMessage());
+    }
+
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<ErroResposta> handleArquivoGrande(MaxUploadSizeExceededException ex) {
+        return resposta(ErroPadrao.ARQUIVO_GRANDE, "Arquivo excede o tamanho máximo permitido");
+    }
+
     @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<Map<String, Object>> handleRuntimeException(RuntimeException ex) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.BAD_REQUEST.value());
-        body.put("error", "Erro na requisição");
-        body.put("message", ex.getMessage());
-        
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+    public ResponseEntity<ErroResposta> handleRuntimeException(RuntimeException ex) {
+        return resposta(ErroPadrao.REQUISICAO_INVALIDA, ex.getMessage());
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.BAD_REQUEST.value());
-        body.put("error", "Erro de validação");
-
+    public ResponseEntity<ErroResposta> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
             String errorMessage = error.getDefaultMessage();
             errors.put(fieldName, errorMessage);
         });
-        body.put("errors", errors);
-        
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+
+        return ResponseEntity.status(ErroPadrao.VALIDACAO.getStatus())
+                .body(ErroResposta.de(ErroPadrao.VALIDACAO, null, errors));
     }
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Map<String, Object>> handleGenericException(Exception ex) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
-        body.put("error", "Erro interno do servidor");
-        body.put("message", "Ocorreu um erro inesperado. Tente novamente mais tarde.");
-        
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
+    public ResponseEntity<ErroResposta> handleGenericException(Exception ex) {
+        return resposta(ErroPadrao.INTERNO, "Ocorreu um erro inesperado. Tente novamente mais tarde.");
+    }
+
+    private static ResponseEntity<ErroResposta> resposta(ErroPadrao padrao, String mensagem) {
+        return ResponseEntity.status(padrao.getStatus()).body(ErroResposta.de(padrao, mensagem));
     }
 }
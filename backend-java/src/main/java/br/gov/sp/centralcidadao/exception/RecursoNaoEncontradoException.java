@@ -0,0 +1,21 @@
+package br.gov.sp.centralcidadao.exception;
+
+/**
+ * Recurso inexistente (HTTP 404). A mensagem só é montada quando lida.
+ */
+public class RecursoNaoEncontradoException extends CentralCidadaoException {
+
+    private final String descricao;
+    private final Object identificador;
+
+    public RecursoNaoEncontradoException(String descricao, Object identificador) {
+        super(null);
+        this.descricao = descricao;
+        this.identificador = identificador;
+    }
+
+    @Override
+    public String getMessage() {
+        return descricao + ": " + identificador;
+    }
+}
@@ -0,0 +1,11 @@
+package br.gov.sp.centralcidadao.exception;
+
+/**
+ * Requisição bem formada que viola uma regra de negócio (HTTP 422).
+ */
+public class RegraNegocioException extends CentralCidadaoException {
+
+    public RegraNegocioException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -0,0 +1,43 @@
+package br.gov.sp.centralcidadao.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de tokens sem bloqueio, implementado como GCRA: todo o estado é o
+ * "tempo teórico de chegada" da próxima requisição, atualizado por CAS.
+ */
+final class BaldeTokens {
+
+    private final long intervaloEmissaoNanos;
+    private final long toleranciaNanos;
+    private final AtomicLong tempoTeorico;
+
+    BaldeTokens(long intervaloEmissaoNanos, int rajada, long agora) {
+        this.intervaloEmissaoNanos = intervaloEmissaoNanos;
+        this.toleranciaNanos = intervaloEmissaoNanos * Math.max(0, rajada - 1);
+        this.tempoTeorico = new AtomicLong(agora);
+    }
+
+    /**
+     * Consome um token. Retorna 0 se a requisição foi aceita ou, caso contrário,
+     * quantos nanossegundos faltam até o próximo token.
+     */
+    long consumir(long agora) {
+        while (true) {
+            long atual = tempoTeorico.get();
+            long novo = Math.max(atual, agora) + intervaloEmissaoNanos;
+            long excesso = novo - agora - toleranciaNanos - intervaloEmissaoNanos;
+            if (excesso > 0) {
+                return excesso;
+            }
+            if (tempoTeorico.compareAndSet(atual, novo)) {
+                return 0;
+            }
+        }
+    }
+
+    // Um balde ocioso está cheio e equivale a um balde novo, podendo ser descartado
+    boolean isOcioso(long agora) {
+        return tempoTeorico.get() - agora <= 0;
+    }
+}
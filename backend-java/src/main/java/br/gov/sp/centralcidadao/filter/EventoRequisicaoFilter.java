@@ -0,0 +1,48 @@
+package br.gov.sp.centralcidadao.filter;
+
+import br.gov.sp.centralcidadao.monitoramento.EventoRequisicao;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Evento JFR cobrindo a requisição inteira, inclusive os demais filtros. O endpoint é o
+ * padrão mapeado (/api/cidadaos/{id}), para agrupar as requisições na análise da gravação.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "jfr.eventos.habilitado", havingValue = "true", matchIfMissing = true)
+public class EventoRequisicaoFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EventoRequisicao evento = new EventoRequisicao();
+        if (!evento.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        evento.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            evento.end();
+            if (evento.shouldCommit()) {
+                Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                evento.metodo = request.getMethod();
+                evento.endpoint = padrao != null ? padrao.toString() : request.getRequestURI();
+                evento.status = response.getStatus();
+                evento.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package br.gov.sp.centralcidadao.filter;
+
+import br.gov.sp.centralcidadao.service.IdempotenciaService;
+import br.gov.sp.centralcidadao.service.IdempotenciaService.Reserva;
+import br.gov.sp.centralcidadao.service.IdempotenciaService.RespostaArmazenada;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Garante que requisições POST repetidas com o mesmo {@code Idempotency-Key}
+ * devolvam a resposta original sem executar novamente os serviços de negócio.
+ * A chave vale por chamador (a mesma identidade do limite de requisições): clientes
+ * diferentes que escolham o mesmo valor não recebem a resposta um do outro.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@RequiredArgsConstructor
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    public static final String HEADER_CHAVE = "Idempotency-Key";
+    public static final String HEADER_REPETICAO = "Idempotent-Replayed";
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    private final IdempotenciaService idempotenciaService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Uploads multipart ficam de fora: o corpo inteiro teria de ser copiado para a memória
+        return !"POST".equals(request.getMethod())
+                || !request.getRequestURI().startsWith("/api/")
+                || request.getHeader(HEADER_CHAVE) == null
+                || (request.getContentType() != null && request.getContentType().startsWith("multipart/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String chaveCliente = request.getHeader(HEADER_CHAVE).trim();
+        if (chaveCliente.isEmpty() || chaveCliente.length() > TAMANHO_MAXIMO_CHAVE) {
+            escreverErro(response, HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+            return;
+        }
+
+        byte[] corpoRequisicao = StreamUtils.copyToByteArray(request.getInputStream());
+        String chave = sha256((IdentidadeChamador.de(request) + " " + request.getMethod() + " "
+                + request.getRequestURI() + " " + chaveCliente).getBytes(StandardCharsets.UTF_8));
+        String hashRequisicao = sha256(corpoRequisicao);
+
+        Reserva reserva = idempotenciaService.reservar(chave, hashRequisicao);
+        switch (reserva.situacao()) {
+            case REPETICAO -> {
+                repetir(response, reserva.resposta());
+                return;
+            }
+            case CONFLITO -> {
+                escreverErro(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key já utilizada com outro conteúdo de requisição");
+                return;
+            }
+            case EM_PROCESSAMENTO -> {
+                escreverErro(response, HttpStatus.CONFLICT,
+                        "Requisição com esta Idempotency-Key ainda está em processamento");
+                return;
+            }
+            case PROCESSAR -> {
+                // segue para o processamento normal
+            }
+        }
+
+        ContentCachingResponseWrapper respostaCapturada = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(new CorpoReutilizavelRequest(request, corpoRequisicao), respostaCapturada);
+        } catch (IOException | ServletException | RuntimeException e) {
+            idempotenciaService.liberar(chave);
+            throw e;
+        }
+
+        int status = respostaCapturada.getStatus();
+        // Erros transitórios não são memorizados para que o cliente possa tentar de novo
+        if (status < 500 && status != HttpStatus.TOO_MANY_REQUESTS.value()) {
+            idempotenciaService.concluir(chave, new RespostaArmazenada(
+                    status, respostaCapturada.getContentType(), respostaCapturada.getContentAsByteArray()));
+        } else {
+            idempotenciaService.liberar(chave);
+        }
+        respostaCapturada.copyBodyToResponse();
+    }
+
+    private void repetir(HttpServletResponse response, RespostaArmazenada resposta) throws IOException {
+        response.setStatus(resposta.status());
+        if (resposta.contentType() != null) {
+            response.setContentType(resposta.contentType());
+        }
+        response.setHeader(HEADER_REPETICAO, "true");
+        response.setContentLength(resposta.corpo().length);
+        response.getOutputStream().write(resposta.corpo());
+    }
+
+    private void escreverErro(HttpServletResponse response, HttpStatus status, String mensagem) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", "Erro na requisição");
+        body.put("message", mensagem);
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static String sha256(byte[] conteudo) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CorpoReutilizavelRequest extends HttpServletRequestWrapper {
+
+        private final byte[] corpo;
+
+        private CorpoReutilizavelRequest(HttpServletRequest request, byte[] corpo) {
+            super(request);
+            this.corpo = corpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(corpo);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return corpo.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return corpo.length;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package br.gov.sp.centralcidadao.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Identifica quem fez a requisição para os filtros que guardam estado por cliente: o usuário
+ * autenticado ou, sem ele, o IP. A aplicação ainda não tem autenticação, então hoje é sempre o IP.
+ * Ids de cidadão na URL ou em cabeçalhos não servem: são escolhidos pelo próprio cliente.
+ */
+final class IdentidadeChamador {
+
+    private IdentidadeChamador() {
+    }
+
+    static String de(HttpServletRequest request) {
+        if (request.getRemoteUser() != null) {
+            return "c" + request.getRemoteUser();
+        }
+        return request.getRemoteAddr();
+    }
+}
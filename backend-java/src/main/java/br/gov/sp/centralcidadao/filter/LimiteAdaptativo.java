@@ -0,0 +1,106 @@
+package br.gov.sp.centralcidadao.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de requisições simultâneas ajustado pela latência observada (algoritmo de gradiente).
+ * Compara a latência recente com uma referência de longo prazo: enquanto ficam próximas o
+ * limite cresce devagar; quando a recente sobe (fila no pool de conexões ou no banco) o limite
+ * cai na mesma proporção. Falhas reduzem o limite multiplicativamente.
+ */
+final class LimiteAdaptativo {
+
+    private static final double PESO_CURTO = 0.1;
+    private static final double PESO_LONGO = 1.0 / 600;
+
+    private final int minimo;
+    private final int maximo;
+    private final double tolerancia;
+    private final double suavizacao;
+    private final AtomicInteger emAndamento = new AtomicInteger();
+
+    private volatile int limite;
+    private double limiteExato;
+    private double latenciaCurta;
+    private double latenciaLonga;
+
+    LimiteAdaptativo(int inicial, int minimo, int maximo, double tolerancia, double suavizacao) {
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.tolerancia = tolerancia;
+        this.suavizacao = suavizacao;
+        this.limite = inicial;
+        this.limiteExato = inicial;
+    }
+
+    boolean adquirir() {
+        while (true) {
+            int atual = emAndamento.get();
+            if (atual >= limite) {
+                return false;
+            }
+            if (emAndamento.compareAndSet(atual, atual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera a vaga e registra a amostra. {@code emAndamentoNoInicio} indica se havia demanda
+     * suficiente para que a latência reflita o limite atual.
+     */
+    void liberar(long latenciaNanos, int emAndamentoNoInicio, boolean falhou) {
+        emAndamento.decrementAndGet();
+        amostrar(latenciaNanos, emAndamentoNoInicio, falhou);
+    }
+
+    int emAndamento() {
+        return emAndamento.get();
+    }
+
+    int limite() {
+        return limite;
+    }
+
+    // Latência de referência em milissegundos, usada no Retry-After
+    synchronized double latenciaReferenciaMs() {
+        return latenciaLonga / 1_000_000;
+    }
+
+    private synchronized void amostrar(long latenciaNanos, int emAndamentoNoInicio, boolean falhou) {
+        if (minimo == maximo) {
+            return;
+        }
+        if (falhou) {
+            ajustar(limiteExato * 0.9);
+            return;
+        }
+
+        double latencia = latenciaNanos;
+        if (latenciaLonga == 0) {
+            latenciaCurta = latencia;
+            latenciaLonga = latencia;
+        } else {
+            latenciaCurta += (latencia - latenciaCurta) * PESO_CURTO;
+            latenciaLonga += (latencia - latenciaLonga) * PESO_LONGO;
+            // Depois de um período lento, a referência acompanha a recuperação mais rápido
+            if (latenciaLonga > 2 * latenciaCurta) {
+                latenciaLonga *= 0.95;
+            }
+        }
+
+        // Pouca demanda: a latência não diz nada sobre o limite, então ele não cresce
+        if (emAndamentoNoInicio < limiteExato / 2) {
+            return;
+        }
+
+        double gradiente = Math.max(0.5, Math.min(1.0, tolerancia * latenciaLonga / latenciaCurta));
+        double novo = limiteExato * gradiente + Math.sqrt(limiteExato);
+        ajustar(limiteExato * (1 - suavizacao) + novo * suavizacao);
+    }
+
+    private void ajustar(double novo) {
+        limiteExato = Math.max(minimo, Math.min(maximo, novo));
+        limite = (int) limiteExato;
+    }
+}
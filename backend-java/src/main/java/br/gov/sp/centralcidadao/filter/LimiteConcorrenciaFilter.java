@@ -0,0 +1,183 @@
+package br.gov.sp.centralcidadao.filter;
+
+import br.gov.sp.centralcidadao.config.LimiteConcorrenciaProperties;
+import br.gov.sp.centralcidadao.config.LimiteConcorrenciaProperties.Classe;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limita as requisições simultâneas por classe de endpoint com um limite adaptativo.
+ * Acima do limite a requisição é recusada na hora com 503 e Retry-After, em vez de esperar
+ * por uma conexão do pool até o timeout.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 15)
+@EnableConfigurationProperties(LimiteConcorrenciaProperties.class)
+public class LimiteConcorrenciaFilter extends OncePerRequestFilter {
+
+    private final LimiteConcorrenciaProperties properties;
+    private final ObjectMapper objectMapper;
+    private final List<ClasseCompilada> classes;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    public LimiteConcorrenciaFilter(LimiteConcorrenciaProperties properties, ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.classes = properties.getClasses().stream()
+                .map(classe -> new ClasseCompilada(classe, meterRegistry))
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isHabilitado() || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ClasseCompilada classe = encontrarClasse(request);
+        if (classe == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        int emAndamentoNoInicio = classe.limite.emAndamento();
+        if (!classe.limite.adquirir()) {
+            classe.rejeicoes.increment();
+            rejeitar(response, classe);
+            return;
+        }
+
+        Liberacao liberacao = new Liberacao(classe.limite, emAndamentoNoInicio);
+        boolean falhou = true;
+        try {
+            chain.doFilter(request, response);
+            falhou = false;
+        } finally {
+            if (!falhou && request.isAsyncStarted()) {
+                // Respostas assíncronas (streaming) só liberam a vaga ao terminar
+                request.getAsyncContext().addListener(liberacao);
+            } else {
+                liberacao.liberar(falhou || response.getStatus() >= 500);
+            }
+        }
+    }
+
+    private ClasseCompilada encontrarClasse(HttpServletRequest request) {
+        String caminho = request.getRequestURI();
+        String metodo = request.getMethod();
+        for (ClasseCompilada classe : classes) {
+            if ((classe.config.getMetodos().isEmpty() || classe.config.getMetodos().contains(metodo))
+                    && matcher.match(classe.config.getPadrao(), caminho)) {
+                return classe;
+            }
+        }
+        return null;
+    }
+
+    private void rejeitar(HttpServletResponse response, ClasseCompilada classe) throws IOException {
+        // Uma latência de referência já é tempo suficiente para vagas serem liberadas
+        long segundos = Math.max(1, (long) Math.ceil(classe.limite.latenciaReferenciaMs() / 1000));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Serviço sobrecarregado");
+        body.put("message", "O serviço está com alta demanda. Tente novamente em " + segundos + " segundo(s).");
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static final class ClasseCompilada {
+        private final Classe config;
+        private final LimiteAdaptativo limite;
+        private final Counter rejeicoes;
+
+        private ClasseCompilada(Classe config, MeterRegistry registry) {
+            this.config = config;
+            this.limite = new LimiteAdaptativo(config.getLimiteInicial(), config.getLimiteMinimo(),
+                    config.getLimiteMaximo(), config.getTolerancia(), config.getSuavizacao());
+            this.rejeicoes = Counter.builder("concorrencia.rejeicoes")
+                    .description("Requisições recusadas por excesso de concorrência")
+                    .tag("classe", config.getNome())
+                    .register(registry);
+            Gauge.builder("concorrencia.limite", limite, LimiteAdaptativo::limite)
+                    .description("Limite atual de requisições simultâneas")
+                    .tag("classe", config.getNome())
+                    .register(registry);
+            Gauge.builder("concorrencia.em.andamento", limite, LimiteAdaptativo::emAndamento)
+                    .description("Requisições em andamento")
+                    .tag("classe", config.getNome())
+                    .register(registry);
+        }
+    }
+
+    private static final class Liberacao implements AsyncListener {
+        private final LimiteAdaptativo limite;
+        private final int emAndamentoNoInicio;
+        private final long inicio = System.nanoTime();
+        private final AtomicBoolean liberada = new AtomicBoolean();
+
+        private Liberacao(LimiteAdaptativo limite, int emAndamentoNoInicio) {
+            this.limite = limite;
+            this.emAndamentoNoInicio = emAndamentoNoInicio;
+        }
+
+        private void liberar(boolean falhou) {
+            if (liberada.compareAndSet(false, true)) {
+                limite.liberar(System.nanoTime() - inicio, emAndamentoNoInicio, falhou);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            liberar(response != null && response.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            liberar(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package br.gov.sp.centralcidadao.filter;
+
+import br.gov.sp.centralcidadao.config.LimiteRequisicoesProperties;
+import br.gov.sp.centralcidadao.config.LimiteRequisicoesProperties.Rota;
+import br.gov.sp.centralcidadao.config.LimiteRequisicoesProperties.TipoChave;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limita a taxa de requisições por cliente e por grupo de rotas. A aplicação ainda não tem
+ * autenticação: o cliente é o IP, inclusive nas rotas com chave {@code CIDADAO}.
+ * O estado de cada balde é atualizado sem bloqueio; baldes ociosos são descartados
+ * periodicamente ou, em segundo plano, quando o limite de memória é atingido. Enquanto
+ * não há espaço, clientes novos dividem um balde da rota em vez de passarem sem limite.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@EnableConfigurationProperties(LimiteRequisicoesProperties.class)
+public class LimiteRequisicoesFilter extends OncePerRequestFilter {
+
+    private final LimiteRequisicoesProperties properties;
+    private final ObjectMapper objectMapper;
+    private final List<RotaCompilada> rotas;
+    private final ConcurrentHashMap<String, BaldeTokens> baldes = new ConcurrentHashMap<>();
+    private final AtomicBoolean limpezaEmAndamento = new AtomicBoolean();
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final ThreadPoolTaskExecutor limpeza;
+
+    public LimiteRequisicoesFilter(LimiteRequisicoesProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.rotas = properties.getRotas().stream().map(RotaCompilada::new).toList();
+        // Uma thread e nenhuma fila: com a limpeza já em andamento, novos pedidos são descartados
+        this.limpeza = new ThreadPoolTaskExecutor();
+        this.limpeza.setCorePoolSize(1);
+        this.limpeza.setMaxPoolSize(1);
+        this.limpeza.setQueueCapacity(0);
+        this.limpeza.setThreadNamePrefix("limite-requisicoes-");
+        this.limpeza.initialize();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        limpeza.shutdown();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isHabilitado() || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RotaCompilada rota = encontrarRota(request);
+        if (rota == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long agora = System.nanoTime();
+        String chave = rota.config.getNome() + ':' + identificar(request, rota.config.getChave());
+        long espera = obterBalde(chave, rota, agora).consumir(agora);
+
+        if (espera > 0) {
+            rejeitar(response, espera);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    @Scheduled(fixedDelayString = "${limite-requisicoes.limpeza-intervalo-ms:30000}")
+    public void removerBaldesOciosos() {
+        if (!limpezaEmAndamento.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long agora = System.nanoTime();
+            baldes.entrySet().removeIf(e -> e.getValue().isOcioso(agora));
+        } finally {
+            limpezaEmAndamento.set(false);
+        }
+    }
+
+    private BaldeTokens obterBalde(String chave, RotaCompilada rota, long agora) {
+        BaldeTokens balde = baldes.get(chave);
+        if (balde != null) {
+            return balde;
+        }
+        if (baldes.size() >= properties.getMaxBaldes()) {
+            // Sem espaço: limpeza fora da requisição e, até lá, o balde compartilhado da rota
+            agendarLimpeza();
+            return rota.compartilhado;
+        }
+        return baldes.computeIfAbsent(chave,
+                k -> new BaldeTokens(rota.intervaloEmissaoNanos, rota.config.getRajada(), agora));
+    }
+
+    private void agendarLimpeza() {
+        if (limpezaEmAndamento.get()) {
+            return;
+        }
+        try {
+            limpeza.execute(() -> {
+                removerBaldesOciosos();
+                if (baldes.size() >= properties.getMaxBaldes()) {
+                    log.warn("Limite de {} baldes de requisição atingido; clientes novos usam o balde compartilhado",
+                            properties.getMaxBaldes());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Limpeza já em execução
+        }
+    }
+
+    private RotaCompilada encontrarRota(HttpServletRequest request) {
+        String caminho = request.getRequestURI();
+        String metodo = request.getMethod();
+        for (RotaCompilada rota : rotas) {
+            if ((rota.config.getMetodos().isEmpty() || rota.config.getMetodos().contains(metodo))
+                    && matcher.match(rota.config.getPadrao(), caminho)) {
+                return rota;
+            }
+        }
+        return null;
+    }
+
+    // Por cidadão, só com usuário autenticado; sem ele a chave é o IP (ver IdentidadeChamador)
+    private String identificar(HttpServletRequest request, TipoChave tipo) {
+        return tipo == TipoChave.CIDADAO ? IdentidadeChamador.de(request) : request.getRemoteAddr();
+    }
+
+    private void rejeitar(HttpServletResponse response, long esperaNanos) throws IOException {
+        long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(esperaNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", "Muitas requisições");
+        body.put("message", "Limite de requisições excedido. Tente novamente em " + segundos + " segundo(s).");
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static final class RotaCompilada {
+        private final Rota config;
+        private final long intervaloEmissaoNanos;
+        // Usado por todos os clientes sem balde próprio enquanto o mapa está cheio
+        private final BaldeTokens compartilhado;
+
+        private RotaCompilada(Rota config) {
+            this.config = config;
+            this.intervaloEmissaoNanos = TimeUnit.SECONDS.toNanos(config.getPeriodoSegundos()) / Math.max(1, config.getLimite());
+            this.compartilhado = new BaldeTokens(intervaloEmissaoNanos, config.getRajada(), System.nanoTime());
+        }
+    }
+}
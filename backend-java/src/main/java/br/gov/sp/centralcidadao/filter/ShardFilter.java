@@ -0,0 +1,111 @@
+package br.gov.sp.centralcidadao.filter;
+
+import br.gov.sp.centralcidadao.config.ShardContexto;
+import br.gov.sp.centralcidadao.config.ShardsProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Define o shard da requisição a partir do município do cidadão/escola, informado pelo
+ * cliente no header X-Municipio (ou no parâmetro municipio). Municípios fora do mapa vão
+ * para o shard padrão. Sem município, só as listagens gerais são aceitas (e consultam
+ * todos os shards); as demais chamadas da API são recusadas com 400, em vez de cair
+ * no shard padrão e ler ou gravar no banco de outro município.
+ * Roda antes de qualquer filtro que acesse o banco.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@EnableConfigurationProperties(ShardsProperties.class)
+public class ShardFilter extends OncePerRequestFilter {
+
+    public static final String HEADER_MUNICIPIO = "X-Municipio";
+    private static final String PARAMETRO_MUNICIPIO = "municipio";
+    private static final Set<String> LISTAGENS_GERAIS =
+            Set.of("/api/cidadaos", "/api/escolas", "/api/matriculas", "/api/solicitacoes");
+
+    private final ShardsProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Map<String, String> shardPorMunicipio = new HashMap<>();
+
+    public ShardFilter(ShardsProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        properties.getMunicipios().forEach((municipio, shard) ->
+                shardPorMunicipio.put(ShardContexto.normalizarMunicipio(municipio), shard));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Actuator, documentação e gravação JFR não acessam o banco
+        String caminho = caminho(request);
+        return !properties.isHabilitado()
+                || !caminho.startsWith("/api/")
+                || caminho.startsWith("/api/admin/")
+                || HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String municipio = request.getHeader(HEADER_MUNICIPIO);
+        if (municipio == null) {
+            municipio = request.getParameter(PARAMETRO_MUNICIPIO);
+        }
+        if (municipio == null || municipio.isBlank()) {
+            if (isListagemGeral(request)) {
+                chain.doFilter(request, response);
+            } else {
+                rejeitar(response);
+            }
+            return;
+        }
+
+        ShardContexto.definir(shardPorMunicipio.getOrDefault(
+                ShardContexto.normalizarMunicipio(municipio), properties.getPadrao()));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ShardContexto.limpar();
+        }
+    }
+
+    private static boolean isListagemGeral(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) && LISTAGENS_GERAIS.contains(caminho(request));
+    }
+
+    private static String caminho(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private void rejeitar(HttpServletResponse response) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.BAD_REQUEST.value());
+        body.put("error", "Erro na requisição");
+        body.put("message", "Informe o município no header " + HEADER_MUNICIPIO + " ou no parâmetro " + PARAMETRO_MUNICIPIO);
+
+        response.setStatus(HttpStatus.BAD_REQUEST.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,20 @@
+package br.gov.sp.centralcidadao.monitoramento;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("br.gov.sp.centralcidadao.Controlador")
+@Label("Método de controlador")
+@Category({"Central do Cidadão", "HTTP"})
+@StackTrace(false)
+public class EventoControlador extends Event {
+
+    @Label("Controlador")
+    public String controlador;
+
+    @Label("Método")
+    public String metodo;
+}
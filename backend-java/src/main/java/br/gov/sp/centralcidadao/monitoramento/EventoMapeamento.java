@@ -0,0 +1,22 @@
+package br.gov.sp.centralcidadao.monitoramento;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("br.gov.sp.centralcidadao.Mapeamento")
+@Label("Conversão em DTO")
+@Description("Conversão de uma lista de entidades em DTOs, incluindo carregamentos lazy disparados no toDTO")
+@Category({"Central do Cidadão", "Persistência"})
+@StackTrace(false)
+public class EventoMapeamento extends Event {
+
+    @Label("Entidade")
+    public String entidade;
+
+    @Label("Linhas")
+    public int linhas;
+}
@@ -0,0 +1,28 @@
+package br.gov.sp.centralcidadao.monitoramento;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("br.gov.sp.centralcidadao.Repositorio")
+@Label("Chamada de repositório")
+@Category({"Central do Cidadão", "Persistência"})
+@StackTrace(false)
+public class EventoRepositorio extends Event {
+
+    @Label("Repositório")
+    public String repositorio;
+
+    @Label("Método")
+    public String metodo;
+
+    @Label("Entidade")
+    public String entidade;
+
+    @Label("Linhas")
+    @Description("Registros devolvidos (ou alterados, nos UPDATE/DELETE); -1 quando não se aplica")
+    public int linhas;
+}
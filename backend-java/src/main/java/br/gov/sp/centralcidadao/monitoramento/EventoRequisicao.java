@@ -0,0 +1,26 @@
+package br.gov.sp.centralcidadao.monitoramento;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("br.gov.sp.centralcidadao.Requisicao")
+@Label("Requisição HTTP")
+@Description("Requisição inteira, dos filtros à escrita da resposta")
+@Category({"Central do Cidadão", "HTTP"})
+@StackTrace(false)
+public class EventoRequisicao extends Event {
+
+    @Label("Método")
+    public String metodo;
+
+    @Label("Endpoint")
+    @Description("Padrão da rota (/api/cidadaos/{id}) ou a URI quando nenhuma rota atendeu")
+    public String endpoint;
+
+    @Label("Status")
+    public int status;
+}
@@ -0,0 +1,20 @@
+package br.gov.sp.centralcidadao.monitoramento;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("br.gov.sp.centralcidadao.Serializacao")
+@Label("Serialização JSON")
+@Category({"Central do Cidadão", "HTTP"})
+@StackTrace(false)
+public class EventoSerializacao extends Event {
+
+    @Label("Tipo")
+    public String tipo;
+
+    @Label("Itens")
+    public int itens;
+}
@@ -0,0 +1,25 @@
+package br.gov.sp.centralcidadao.monitoramento;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("br.gov.sp.centralcidadao.Servico")
+@Label("Método de serviço")
+@Category({"Central do Cidadão", "Serviços"})
+@StackTrace(false)
+public class EventoServico extends Event {
+
+    @Label("Serviço")
+    public String servico;
+
+    @Label("Método")
+    public String metodo;
+
+    @Label("Itens")
+    @Description("Tamanho da lista devolvida; -1 quando o retorno não é uma coleção")
+    public int itens;
+}
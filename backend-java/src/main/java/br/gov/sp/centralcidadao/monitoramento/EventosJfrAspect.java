@@ -0,0 +1,120 @@
+package br.gov.sp.centralcidadao.monitoramento;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Eventos JFR em volta dos métodos de controladores, serviços e repositórios.
+ * Sem gravação ativa o evento não está habilitado e só a checagem isEnabled() é feita;
+ * os campos (nomes, contagens) são preenchidos apenas quando o evento vai ser gravado.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "jfr.eventos.habilitado", havingValue = "true", matchIfMissing = true)
+public class EventosJfrAspect {
+
+    private final Map<Class<?>, String[]> repositorios = new ConcurrentHashMap<>();
+
+    @Around("within(br.gov.sp.centralcidadao.controller..*) " +
+            "&& @within(org.springframework.web.bind.annotation.RestController)")
+    public Object controlador(ProceedingJoinPoint ponto) throws Throwable {
+        EventoControlador evento = new EventoControlador();
+        if (!evento.isEnabled()) {
+            return ponto.proceed();
+        }
+        evento.begin();
+        try {
+            return ponto.proceed();
+        } finally {
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.controlador = ClassUtils.getUserClass(ponto.getTarget()).getSimpleName();
+                evento.metodo = ponto.getSignature().getName();
+                evento.commit();
+            }
+        }
+    }
+
+    @Around("within(br.gov.sp.centralcidadao.service..*) && @within(org.springframework.stereotype.Service)")
+    public Object servico(ProceedingJoinPoint ponto) throws Throwable {
+        EventoServico evento = new EventoServico();
+        if (!evento.isEnabled()) {
+            return ponto.proceed();
+        }
+        evento.begin();
+        Object resultado = null;
+        try {
+            resultado = ponto.proceed();
+            return resultado;
+        } finally {
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.servico = ClassUtils.getUserClass(ponto.getTarget()).getSimpleName();
+                evento.metodo = ponto.getSignature().getName();
+                evento.itens = resultado instanceof Collection<?> colecao ? colecao.size() : -1;
+                evento.commit();
+            }
+        }
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object repositorio(ProceedingJoinPoint ponto) throws Throwable {
+        EventoRepositorio evento = new EventoRepositorio();
+        if (!evento.isEnabled()) {
+            return ponto.proceed();
+        }
+        evento.begin();
+        Object resultado = null;
+        try {
+            resultado = ponto.proceed();
+            return resultado;
+        } finally {
+            evento.end();
+            if (evento.shouldCommit()) {
+                String[] nomes = repositorios.computeIfAbsent(ponto.getThis().getClass(), EventosJfrAspect::nomesRepositorio);
+                evento.repositorio = nomes[0];
+                evento.entidade = nomes[1];
+                evento.metodo = ponto.getSignature().getName();
+                evento.linhas = linhas(resultado);
+                evento.commit();
+            }
+        }
+    }
+
+    private static int linhas(Object resultado) {
+        if (resultado instanceof Collection<?> colecao) {
+            return colecao.size();
+        }
+        if (resultado instanceof Optional<?> opcional) {
+            return opcional.isPresent() ? 1 : 0;
+        }
+        // Retorno inteiro dos @Modifying: linhas alteradas
+        if (resultado instanceof Integer alteradas) {
+            return alteradas;
+        }
+        return resultado == null ? 0 : -1;
+    }
+
+    // Interface do repositório (e não a classe do proxy) e a entidade declarada nela
+    private static String[] nomesRepositorio(Class<?> proxy) {
+        for (Class<?> interfaceProxy : proxy.getInterfaces()) {
+            if (Repository.class.isAssignableFrom(interfaceProxy) && interfaceProxy != Repository.class) {
+                Class<?> entidade = ResolvableType.forClass(interfaceProxy).as(Repository.class).getGeneric(0).resolve();
+                return new String[] { interfaceProxy.getSimpleName(), entidade != null ? entidade.getSimpleName() : "?" };
+            }
+        }
+        return new String[] { AopProxyUtils.ultimateTargetClass(proxy).getSimpleName(), "?" };
+    }
+}
@@ -0,0 +1,50 @@
+package br.gov.sp.centralcidadao.monitoramento;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Conversão de entidades em DTOs medida com um evento JFR. Usado no lugar de
+ * map(this::toDTO).collect(toList()) nas listagens, onde o acesso a associações lazy
+ * no toDTO vira uma consulta por linha sem aparecer como chamada de repositório.
+ */
+public final class MapeamentoDTO {
+
+    private MapeamentoDTO() {
+    }
+
+    public static <E, D> Collector<E, ?, List<D>> converter(Class<?> entidade, Function<? super E, ? extends D> conversor) {
+        return Collector.<E, Conversao<D>, List<D>>of(
+                () -> new Conversao<>(entidade),
+                (conversao, item) -> conversao.dtos.add(conversor.apply(item)),
+                (a, b) -> {
+                    a.dtos.addAll(b.dtos);
+                    return a;
+                },
+                Conversao::concluir);
+    }
+
+    private static final class Conversao<D> {
+
+        private final Class<?> entidade;
+        private final List<D> dtos = new ArrayList<>();
+        private final EventoMapeamento evento = new EventoMapeamento();
+
+        private Conversao(Class<?> entidade) {
+            this.entidade = entidade;
+            evento.begin();
+        }
+
+        private List<D> concluir() {
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.entidade = entidade.getSimpleName();
+                evento.linhas = dtos.size();
+                evento.commit();
+            }
+            return dtos;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package br.gov.sp.centralcidadao.monitoramento;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * Conversor JSON padrão do Spring MVC com um evento JFR em volta da escrita da resposta.
+ * Como bean, substitui o conversor criado pela autoconfiguração do Jackson.
+ */
+@Component
+public class SerializacaoJsonMonitorada extends MappingJackson2HttpMessageConverter {
+
+    public SerializacaoJsonMonitorada(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        EventoSerializacao evento = new EventoSerializacao();
+        if (!evento.isEnabled()) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        evento.begin();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.tipo = type != null ? type.getTypeName() : object.getClass().getName();
+                evento.itens = object instanceof Collection<?> colecao ? colecao.size() : -1;
+                evento.commit();
+            }
+        }
+    }
+}
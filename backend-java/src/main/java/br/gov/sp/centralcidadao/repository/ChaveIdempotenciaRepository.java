@@ -0,0 +1,37 @@
+package br.gov.sp.centralcidadao.repository;
+
+import br.gov.sp.centralcidadao.domain.ChaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ChaveIdempotenciaRepository extends JpaRepository<ChaveIdempotencia, String> {
+
+    // INSERT explícito: save() faria merge e sobrescreveria a reserva de outra instância
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO chaves_idempotencia (chave, hash_requisicao, data_criacao, data_expiracao) " +
+            "VALUES (:chave, :hashRequisicao, :dataCriacao, :dataExpiracao)", nativeQuery = true)
+    void reservar(String chave, String hashRequisicao, LocalDateTime dataCriacao, LocalDateTime dataExpiracao);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ChaveIdempotencia c SET c.statusHttp = :statusHttp, c.contentType = :contentType, " +
+            "c.corpo = :corpo WHERE c.chave = :chave")
+    void concluir(String chave, Integer statusHttp, String contentType, String corpo);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.chave = :chave")
+    void liberar(String chave);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.dataExpiracao < :agora")
+    int removerExpiradas(LocalDateTime agora);
+}
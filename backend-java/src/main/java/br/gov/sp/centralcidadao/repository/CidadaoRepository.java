@@ -2,9 +2,13 @@ package br.gov.sp.centralcidadao.repository;
 
 import br.gov.sp.centralcidadao.domain.Cidadao;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CidadaoRepository extends JpaRepository<Cidadao, Long> {
@@ -16,4 +20,15 @@ public interface CidadaoRepository extends JpaRepository<Cidadao, Long> {
     boolean existsByCpf(String cpf);
     
     boolean existsByEmail(String email);
+
+    @Query("SELECT c.resumoDiario FROM Cidadao c WHERE c.id = :id")
+    Boolean findResumoDiarioById(Long id);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT c.cpf, c.email FROM Cidadao c")
+    Stream<Object[]> streamCpfEmail();
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT c.id, c.nome, c.bairro, c.dataCadastro FROM Cidadao c")
+    Stream<Object[]> streamParaBusca();
 }
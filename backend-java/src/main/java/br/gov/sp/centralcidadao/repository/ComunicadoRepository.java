@@ -0,0 +1,34 @@
+package br.gov.sp.centralcidadao.repository;
+
+import br.gov.sp.centralcidadao.domain.Comunicado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ComunicadoRepository extends JpaRepository<Comunicado, Long> {
+
+    String VISIVEIS = "FROM Comunicado c WHERE (c.bairro IS NULL OR c.bairro = " +
+            "(SELECT ci.bairro FROM Cidadao ci WHERE ci.id = :cidadaoId)) " +
+            "AND (c.dataExpiracao IS NULL OR c.dataExpiracao > :agora) AND c.id > :aPartirDe";
+
+    // Comunicados em vigor para o público do cidadão (todos ou o bairro dele), com id acima do informado
+    @Query("SELECT c " + VISIVEIS + " ORDER BY c.id DESC")
+    List<Comunicado> findVisiveis(Long cidadaoId, LocalDateTime agora, long aPartirDe);
+
+    @Query("SELECT c " + VISIVEIS + " AND c.dataSincronizacao > :desde AND c.dataSincronizacao <= :ate")
+    List<Comunicado> findVisiveisAlterados(Long cidadaoId, LocalDateTime agora, long aPartirDe,
+                                           LocalDateTime desde, LocalDateTime ate);
+
+    @Query("SELECT COUNT(c) " + VISIVEIS)
+    long countVisiveis(Long cidadaoId, LocalDateTime agora, long aPartirDe);
+
+    @Query("SELECT c FROM Comunicado c WHERE c.dataExpiracao IS NULL OR c.dataExpiracao > :agora ORDER BY c.id DESC")
+    List<Comunicado> findEmVigor(LocalDateTime agora);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM Comunicado c")
+    long findUltimoId();
+}
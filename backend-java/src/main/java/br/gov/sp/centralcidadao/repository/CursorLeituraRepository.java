@@ -0,0 +1,20 @@
+package br.gov.sp.centralcidadao.repository;
+
+import br.gov.sp.centralcidadao.domain.CursorLeitura;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CursorLeituraRepository extends JpaRepository<CursorLeitura, Long> {
+
+    // Upsert de uma linha: os cursores só avançam, então leituras concorrentes não os fazem recuar
+    @Modifying
+    @Query(value = "INSERT INTO cursores_leitura (cidadao_id, ultimo_comunicado_id, ultima_notificacao_id) " +
+            "VALUES (:cidadaoId, :comunicadoId, :notificacaoId) ON DUPLICATE KEY UPDATE " +
+            "ultimo_comunicado_id = GREATEST(ultimo_comunicado_id, VALUES(ultimo_comunicado_id)), " +
+            "ultima_notificacao_id = GREATEST(ultima_notificacao_id, VALUES(ultima_notificacao_id))",
+            nativeQuery = true)
+    void avancar(Long cidadaoId, long comunicadoId, long notificacaoId);
+}
@@ -3,6 +3,7 @@ package br.gov.sp.centralcidadao.repository;
 import br.gov.sp.centralcidadao.domain.Escola;
 import br.gov.sp.centralcidadao.domain.NivelEnsino;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -13,6 +14,8 @@ public interface EscolaRepository extends JpaRepository<Escola, Long> {
     
     List<Escola> findByAtivoTrue();
     
+    List<Escola> findByAtivoTrueOrderByIdAsc();
+    
     List<Escola> findByNivelEnsino(NivelEnsino nivelEnsino);
     
     List<Escola> findByBairroContainingIgnoreCase(String bairro);
@@ -26,4 +29,18 @@ public interface EscolaRepository extends JpaRepository<Escola, Long> {
     List<Escola> findEscolasComVagasDisponiveisByNivel(NivelEnsino nivel);
     
     List<Escola> findByNomeContainingIgnoreCase(String nome);
+
+    // Incremento/decremento no próprio banco: aprovações simultâneas não sobrescrevem a contagem
+    @Modifying
+    @Query("UPDATE Escola e SET e.vagasOcupadas = e.vagasOcupadas + 1 WHERE e.id = :id")
+    int ocuparVaga(Long id);
+
+    @Modifying
+    @Query("UPDATE Escola e SET e.vagasOcupadas = e.vagasOcupadas - 1 WHERE e.id = :id AND e.vagasOcupadas > 0")
+    int liberarVaga(Long id);
+
+    // Só grava se o novo total ainda comportar as vagas ocupadas no momento do UPDATE
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Escola e SET e.vagasTotais = :vagasTotais WHERE e.id = :id AND e.vagasOcupadas <= :vagasTotais")
+    int alterarVagasTotais(Long id, Integer vagasTotais);
 }
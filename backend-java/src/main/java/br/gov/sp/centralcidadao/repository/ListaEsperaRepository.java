@@ -0,0 +1,33 @@
+package br.gov.sp.centralcidadao.repository;
+
+import br.gov.sp.centralcidadao.domain.ListaEspera;
+import br.gov.sp.centralcidadao.domain.NivelEnsino;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ListaEsperaRepository extends JpaRepository<ListaEspera, Long> {
+
+    // Atendida pelo índice (escola_id, nivel_ensino, prioridade, id)
+    Optional<ListaEspera> findFirstByEscolaIdAndNivelEnsinoOrderByPrioridadeDescIdAsc(Long escolaId, NivelEnsino nivelEnsino);
+
+    boolean existsByEscolaIdAndNivelEnsino(Long escolaId, NivelEnsino nivelEnsino);
+
+    // Níveis com fila formada na escola, lidos pelo prefixo do mesmo índice
+    @Query("SELECT DISTINCT l.nivelEnsino FROM ListaEspera l WHERE l.escola.id = :escolaId")
+    List<NivelEnsino> findNiveisComFila(Long escolaId);
+
+    // Retorna 0 quando outra transação já promoveu a mesma entrada
+    @Modifying
+    @Query("DELETE FROM ListaEspera l WHERE l.id = :id")
+    int remover(Long id);
+
+    @Modifying
+    @Query("DELETE FROM ListaEspera l WHERE l.matricula.id = :matriculaId")
+    int removerPorMatricula(Long matriculaId);
+}
@@ -3,8 +3,12 @@ package br.gov.sp.centralcidadao.repository;
 import br.gov.sp.centralcidadao.domain.Matricula;
 import br.gov.sp.centralcidadao.domain.StatusMatricula;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,10 +17,17 @@ public interface MatriculaRepository extends JpaRepository<Matricula, Long> {
     
     Optional<Matricula> findByProtocolo(String protocolo);
     
+    // Listagens convertidas em DTO: cidadão e escola na mesma consulta, sem um SELECT por linha
+    @Query("SELECT m FROM Matricula m JOIN FETCH m.cidadao JOIN FETCH m.escola ORDER BY m.dataSolicitacao ASC, m.id ASC")
+    List<Matricula> findAllByOrderByDataSolicitacaoAscIdAsc();
+    
     List<Matricula> findByCidadaoId(Long cidadaoId);
     
+    @Query("SELECT m FROM Matricula m JOIN FETCH m.cidadao JOIN FETCH m.escola WHERE m.cidadao.id = :cidadaoId " +
+           "ORDER BY m.dataSolicitacao DESC")
     List<Matricula> findByCidadaoIdOrderByDataSolicitacaoDesc(Long cidadaoId);
     
+    @Query("SELECT m FROM Matricula m JOIN FETCH m.cidadao JOIN FETCH m.escola WHERE m.status = :status")
     List<Matricula> findByStatus(StatusMatricula status);
     
     List<Matricula> findByCidadaoIdAndStatus(Long cidadaoId, StatusMatricula status);
@@ -24,4 +35,27 @@ public interface MatriculaRepository extends JpaRepository<Matricula, Long> {
     List<Matricula> findByEscolaId(Long escolaId);
     
     boolean existsByProtocolo(String protocolo);
+
+    long countByEscolaIdAndPromovidaListaEsperaTrueAndStatusIn(Long escolaId, Collection<StatusMatricula> status);
+
+    // Busca em lote: cidadão e escola na mesma consulta, para o toDTO não disparar outras
+    @Query("SELECT m FROM Matricula m JOIN FETCH m.cidadao JOIN FETCH m.escola WHERE m.id IN :ids")
+    List<Matricula> findComRelacionamentosByIdIn(Collection<Long> ids);
+
+    @Query("SELECT m FROM Matricula m JOIN FETCH m.cidadao JOIN FETCH m.escola WHERE m.protocolo IN :protocolos")
+    List<Matricula> findComRelacionamentosByProtocoloIn(Collection<String> protocolos);
+
+    @Query("SELECT m FROM Matricula m JOIN FETCH m.cidadao JOIN FETCH m.escola WHERE m.id = :id")
+    Optional<Matricula> findComRelacionamentosById(Long id);
+
+    // Alteradas no intervalo (desde, ate] da sincronização, pelo índice (cidadao_id, data_sincronizacao)
+    @Query("SELECT m FROM Matricula m JOIN FETCH m.cidadao JOIN FETCH m.escola WHERE m.cidadao.id = :cidadaoId " +
+           "AND m.dataSincronizacao > :desde AND m.dataSincronizacao <= :ate")
+    List<Matricula> findAlteradas(Long cidadaoId, LocalDateTime desde, LocalDateTime ate);
+
+    // Compare-and-set: só altera se o status ainda for o lido; 0 indica alteração concorrente
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Matricula m SET m.status = :novo, m.versao = m.versao + 1, m.dataAtualizacao = :agora " +
+           "WHERE m.id = :id AND m.status = :anterior")
+    int alterarStatus(Long id, StatusMatricula anterior, StatusMatricula novo, LocalDateTime agora);
 }
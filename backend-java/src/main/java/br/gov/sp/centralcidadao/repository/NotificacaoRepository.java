@@ -1,23 +1,40 @@
 package br.gov.sp.centralcidadao.repository;
 
 import br.gov.sp.centralcidadao.domain.Notificacao;
+import br.gov.sp.centralcidadao.domain.TipoNotificacao;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface NotificacaoRepository extends JpaRepository<Notificacao, Long> {
     
     List<Notificacao> findByCidadaoIdOrderByDataCriacaoDesc(Long cidadaoId);
-    
-    List<Notificacao> findByCidadaoIdAndLidaFalseOrderByDataCriacaoDesc(Long cidadaoId);
-    
-    long countByCidadaoIdAndLidaFalse(Long cidadaoId);
-    
+
+    // Não lidas: acima do cursor do cidadão (faixa no índice cidadao_id, id) e sem marcação individual
+    @Query("SELECT n FROM Notificacao n WHERE n.cidadao.id = :cidadaoId AND n.id > :ultimaLida AND n.lida = false " +
+            "ORDER BY n.dataCriacao DESC")
+    List<Notificacao> findNaoLidas(Long cidadaoId, long ultimaLida);
+
+    @Query("SELECT COUNT(n) FROM Notificacao n WHERE n.cidadao.id = :cidadaoId AND n.id > :ultimaLida AND n.lida = false")
+    long countNaoLidas(Long cidadaoId, long ultimaLida);
+
+    @Query("SELECT COALESCE(MAX(n.id), 0) FROM Notificacao n WHERE n.cidadao.id = :cidadaoId")
+    long findUltimoId(Long cidadaoId);
+
+    @Query("SELECT n FROM Notificacao n WHERE n.cidadao.id = :cidadaoId " +
+            "AND n.dataSincronizacao > :desde AND n.dataSincronizacao <= :ate")
+    List<Notificacao> findAlteradas(Long cidadaoId, LocalDateTime desde, LocalDateTime ate);
+
+    // Reaproveita a notificação não lida do mesmo protocolo criada dentro da janela de agrupamento
     @Modifying
-    @Query("UPDATE Notificacao n SET n.lida = true WHERE n.cidadao.id = :cidadaoId")
-    void marcarTodasComoLidas(Long cidadaoId);
+    @Query("UPDATE Notificacao n SET n.titulo = :titulo, n.mensagem = :mensagem, n.tipo = :tipo, n.dataCriacao = :agora " +
+            "WHERE n.cidadao.id = :cidadaoId AND n.protocolo = :protocolo AND n.lida = false AND n.dataCriacao >= :desde " +
+            "AND n.id > COALESCE((SELECT l.ultimaNotificacaoId FROM CursorLeitura l WHERE l.cidadaoId = :cidadaoId), 0)")
+    int agrupar(Long cidadaoId, String protocolo, String titulo, String mensagem, TipoNotificacao tipo,
+                LocalDateTime agora, LocalDateTime desde);
 }
@@ -0,0 +1,28 @@
+package br.gov.sp.centralcidadao.repository;
+
+import br.gov.sp.centralcidadao.domain.RemocaoSincronizacao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RemocaoSincronizacaoRepository extends JpaRepository<RemocaoSincronizacao, Long> {
+
+    @Query("SELECT r FROM RemocaoSincronizacao r WHERE r.cidadaoId = :cidadaoId " +
+            "AND r.dataRemocao > :desde AND r.dataRemocao <= :ate")
+    List<RemocaoSincronizacao> findRegistradas(Long cidadaoId, LocalDateTime desde, LocalDateTime ate);
+
+    // Relógio do banco, o mesmo que preenche data_sincronizacao e data_remocao
+    @Query(value = "SELECT NOW(6)", nativeQuery = true)
+    LocalDateTime agora();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RemocaoSincronizacao r WHERE r.dataRemocao < :limite")
+    int removerAnteriores(LocalDateTime limite);
+}
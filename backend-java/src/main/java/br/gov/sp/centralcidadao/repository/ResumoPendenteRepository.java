@@ -0,0 +1,25 @@
+package br.gov.sp.centralcidadao.repository;
+
+import br.gov.sp.centralcidadao.domain.ResumoPendente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ResumoPendenteRepository extends JpaRepository<ResumoPendente, Long> {
+
+    // Mantém apenas a última atualização de cada protocolo até o envio do resumo
+    @Modifying
+    @Query("UPDATE ResumoPendente r SET r.mensagem = :mensagem, r.dataAtualizacao = :agora " +
+            "WHERE r.cidadao.id = :cidadaoId AND r.protocolo = :protocolo")
+    int atualizar(Long cidadaoId, String protocolo, String mensagem, LocalDateTime agora);
+
+    @Query("SELECT DISTINCT r.cidadao.id FROM ResumoPendente r")
+    List<Long> findCidadaosComPendencias();
+
+    List<ResumoPendente> findByCidadaoIdOrderByDataAtualizacaoAsc(Long cidadaoId);
+}
@@ -0,0 +1,22 @@
+package br.gov.sp.centralcidadao.repository;
+
+import br.gov.sp.centralcidadao.domain.SolicitacaoServicoArquivada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SolicitacaoServicoArquivadaRepository extends JpaRepository<SolicitacaoServicoArquivada, Long> {
+
+    Optional<SolicitacaoServicoArquivada> findByProtocolo(String protocolo);
+
+    @Query("SELECT s FROM SolicitacaoServicoArquivada s JOIN FETCH s.cidadao WHERE s.id IN :ids")
+    List<SolicitacaoServicoArquivada> findComCidadaoByIdIn(Collection<Long> ids);
+
+    @Query("SELECT s FROM SolicitacaoServicoArquivada s JOIN FETCH s.cidadao WHERE s.protocolo IN :protocolos")
+    List<SolicitacaoServicoArquivada> findComCidadaoByProtocoloIn(Collection<String> protocolos);
+}
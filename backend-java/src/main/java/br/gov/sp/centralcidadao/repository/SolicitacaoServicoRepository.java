@@ -4,8 +4,12 @@ import br.gov.sp.centralcidadao.domain.SolicitacaoServico;
 import br.gov.sp.centralcidadao.domain.StatusSolicitacao;
 import br.gov.sp.centralcidadao.domain.TipoServico;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,12 +18,20 @@ public interface SolicitacaoServicoRepository extends JpaRepository<SolicitacaoS
     
     Optional<SolicitacaoServico> findByProtocolo(String protocolo);
     
+    // Listagens convertidas em DTO: cidadão na mesma consulta, sem um SELECT por linha
+    @Query("SELECT s FROM SolicitacaoServico s JOIN FETCH s.cidadao ORDER BY s.dataSolicitacao ASC, s.id ASC")
+    List<SolicitacaoServico> findAllByOrderByDataSolicitacaoAscIdAsc();
+    
     List<SolicitacaoServico> findByCidadaoId(Long cidadaoId);
     
+    @Query("SELECT s FROM SolicitacaoServico s JOIN FETCH s.cidadao WHERE s.cidadao.id = :cidadaoId " +
+           "ORDER BY s.dataSolicitacao DESC")
     List<SolicitacaoServico> findByCidadaoIdOrderByDataSolicitacaoDesc(Long cidadaoId);
     
+    @Query("SELECT s FROM SolicitacaoServico s JOIN FETCH s.cidadao WHERE s.tipoServico = :tipoServico")
     List<SolicitacaoServico> findByTipoServico(TipoServico tipoServico);
     
+    @Query("SELECT s FROM SolicitacaoServico s JOIN FETCH s.cidadao WHERE s.status = :status")
     List<SolicitacaoServico> findByStatus(StatusSolicitacao status);
     
     List<SolicitacaoServico> findByCidadaoIdAndStatus(Long cidadaoId, StatusSolicitacao status);
@@ -27,4 +39,33 @@ public interface SolicitacaoServicoRepository extends JpaRepository<SolicitacaoS
     List<SolicitacaoServico> findByBairroContainingIgnoreCase(String bairro);
     
     boolean existsByProtocolo(String protocolo);
+
+    @Query("SELECT s FROM SolicitacaoServico s JOIN FETCH s.cidadao WHERE s.solicitacaoPrincipal.id = :solicitacaoPrincipalId")
+    List<SolicitacaoServico> findBySolicitacaoPrincipalId(Long solicitacaoPrincipalId);
+
+    List<SolicitacaoServico> findByStatusInAndSolicitacaoPrincipalIsNullAndDataSolicitacaoAfter(
+            Collection<StatusSolicitacao> status, LocalDateTime dataSolicitacao);
+
+    // Busca em lote: cidadão na mesma consulta, para o toDTO não disparar outras
+    @Query("SELECT s FROM SolicitacaoServico s JOIN FETCH s.cidadao WHERE s.id IN :ids")
+    List<SolicitacaoServico> findComCidadaoByIdIn(Collection<Long> ids);
+
+    @Query("SELECT s FROM SolicitacaoServico s JOIN FETCH s.cidadao WHERE s.protocolo IN :protocolos")
+    List<SolicitacaoServico> findComCidadaoByProtocoloIn(Collection<String> protocolos);
+
+    @Query("SELECT s FROM SolicitacaoServico s JOIN FETCH s.cidadao WHERE s.id = :id")
+    Optional<SolicitacaoServico> findComCidadaoById(Long id);
+
+    // Alteradas no intervalo (desde, ate] da sincronização, pelo índice (cidadao_id, data_sincronizacao)
+    @Query("SELECT s FROM SolicitacaoServico s JOIN FETCH s.cidadao WHERE s.cidadao.id = :cidadaoId " +
+           "AND s.dataSincronizacao > :desde AND s.dataSincronizacao <= :ate")
+    List<SolicitacaoServico> findAlteradas(Long cidadaoId, LocalDateTime desde, LocalDateTime ate);
+
+    // Compare-and-set: só altera se o status ainda for o lido; 0 indica alteração concorrente
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE SolicitacaoServico s SET s.status = :novo, s.versao = s.versao + 1, " +
+           "s.dataConclusao = :dataConclusao, s.dataAtualizacao = :agora " +
+           "WHERE s.id = :id AND s.status = :anterior")
+    int alterarStatus(Long id, StatusSolicitacao anterior, StatusSolicitacao novo,
+                      LocalDateTime dataConclusao, LocalDateTime agora);
 }
@@ -0,0 +1,241 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.exception.RecursoNaoEncontradoException;
+import br.gov.sp.centralcidadao.exception.RegraNegocioException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Fotos das solicitações em disco local, em {diretorio}/{solicitacaoId}/{nome}.
+ * O multipart chega já gravado em arquivo temporário e só é movido para o destino,
+ * sem passar a foto inteira pela memória. Os nomes são aleatórios e nunca reutilizados,
+ * o que permite cache longo nos clientes. As miniaturas são geradas em um pool próprio,
+ * fora da thread da requisição.
+ */
+@Slf4j
+@Component
+public class ArmazenamentoFotos {
+
+    private static final String SUFIXO_MINIATURA = "-miniatura.jpg";
+    private static final Pattern NOME_VALIDO = Pattern.compile("[0-9a-f]{32}\\.(jpg|png)");
+
+    private final Path diretorio;
+    private final int ladoMiniatura;
+    private final ThreadPoolTaskExecutor executor;
+    private final Set<Path> miniaturasPendentes = ConcurrentHashMap.newKeySet();
+
+    public ArmazenamentoFotos(@Value("${fotos.diretorio:dados/fotos}") String diretorio,
+                              @Value("${fotos.miniatura.lado:320}") int ladoMiniatura,
+                              @Value("${fotos.miniatura.threads:2}") int threads,
+                              @Value("${fotos.miniatura.fila:100}") int fila) {
+        this.diretorio = Paths.get(diretorio).toAbsolutePath().normalize();
+        this.ladoMiniatura = ladoMiniatura;
+        try {
+            Files.createDirectories(this.diretorio);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível criar o diretório de fotos " + this.diretorio, e);
+        }
+        // Pool próprio (e não um bean Executor, que substituiria o executor padrão do Spring)
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(threads);
+        this.executor.setMaxPoolSize(threads);
+        this.executor.setQueueCapacity(fila);
+        this.executor.setThreadNamePrefix("miniatura-");
+        this.executor.initialize();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    public static String url(Long solicitacaoId, String nome) {
+        return "/api/solicitacoes/" + solicitacaoId + "/fotos/" + nome;
+    }
+
+    // Nome do arquivo quando a URL aponta para uma foto deste armazenamento; null para URLs externas
+    public String nomeDaUrl(Long solicitacaoId, String url) {
+        String prefixo = url(solicitacaoId, "");
+        if (url == null || !url.startsWith(prefixo)) {
+            return null;
+        }
+        String nome = url.substring(prefixo.length());
+        return NOME_VALIDO.matcher(nome).matches() ? nome : null;
+    }
+
+    /**
+     * Move o upload para o diretório da solicitação e devolve o nome gerado.
+     * Só JPEG e PNG são aceitos, identificados pelos primeiros bytes do arquivo.
+     */
+    public String gravar(Long solicitacaoId, MultipartFile arquivo) {
+        if (arquivo.isEmpty()) {
+            throw new RegraNegocioException("Arquivo de foto vazio");
+        }
+        String nome = UUID.randomUUID().toString().replace("-", "") + "." + extensao(arquivo);
+        Path destino = diretorio.resolve(solicitacaoId.toString()).resolve(nome);
+        try {
+            Files.createDirectories(destino.getParent());
+            // Com File (e não Path) o Tomcat apenas renomeia o temporário quando está no mesmo disco
+            arquivo.transferTo(destino.toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar foto da solicitação " + solicitacaoId, e);
+        }
+        return nome;
+    }
+
+    public Path original(Long solicitacaoId, String nome) {
+        if (!NOME_VALIDO.matcher(nome).matches()) {
+            throw new RecursoNaoEncontradoException("Foto não encontrada", nome);
+        }
+        Path arquivo = diretorio.resolve(solicitacaoId.toString()).resolve(nome);
+        if (!Files.isRegularFile(arquivo)) {
+            throw new RecursoNaoEncontradoException("Foto não encontrada", nome);
+        }
+        return arquivo;
+    }
+
+    // Vazio enquanto a miniatura não foi gerada; nesse caso a geração é (re)agendada
+    public Optional<Path> miniatura(Long solicitacaoId, String nome) {
+        Path original = original(solicitacaoId, nome);
+        Path miniatura = caminhoMiniatura(original);
+        if (Files.isRegularFile(miniatura)) {
+            return Optional.of(miniatura);
+        }
+        agendarMiniatura(original);
+        return Optional.empty();
+    }
+
+    public void gerarMiniatura(Long solicitacaoId, String nome) {
+        agendarMiniatura(diretorio.resolve(solicitacaoId.toString()).resolve(nome));
+    }
+
+    public void remover(Long solicitacaoId, String nome) {
+        Path original = diretorio.resolve(solicitacaoId.toString()).resolve(nome);
+        try {
+            Files.deleteIfExists(original);
+            Files.deleteIfExists(caminhoMiniatura(original));
+        } catch (IOException e) {
+            log.warn("Falha ao remover foto {}: {}", original, e.getMessage());
+        }
+    }
+
+    public static String contentType(String nome) {
+        return nome.endsWith(".png") ? "image/png" : "image/jpeg";
+    }
+
+    private void agendarMiniatura(Path original) {
+        if (!miniaturasPendentes.add(original)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    criarMiniatura(original, caminhoMiniatura(original));
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Falha ao gerar miniatura de {}: {}", original, e.getMessage());
+                } finally {
+                    miniaturasPendentes.remove(original);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Fila cheia: a miniatura é reagendada no próximo acesso
+            miniaturasPendentes.remove(original);
+        }
+    }
+
+    private void criarMiniatura(Path original, Path destino) throws IOException {
+        BufferedImage imagem;
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> leitores = ImageIO.getImageReaders(entrada);
+            if (!leitores.hasNext()) {
+                throw new IOException("formato de imagem não reconhecido");
+            }
+            ImageReader leitor = leitores.next();
+            try {
+                leitor.setInput(entrada, true, true);
+                // Subamostragem na decodificação: a foto não é carregada em resolução total
+                int maiorLado = Math.max(leitor.getWidth(0), leitor.getHeight(0));
+                int passo = Math.max(1, maiorLado / (2 * ladoMiniatura));
+                ImageReadParam parametros = leitor.getDefaultReadParam();
+                parametros.setSourceSubsampling(passo, passo, 0, 0);
+                imagem = leitor.read(0, parametros);
+            } finally {
+                leitor.dispose();
+            }
+        }
+
+        double escala = Math.min(1.0, (double) ladoMiniatura / Math.max(imagem.getWidth(), imagem.getHeight()));
+        int largura = Math.max(1, (int) Math.round(imagem.getWidth() * escala));
+        int altura = Math.max(1, (int) Math.round(imagem.getHeight() * escala));
+        BufferedImage miniatura = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        Graphics2D grafico = miniatura.createGraphics();
+        try {
+            grafico.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            // Fundo branco para PNGs com transparência
+            grafico.drawImage(imagem, 0, 0, largura, altura, Color.WHITE, null);
+        } finally {
+            grafico.dispose();
+        }
+
+        // Grava em arquivo temporário e renomeia: quem lê nunca vê uma miniatura incompleta
+        Path temporario = Files.createTempFile(destino.getParent(), "miniatura-", ".tmp");
+        try {
+            if (!ImageIO.write(miniatura, "jpg", temporario.toFile())) {
+                throw new IOException("sem codificador JPEG disponível");
+            }
+            Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    private static Path caminhoMiniatura(Path original) {
+        String nome = original.getFileName().toString();
+        return original.resolveSibling(nome.substring(0, nome.lastIndexOf('.')) + SUFIXO_MINIATURA);
+    }
+
+    private static String extensao(MultipartFile arquivo) {
+        byte[] cabecalho = new byte[8];
+        int lidos;
+        try (InputStream entrada = arquivo.getInputStream()) {
+            lidos = entrada.readNBytes(cabecalho, 0, cabecalho.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler foto enviada", e);
+        }
+        if (lidos >= 3 && (cabecalho[0] & 0xFF) == 0xFF && (cabecalho[1] & 0xFF) == 0xD8 && (cabecalho[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (lidos == 8 && (cabecalho[0] & 0xFF) == 0x89 && cabecalho[1] == 'P' && cabecalho[2] == 'N' && cabecalho[3] == 'G'
+                && cabecalho[4] == '\r' && cabecalho[5] == '\n' && (cabecalho[6] & 0xFF) == 0x1A && cabecalho[7] == '\n') {
+            return "png";
+        }
+        throw new RegraNegocioException("Formato de foto não suportado; envie JPEG ou PNG");
+    }
+}
@@ -0,0 +1,177 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.domain.EntidadeSincronizacao;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Move solicitações encerradas e notificações lidas antigas para as tabelas de arquivo.
+ * Cada lote é copiado e removido em uma transação curta, limitando o tempo de bloqueio
+ * das tabelas consultadas pelos cidadãos. As remoções ficam registradas para a
+ * sincronização incremental do aplicativo.
+ */
+@Slf4j
+@Service
+public class ArquivamentoService {
+
+    private static final String COLUNAS_SOLICITACAO = "id, protocolo, cidadao_id, tipo_servico, descricao, endereco, " +
+            "bairro, ponto_referencia, latitude, longitude, foto_url, status, prioridade, solicitacao_principal_id, " +
+            "data_solicitacao, data_atualizacao, data_conclusao";
+
+    private static final String COLUNAS_NOTIFICACAO = "id, cidadao_id, titulo, mensagem, tipo, protocolo, lida, data_criacao";
+
+    // Tudo o que é arquivado já foi lido, inclusive o que só está coberto pelo cursor do cidadão
+    private static final String SELECAO_NOTIFICACAO = "id, cidadao_id, titulo, mensagem, tipo, protocolo, true, data_criacao";
+
+    // Solicitações principais (ou avulsas) encerradas; as duplicatas seguem junto com a principal
+    private static final String SQL_SOLICITACOES_ELEGIVEIS =
+            "SELECT id FROM solicitacoes_servicos WHERE status IN ('CONCLUIDA', 'CANCELADA') " +
+            "AND solicitacao_principal_id IS NULL AND data_atualizacao < :limite ORDER BY id LIMIT :lote";
+
+    private static final String SQL_DUPLICATAS_ENCERRADAS =
+            "SELECT id FROM solicitacoes_servicos WHERE solicitacao_principal_id IN (:ids) " +
+            "AND status IN ('CONCLUIDA', 'CANCELADA')";
+
+    // Lidas individualmente ou até o cursor de leitura do cidadão
+    private static final String SQL_NOTIFICACOES_ELEGIVEIS =
+            "SELECT n.id FROM notificacoes n LEFT JOIN cursores_leitura c ON c.cidadao_id = n.cidadao_id " +
+            "WHERE n.data_criacao < :limite AND (n.lida = true OR n.id <= c.ultima_notificacao_id) " +
+            "ORDER BY n.id LIMIT :lote";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean emExecucao = new AtomicBoolean();
+    private final boolean habilitado;
+    private final int tamanhoLote;
+    private final int maxLotesPorExecucao;
+    private final long pausaEntreLotesMs;
+    private final long diasSolicitacoes;
+    private final long diasNotificacoes;
+
+    public ArquivamentoService(NamedParameterJdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${arquivamento.habilitado:true}") boolean habilitado,
+                               @Value("${arquivamento.tamanho-lote:500}") int tamanhoLote,
+                               @Value("${arquivamento.max-lotes-por-execucao:200}") int maxLotesPorExecucao,
+                               @Value("${arquivamento.pausa-entre-lotes-ms:100}") long pausaEntreLotesMs,
+                               @Value("${arquivamento.solicitacoes.dias:365}") long diasSolicitacoes,
+                               @Value("${arquivamento.notificacoes.dias:180}") long diasNotificacoes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.habilitado = habilitado;
+        this.tamanhoLote = tamanhoLote;
+        this.maxLotesPorExecucao = maxLotesPorExecucao;
+        this.pausaEntreLotesMs = pausaEntreLotesMs;
+        this.diasSolicitacoes = diasSolicitacoes;
+        this.diasNotificacoes = diasNotificacoes;
+    }
+
+    @Scheduled(cron = "${arquivamento.cron:0 0 3 * * *}")
+    public void arquivar() {
+        if (!habilitado || !emExecucao.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int solicitacoes = arquivarSolicitacoes(LocalDateTime.now().minusDays(diasSolicitacoes));
+            int notificacoes = arquivarNotificacoes(LocalDateTime.now().minusDays(diasNotificacoes));
+            log.info("Arquivamento concluído: {} solicitações e {} notificações", solicitacoes, notificacoes);
+        } finally {
+            emExecucao.set(false);
+        }
+    }
+
+    public int arquivarSolicitacoes(LocalDateTime limite) {
+        int total = 0;
+        for (int lote = 0; lote < maxLotesPorExecucao; lote++) {
+            Integer movidas = transactionTemplate.execute(status -> {
+                List<Long> ids = selecionar(SQL_SOLICITACOES_ELEGIVEIS, limite);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                List<Long> duplicatas = jdbcTemplate.queryForList(SQL_DUPLICATAS_ENCERRADAS,
+                        new MapSqlParameterSource("ids", ids), Long.class);
+                List<Long> todos = new ArrayList<>(duplicatas);
+                todos.addAll(ids);
+
+                copiar("solicitacoes_servicos", "solicitacoes_servicos_arquivo", COLUNAS_SOLICITACAO, COLUNAS_SOLICITACAO, todos);
+                registrarRemocao("solicitacoes_servicos", EntidadeSincronizacao.SOLICITACAO, todos);
+                // Duplicatas antes da principal, para não acionar o ON DELETE SET NULL do vínculo
+                if (!duplicatas.isEmpty()) {
+                    remover("solicitacoes_servicos", duplicatas);
+                }
+                remover("solicitacoes_servicos", ids);
+                return todos.size();
+            });
+            if (movidas == null || movidas == 0) {
+                break;
+            }
+            total += movidas;
+            pausar();
+        }
+        return total;
+    }
+
+    public int arquivarNotificacoes(LocalDateTime limite) {
+        int total = 0;
+        for (int lote = 0; lote < maxLotesPorExecucao; lote++) {
+            Integer movidas = transactionTemplate.execute(status -> {
+                List<Long> ids = selecionar(SQL_NOTIFICACOES_ELEGIVEIS, limite);
+                if (!ids.isEmpty()) {
+                    copiar("notificacoes", "notificacoes_arquivo", COLUNAS_NOTIFICACAO, SELECAO_NOTIFICACAO, ids);
+                    registrarRemocao("notificacoes", EntidadeSincronizacao.NOTIFICACAO, ids);
+                    remover("notificacoes", ids);
+                }
+                return ids.size();
+            });
+            if (movidas == null || movidas == 0) {
+                break;
+            }
+            total += movidas;
+            pausar();
+        }
+        return total;
+    }
+
+    private List<Long> selecionar(String sql, LocalDateTime limite) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("limite", Timestamp.valueOf(limite))
+                .addValue("lote", tamanhoLote);
+        return jdbcTemplate.queryForList(sql, parametros, Long.class);
+    }
+
+    private void copiar(String origem, String destino, String colunas, String selecao, List<Long> ids) {
+        jdbcTemplate.update("INSERT INTO " + destino + " (" + colunas + ", data_arquivamento) " +
+                "SELECT " + selecao + ", CURRENT_TIMESTAMP FROM " + origem + " WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids));
+    }
+
+    // Tombstone para a sincronização incremental: o aplicativo remove o registro da cópia local
+    private void registrarRemocao(String origem, EntidadeSincronizacao entidade, List<Long> ids) {
+        jdbcTemplate.update("INSERT INTO remocoes_sincronizacao (cidadao_id, entidade, registro_id) " +
+                        "SELECT cidadao_id, :entidade, id FROM " + origem + " WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids).addValue("entidade", entidade.name()));
+    }
+
+    private void remover(String origem, List<Long> ids) {
+        jdbcTemplate.update("DELETE FROM " + origem + " WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids));
+    }
+
+    private void pausar() {
+        try {
+            Thread.sleep(pausaEntreLotesMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.dto.LoteDTO;
+import br.gov.sp.centralcidadao.exception.RegraNegocioException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Consulta várias chaves com um IN (...) por bloco e devolve o resultado na ordem
+ * pedida, indicando as chaves não encontradas.
+ */
+final class BuscaEmLote {
+
+    private static final int TAMANHO_BLOCO = 100;
+
+    private BuscaEmLote() {
+    }
+
+    static <K, T> LoteDTO<T> buscar(List<K> chaves, int maxItens,
+                                    Function<List<K>, List<T>> consulta, Function<T, K> chaveDe) {
+        if (chaves == null || chaves.isEmpty()) {
+            throw new RegraNegocioException("Informe ao menos um item para a busca em lote");
+        }
+        if (chaves.size() > maxItens) {
+            throw new RegraNegocioException("Busca em lote limitada a " + maxItens + " itens");
+        }
+
+        List<K> distintas = new ArrayList<>(new LinkedHashSet<>(chaves));
+        Map<K, T> encontrados = new HashMap<>(distintas.size() * 2);
+        for (int inicio = 0; inicio < distintas.size(); inicio += TAMANHO_BLOCO) {
+            List<K> bloco = distintas.subList(inicio, Math.min(inicio + TAMANHO_BLOCO, distintas.size()));
+            for (T item : consulta.apply(bloco)) {
+                encontrados.put(chaveDe.apply(item), item);
+            }
+        }
+
+        List<T> itens = new ArrayList<>(chaves.size());
+        List<String> naoEncontrados = new ArrayList<>();
+        for (K chave : chaves) {
+            T item = encontrados.get(chave);
+            itens.add(item);
+            if (item == null) {
+                naoEncontrados.add(String.valueOf(chave));
+            }
+        }
+        return new LoteDTO<>(itens, naoEncontrados);
+    }
+}
@@ -0,0 +1,23 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.exception.RecursoNaoEncontradoException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Os fluxos de escrita usam referências (getReferenceById) em vez de carregar as entidades
+ * relacionadas; a existência é garantida pela chave estrangeira no INSERT. Esta classe
+ * converte a violação da chave no mesmo erro de recurso não encontrado da consulta prévia.
+ */
+final class ChavesEstrangeiras {
+
+    private ChavesEstrangeiras() {
+    }
+
+    static RuntimeException traduzir(DataIntegrityViolationException e, String tabela, String descricao, Object id) {
+        String causa = String.valueOf(e.getMostSpecificCause().getMessage());
+        if (causa.contains("FOREIGN KEY") && causa.contains("`" + tabela + "`")) {
+            return new RecursoNaoEncontradoException(descricao, id);
+        }
+        return e;
+    }
+}
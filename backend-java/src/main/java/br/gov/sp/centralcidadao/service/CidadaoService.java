@@ -1,13 +1,24 @@
 package br.gov.sp.centralcidadao.service;
 
 import br.gov.sp.centralcidadao.domain.Cidadao;
+import br.gov.sp.centralcidadao.dto.CidadaoBuscaDTO;
 import br.gov.sp.centralcidadao.dto.CidadaoDTO;
+import br.gov.sp.centralcidadao.monitoramento.MapeamentoDTO;
 import br.gov.sp.centralcidadao.repository.CidadaoRepository;
+import br.gov.sp.centralcidadao.exception.ConflitoException;
+import br.gov.sp.centralcidadao.exception.RecursoNaoEncontradoException;
+import br.gov.sp.centralcidadao.exception.RegraNegocioException;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 @Service
@@ -15,43 +26,64 @@ import java.util.stream.Collectors;
 public class CidadaoService {
 
     private final CidadaoRepository cidadaoRepository;
+    private final FiltroCadastroCidadaos filtroCadastro;
+    private final ConsultaShards consultaShards;
+    private final IndiceNomesCidadaos indiceNomes;
 
     public List<CidadaoDTO> listarTodos() {
-        return cidadaoRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return consultaShards.listar(() -> cidadaoRepository.findAll(Sort.by("id")).stream()
+                .collect(MapeamentoDTO.converter(Cidadao.class, this::toDTO)), Comparator.comparing(CidadaoDTO::getId));
     }
 
     public CidadaoDTO buscarPorId(Long id) {
         Cidadao cidadao = cidadaoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Cidadão não encontrado: " + id));
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Cidadão não encontrado", id));
         return toDTO(cidadao);
     }
 
     public CidadaoDTO buscarPorCpf(String cpf) {
         Cidadao cidadao = cidadaoRepository.findByCpf(cpf)
-                .orElseThrow(() -> new RuntimeException("Cidadão não encontrado com CPF: " + cpf));
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Cidadão não encontrado com CPF", cpf));
         return toDTO(cidadao);
     }
 
+    // Busca aproximada por nome para o atendimento, respondida pelo índice em memória
+    public List<CidadaoBuscaDTO> buscarPorNome(String nome, String bairro, LocalDate cadastradoDe,
+                                               LocalDate cadastradoAte, int limite) {
+        if (DeduplicacaoSolicitacoes.normalizar(nome).length() < 3) {
+            throw new RegraNegocioException("Informe ao menos 3 letras do nome");
+        }
+        return indiceNomes.buscar(nome, bairro, cadastradoDe, cadastradoAte, limite).stream()
+                .map(r -> new CidadaoBuscaDTO(r.cidadaoId(), r.nome(), r.bairro(), r.dataCadastro(), r.pontuacao()))
+                .collect(Collectors.toList());
+    }
+
     @Transactional
     public CidadaoDTO criar(CidadaoDTO dto) {
-        if (cidadaoRepository.existsByCpf(dto.getCpf())) {
-            throw new RuntimeException("CPF já cadastrado: " + dto.getCpf());
+        // Só consulta o banco quando o filtro indica que o valor pode já existir
+        if (filtroCadastro.podeExistirCpf(dto.getCpf()) && cidadaoRepository.existsByCpf(dto.getCpf())) {
+            throw new ConflitoException("CPF já cadastrado: " + dto.getCpf());
         }
-        if (cidadaoRepository.existsByEmail(dto.getEmail())) {
-            throw new RuntimeException("Email já cadastrado: " + dto.getEmail());
+        if (filtroCadastro.podeExistirEmail(dto.getEmail()) && cidadaoRepository.existsByEmail(dto.getEmail())) {
+            throw new ConflitoException("Email já cadastrado: " + dto.getEmail());
         }
 
         Cidadao cidadao = toEntity(dto);
-        cidadao = cidadaoRepository.save(cidadao);
+        try {
+            cidadao = cidadaoRepository.saveAndFlush(cidadao);
+        } catch (DataIntegrityViolationException e) {
+            // Cadastro concorrente ou feito por outra instância: a restrição UNIQUE decide
+            throw duplicidade(dto, e);
+        }
+        filtroCadastro.registrar(cidadao.getCpf(), cidadao.getEmail());
+        indiceNomes.registrar(cidadao);
         return toDTO(cidadao);
     }
 
     @Transactional
     public CidadaoDTO atualizar(Long id, CidadaoDTO dto) {
         Cidadao cidadao = cidadaoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Cidadão não encontrado: " + id));
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Cidadão não encontrado", id));
 
         cidadao.setNome(dto.getNome());
         cidadao.setTelefone(dto.getTelefone());
@@ -62,17 +94,37 @@ public class CidadaoService {
         cidadao.setBairro(dto.getBairro());
         cidadao.setCidade(dto.getCidade());
         cidadao.setEstado(dto.getEstado());
+        cidadao.setLatitude(dto.getLatitude());
+        cidadao.setLongitude(dto.getLongitude());
+        if (dto.getResumoDiario() != null) {
+            cidadao.setResumoDiario(dto.getResumoDiario());
+        }
 
         cidadao = cidadaoRepository.save(cidadao);
+        indiceNomes.registrar(cidadao);
         return toDTO(cidadao);
     }
 
     @Transactional
     public void deletar(Long id) {
         if (!cidadaoRepository.existsById(id)) {
-            throw new RuntimeException("Cidadão não encontrado: " + id);
+            throw new RecursoNaoEncontradoException("Cidadão não encontrado", id);
         }
         cidadaoRepository.deleteById(id);
+        indiceNomes.remover(id);
+    }
+
+    // Decide pelo nome da restrição: a mensagem do banco traz o valor duplicado, que pode conter "cpf"
+    private RuntimeException duplicidade(CidadaoDTO dto, DataIntegrityViolationException e) {
+        String restricao = e.getCause() instanceof ConstraintViolationException violacao && violacao.getConstraintName() != null
+                ? violacao.getConstraintName().toLowerCase(Locale.ROOT) : "";
+        if (restricao.contains(Cidadao.RESTRICAO_CPF)) {
+            return new ConflitoException("CPF já cadastrado: " + dto.getCpf());
+        }
+        if (restricao.contains(Cidadao.RESTRICAO_EMAIL)) {
+            return new ConflitoException("Email já cadastrado: " + dto.getEmail());
+        }
+        return e;
     }
 
     private CidadaoDTO toDTO(Cidadao cidadao) {
@@ -89,6 +141,9 @@ public class CidadaoService {
         dto.setBairro(cidadao.getBairro());
         dto.setCidade(cidadao.getCidade());
         dto.setEstado(cidadao.getEstado());
+        dto.setLatitude(cidadao.getLatitude());
+        dto.setLongitude(cidadao.getLongitude());
+        dto.setResumoDiario(cidadao.getResumoDiario());
         return dto;
     }
 
@@ -105,6 +160,9 @@ public class CidadaoService {
         cidadao.setBairro(dto.getBairro());
         cidadao.setCidade(dto.getCidade());
         cidadao.setEstado(dto.getEstado());
+        cidadao.setLatitude(dto.getLatitude());
+        cidadao.setLongitude(dto.getLongitude());
+        cidadao.setResumoDiario(Boolean.TRUE.equals(dto.getResumoDiario()));
         return cidadao;
     }
 }
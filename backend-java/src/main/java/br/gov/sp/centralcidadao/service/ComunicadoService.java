@@ -0,0 +1,57 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.domain.Comunicado;
+import br.gov.sp.centralcidadao.domain.TipoNotificacao;
+import br.gov.sp.centralcidadao.dto.ComunicadoDTO;
+import br.gov.sp.centralcidadao.exception.RegraNegocioException;
+import br.gov.sp.centralcidadao.repository.ComunicadoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class ComunicadoService {
+
+    private final ComunicadoRepository comunicadoRepository;
+
+    public List<ComunicadoDTO> listarEmVigor() {
+        return comunicadoRepository.findEmVigor(LocalDateTime.now()).stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Publica um comunicado com um único INSERT, qualquer que seja o tamanho do público.
+     * Os cidadãos o recebem ao consultar as notificações.
+     */
+    @Transactional
+    public ComunicadoDTO publicar(ComunicadoDTO dto) {
+        if (dto.getDataExpiracao() != null && !dto.getDataExpiracao().isAfter(LocalDateTime.now())) {
+            throw new RegraNegocioException("Data de expiração do comunicado deve ser futura");
+        }
+        Comunicado comunicado = new Comunicado();
+        comunicado.setTitulo(dto.getTitulo());
+        comunicado.setMensagem(dto.getMensagem());
+        comunicado.setTipo(dto.getTipo() != null ? dto.getTipo() : TipoNotificacao.INFO);
+        comunicado.setBairro(dto.getBairro() != null && !dto.getBairro().isBlank() ? dto.getBairro().trim() : null);
+        comunicado.setDataExpiracao(dto.getDataExpiracao());
+        return toDTO(comunicadoRepository.save(comunicado));
+    }
+
+    private ComunicadoDTO toDTO(Comunicado comunicado) {
+        ComunicadoDTO dto = new ComunicadoDTO();
+        dto.setId(comunicado.getId());
+        dto.setTitulo(comunicado.getTitulo());
+        dto.setMensagem(comunicado.getMensagem());
+        dto.setTipo(comunicado.getTipo());
+        dto.setBairro(comunicado.getBairro());
+        dto.setDataPublicacao(comunicado.getDataPublicacao());
+        dto.setDataExpiracao(comunicado.getDataExpiracao());
+        return dto;
+    }
+}
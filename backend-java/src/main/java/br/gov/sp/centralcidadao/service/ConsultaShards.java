@@ -0,0 +1,102 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.config.ShardContexto;
+import br.gov.sp.centralcidadao.config.ShardsProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Listagens administrativas sobre todos os shards. A consulta roda em paralelo em cada
+ * shard, cada uma em sua própria transação somente leitura, e os resultados (já ordenados
+ * pelo mesmo critério em cada shard) são intercalados mantendo a ordem global.
+ * Com shards desligados, ou com a requisição direcionada a um município, roda só uma vez.
+ */
+@Component
+@EnableConfigurationProperties(ShardsProperties.class)
+public class ConsultaShards {
+
+    private final ShardsProperties properties;
+    private final List<String> shards;
+    private final TransactionTemplate leitura;
+    private final ThreadPoolTaskExecutor executor;
+
+    public ConsultaShards(ShardsProperties properties, PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.shards = new ArrayList<>();
+        this.shards.add(properties.getPadrao());
+        this.shards.addAll(properties.getBases().keySet());
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+        // Pool próprio (e não um bean Executor, que substituiria o executor padrão do Spring)
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(shards.size());
+        this.executor.setMaxPoolSize(shards.size());
+        this.executor.setThreadNamePrefix("shards-");
+        this.executor.initialize();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    public <T> List<T> listar(Supplier<List<T>> consulta, Comparator<? super T> ordem) {
+        if (!properties.isHabilitado() || ShardContexto.atual() != null) {
+            return consulta.get();
+        }
+
+        List<CompletableFuture<List<T>>> parciais = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(
+                        () -> ShardContexto.executarEm(shard, () -> leitura.execute(status -> consulta.get())),
+                        executor))
+                .toList();
+        try {
+            return intercalar(parciais.stream().map(CompletableFuture::join).toList(), ordem);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    // Intercalação de k listas ordenadas: O(n log k), sem reordenar o resultado inteiro
+    private static <T> List<T> intercalar(List<List<T>> listas, Comparator<? super T> ordem) {
+        record Cursor<T>(List<T> lista, int posicao) {
+            T atual() {
+                return lista.get(posicao);
+            }
+        }
+        PriorityQueue<Cursor<T>> fila = new PriorityQueue<>(Math.max(1, listas.size()),
+                (a, b) -> ordem.compare(a.atual(), b.atual()));
+        int total = 0;
+        for (List<T> lista : listas) {
+            total += lista.size();
+            if (!lista.isEmpty()) {
+                fila.add(new Cursor<>(lista, 0));
+            }
+        }
+
+        List<T> resultado = new ArrayList<>(total);
+        while (!fila.isEmpty()) {
+            Cursor<T> cursor = fila.poll();
+            resultado.add(cursor.atual());
+            if (cursor.posicao() + 1 < cursor.lista().size()) {
+                fila.add(new Cursor<>(cursor.lista(), cursor.posicao() + 1));
+            }
+        }
+        return resultado;
+    }
+}
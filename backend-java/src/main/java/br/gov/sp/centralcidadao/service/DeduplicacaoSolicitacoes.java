@@ -0,0 +1,287 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.config.ShardContexto;
+import br.gov.sp.centralcidadao.config.ShardsProperties;
+import br.gov.sp.centralcidadao.domain.SolicitacaoServico;
+import br.gov.sp.centralcidadao.domain.StatusSolicitacao;
+import br.gov.sp.centralcidadao.domain.TipoServico;
+import br.gov.sp.centralcidadao.repository.SolicitacaoServicoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice em memória das solicitações abertas usado para detectar duplicatas na criação.
+ * Solicitações com coordenadas são agrupadas em células de uma grade (hash espacial)
+ * do tamanho do raio de busca; as demais, por tipo e bairro. Os candidatos são
+ * confirmados pela similaridade de trigramas da descrição e do endereço normalizados.
+ * Com shards, cada banco tem o próprio índice: os ids só são únicos dentro do shard.
+ */
+@Slf4j
+@Component
+public class DeduplicacaoSolicitacoes {
+
+    private static final double METROS_POR_GRAU = 111_320.0;
+    private static final List<StatusSolicitacao> STATUS_ABERTOS =
+            List.of(StatusSolicitacao.ABERTA, StatusSolicitacao.EM_ANALISE, StatusSolicitacao.EM_EXECUCAO);
+
+    private final SolicitacaoServicoRepository solicitacaoRepository;
+    private final ShardsProperties shards;
+    private final double raioMetros;
+    private final double tamanhoCelulaGraus;
+    private final Duration janela;
+    private final double similaridadeMinima;
+    private final double similaridadeEnderecoMinima;
+
+    private final Map<String, IndiceShard> indices = new ConcurrentHashMap<>();
+
+    public DeduplicacaoSolicitacoes(SolicitacaoServicoRepository solicitacaoRepository,
+                                    ShardsProperties shards,
+                                    @Value("${duplicidade.raio-metros:50}") double raioMetros,
+                                    @Value("${duplicidade.janela-dias:30}") long janelaDias,
+                                    @Value("${duplicidade.similaridade-minima:0.3}") double similaridadeMinima,
+                                    @Value("${duplicidade.similaridade-endereco-minima:0.6}") double similaridadeEnderecoMinima) {
+        this.solicitacaoRepository = solicitacaoRepository;
+        this.shards = shards;
+        this.raioMetros = raioMetros;
+        this.tamanhoCelulaGraus = raioMetros / METROS_POR_GRAU;
+        this.janela = Duration.ofDays(janelaDias);
+        this.similaridadeMinima = similaridadeMinima;
+        this.similaridadeEnderecoMinima = similaridadeEnderecoMinima;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        LocalDateTime inicio = LocalDateTime.now().minus(janela);
+        for (String shard : shards.nomes()) {
+            List<SolicitacaoServico> abertas = ShardContexto.executarEm(shard, () -> solicitacaoRepository
+                    .findByStatusInAndSolicitacaoPrincipalIsNullAndDataSolicitacaoAfter(STATUS_ABERTOS, inicio));
+            IndiceShard indice = indice(shard);
+            abertas.forEach(solicitacao -> indice.registrar(criarEntrada(solicitacao)));
+            log.debug("Índice de duplicidade do shard {} carregado com {} solicitações abertas", shard, abertas.size());
+        }
+    }
+
+    /**
+     * Procura uma solicitação aberta do mesmo tipo, próxima e com texto semelhante.
+     */
+    public Optional<Long> encontrarPrincipal(SolicitacaoServico solicitacao) {
+        Entrada nova = criarEntrada(solicitacao);
+        long limite = System.currentTimeMillis() - janela.toMillis();
+        Map<String, Set<Entrada>> celulas = indice(shards.atual()).celulas;
+
+        Entrada melhor = null;
+        double melhorPontuacao = 0;
+        for (String chave : chavesVizinhas(nova)) {
+            Set<Entrada> candidatos = celulas.get(chave);
+            if (candidatos == null) {
+                continue;
+            }
+            for (Entrada candidato : candidatos) {
+                if (candidato.criadaEm < limite) {
+                    continue;
+                }
+                double pontuacao = pontuar(nova, candidato);
+                if (pontuacao > melhorPontuacao) {
+                    melhorPontuacao = pontuacao;
+                    melhor = candidato;
+                }
+            }
+        }
+        return melhor != null ? Optional.of(melhor.id) : Optional.empty();
+    }
+
+    // Registro e remoção valem para o shard da requisição corrente
+    public void registrar(SolicitacaoServico solicitacao) {
+        indice(shards.atual()).registrar(criarEntrada(solicitacao));
+    }
+
+    public void remover(Long id) {
+        indice(shards.atual()).remover(id);
+    }
+
+    @Scheduled(fixedDelayString = "${duplicidade.limpeza-intervalo-ms:3600000}")
+    public void removerAntigas() {
+        long limite = System.currentTimeMillis() - janela.toMillis();
+        for (IndiceShard indice : indices.values()) {
+            indice.porId.values().stream()
+                    .filter(e -> e.criadaEm < limite)
+                    .map(e -> e.id)
+                    .toList()
+                    .forEach(indice::remover);
+        }
+    }
+
+    private IndiceShard indice(String shard) {
+        return indices.computeIfAbsent(shard, s -> new IndiceShard());
+    }
+
+    // Retorna 0 quando o candidato não é considerado duplicata
+    private double pontuar(Entrada nova, Entrada candidato) {
+        double simDescricao = jaccard(nova.trigramasDescricao, candidato.trigramasDescricao);
+        if (nova.temCoordenadas() && candidato.temCoordenadas()) {
+            double distancia = distanciaMetros(nova, candidato);
+            if (distancia > raioMetros || simDescricao < similaridadeMinima) {
+                return 0;
+            }
+            return simDescricao + (1 - distancia / raioMetros);
+        }
+        double simEndereco = jaccard(nova.trigramasEndereco, candidato.trigramasEndereco);
+        if (simEndereco < similaridadeEnderecoMinima || simDescricao < similaridadeMinima) {
+            return 0;
+        }
+        return simDescricao + simEndereco;
+    }
+
+    private List<String> chavesVizinhas(Entrada entrada) {
+        if (!entrada.temCoordenadas()) {
+            return List.of(entrada.chave);
+        }
+        long celulaY = celula(entrada.latitude);
+        long celulaX = celula(entrada.longitude);
+        // A largura em metros de um grau de longitude diminui com a latitude
+        double cosLat = Math.max(0.01, Math.cos(Math.toRadians(entrada.latitude)));
+        int alcanceX = (int) Math.ceil(1 / cosLat);
+
+        String prefixo = entrada.tipo.name() + ':';
+        String[] chaves = new String[3 * (2 * alcanceX + 1)];
+        int i = 0;
+        for (long dy = -1; dy <= 1; dy++) {
+            for (long dx = -alcanceX; dx <= alcanceX; dx++) {
+                chaves[i++] = prefixo + (celulaY + dy) + ':' + (celulaX + dx);
+            }
+        }
+        return Arrays.asList(chaves);
+    }
+
+    private Entrada criarEntrada(SolicitacaoServico solicitacao) {
+        double latitude = solicitacao.getLatitude() != null ? solicitacao.getLatitude().doubleValue() : Double.NaN;
+        double longitude = solicitacao.getLongitude() != null ? solicitacao.getLongitude().doubleValue() : Double.NaN;
+        String chave;
+        if (Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            chave = solicitacao.getTipoServico().name() + ":bairro:" + normalizar(solicitacao.getBairro());
+        } else {
+            chave = solicitacao.getTipoServico().name() + ':' + celula(latitude) + ':' + celula(longitude);
+        }
+        LocalDateTime data = solicitacao.getDataSolicitacao() != null ? solicitacao.getDataSolicitacao() : LocalDateTime.now();
+        return new Entrada(
+                solicitacao.getId(),
+                solicitacao.getTipoServico(),
+                latitude,
+                longitude,
+                chave,
+                trigramas(solicitacao.getDescricao()),
+                trigramas(solicitacao.getEndereco()),
+                data.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private long celula(double graus) {
+        return (long) Math.floor(graus / tamanhoCelulaGraus);
+    }
+
+    private static double distanciaMetros(Entrada a, Entrada b) {
+        double lat1 = Math.toRadians(a.latitude);
+        double lat2 = Math.toRadians(b.latitude);
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians(b.longitude - a.longitude);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * 6_371_000 * Math.asin(Math.sqrt(h));
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return semAcentos.toLowerCase().replaceAll("[^a-z0-9]+", " ").trim();
+    }
+
+    // Trigramas ordenados (como hash) para interseção linear entre dois textos
+    private static int[] trigramas(String texto) {
+        String normalizado = " " + normalizar(texto) + " ";
+        if (normalizado.length() < 3) {
+            return new int[0];
+        }
+        int[] hashes = new int[normalizado.length() - 2];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = (normalizado.charAt(i) << 16) ^ (normalizado.charAt(i + 1) << 8) ^ normalizado.charAt(i + 2);
+        }
+        return Arrays.stream(hashes).sorted().distinct().toArray();
+    }
+
+    private static double jaccard(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return 0;
+        }
+        int i = 0;
+        int j = 0;
+        int comuns = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                comuns++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) comuns / (a.length + b.length - comuns);
+    }
+
+    private static final class IndiceShard {
+        private final Map<Long, Entrada> porId = new ConcurrentHashMap<>();
+        private final Map<String, Set<Entrada>> celulas = new ConcurrentHashMap<>();
+
+        private void registrar(Entrada entrada) {
+            porId.put(entrada.id, entrada);
+            celulas.computeIfAbsent(entrada.chave, k -> ConcurrentHashMap.newKeySet()).add(entrada);
+        }
+
+        private void remover(Long id) {
+            Entrada entrada = porId.remove(id);
+            if (entrada == null) {
+                return;
+            }
+            celulas.computeIfPresent(entrada.chave, (k, conjunto) -> {
+                conjunto.remove(entrada);
+                return conjunto.isEmpty() ? null : conjunto;
+            });
+        }
+    }
+
+    private record Entrada(Long id, TipoServico tipo, double latitude, double longitude, String chave,
+                           int[] trigramasDescricao, int[] trigramasEndereco, long criadaEm) {
+
+        boolean temCoordenadas() {
+            return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+        }
+
+        // Identidade pelo id: os vetores de trigramas não participam de equals/hashCode
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entrada outra && id.equals(outra.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+    }
+}
@@ -1,13 +1,25 @@
 package br.gov.sp.centralcidadao.service;
 
+import br.gov.sp.centralcidadao.domain.Cidadao;
 import br.gov.sp.centralcidadao.domain.Escola;
 import br.gov.sp.centralcidadao.domain.NivelEnsino;
 import br.gov.sp.centralcidadao.dto.EscolaDTO;
+import br.gov.sp.centralcidadao.monitoramento.MapeamentoDTO;
+import br.gov.sp.centralcidadao.repository.CidadaoRepository;
 import br.gov.sp.centralcidadao.repository.EscolaRepository;
+import br.gov.sp.centralcidadao.exception.ConflitoException;
+import br.gov.sp.centralcidadao.exception.RecursoNaoEncontradoException;
+import br.gov.sp.centralcidadao.exception.RegraNegocioException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -15,49 +27,103 @@ import java.util.stream.Collectors;
 public class EscolaService {
 
     private final EscolaRepository escolaRepository;
+    private final ListaEsperaService listaEsperaService;
+    private final CidadaoRepository cidadaoRepository;
+    private final IndiceEscolasProximas indiceEscolasProximas;
+    private final ConsultaShards consultaShards;
 
     public List<EscolaDTO> listarTodas() {
-        return escolaRepository.findByAtivoTrue().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return consultaShards.listar(() -> escolaRepository.findByAtivoTrueOrderByIdAsc().stream()
+                .collect(MapeamentoDTO.converter(Escola.class, this::toDTO)), Comparator.comparing(EscolaDTO::getId));
     }
 
     public EscolaDTO buscarPorId(Long id) {
         Escola escola = escolaRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Escola não encontrada: " + id));
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Escola não encontrada", id));
         return toDTO(escola);
     }
 
     public List<EscolaDTO> buscarPorNivel(NivelEnsino nivel) {
         return escolaRepository.findByNivelEnsinoAndAtivoTrue(nivel).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(MapeamentoDTO.converter(Escola.class, this::toDTO));
     }
 
     public List<EscolaDTO> buscarPorBairro(String bairro) {
         return escolaRepository.findByBairroContainingIgnoreCase(bairro).stream()
                 .filter(Escola::getAtivo)
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(MapeamentoDTO.converter(Escola.class, this::toDTO));
     }
 
     public List<EscolaDTO> buscarPorNome(String nome) {
         return escolaRepository.findByNomeContainingIgnoreCase(nome).stream()
                 .filter(Escola::getAtivo)
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(MapeamentoDTO.converter(Escola.class, this::toDTO));
     }
 
     public List<EscolaDTO> buscarComVagasDisponiveis() {
         return escolaRepository.findEscolasComVagasDisponiveis().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(MapeamentoDTO.converter(Escola.class, this::toDTO));
     }
 
     public List<EscolaDTO> buscarComVagasDisponiveisPorNivel(NivelEnsino nivel) {
         return escolaRepository.findEscolasComVagasDisponiveisByNivel(nivel).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(MapeamentoDTO.converter(Escola.class, this::toDTO));
+    }
+
+    public List<EscolaDTO> buscarProximasComVagas(BigDecimal latitude, BigDecimal longitude, Long cidadaoId,
+                                                  NivelEnsino nivel, int limite) {
+        if (latitude == null || longitude == null) {
+            if (cidadaoId == null) {
+                throw new RegraNegocioException("Informe latitude e longitude ou o ID do cidadão");
+            }
+            Cidadao cidadao = cidadaoRepository.findById(cidadaoId)
+                    .orElseThrow(() -> new RecursoNaoEncontradoException("Cidadão não encontrado", cidadaoId));
+            if (cidadao.getLatitude() == null || cidadao.getLongitude() == null) {
+                throw new RegraNegocioException("Cidadão sem coordenadas cadastradas: " + cidadaoId);
+            }
+            latitude = cidadao.getLatitude();
+            longitude = cidadao.getLongitude();
+        }
+
+        List<IndiceEscolasProximas.Resultado> proximas = indiceEscolasProximas.buscarProximas(
+                latitude.doubleValue(), longitude.doubleValue(), nivel, limite);
+
+        // Confirma as vagas com os dados atuais do banco em uma única consulta
+        Map<Long, Escola> escolas = escolaRepository.findAllById(
+                proximas.stream().map(IndiceEscolasProximas.Resultado::escolaId).toList()).stream()
+                .collect(Collectors.toMap(Escola::getId, Function.identity()));
+
+        List<EscolaDTO> resultado = new ArrayList<>(proximas.size());
+        for (IndiceEscolasProximas.Resultado proxima : proximas) {
+            Escola escola = escolas.get(proxima.escolaId());
+            if (escola != null && escola.getAtivo() && escola.getVagasDisponiveis() > 0) {
+                EscolaDTO dto = toDTO(escola);
+                dto.setDistanciaKm(proxima.distanciaKm());
+                resultado.add(dto);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Altera o total de vagas com um UPDATE condicional: a entidade não tem versão, e gravá-la inteira
+     * sobrescreveria as vagas ocupadas ou liberadas por aprovações concorrentes.
+     */
+    @Transactional
+    public EscolaDTO atualizarVagas(Long id, Integer vagasTotais) {
+        if (escolaRepository.alterarVagasTotais(id, vagasTotais) == 0) {
+            if (!escolaRepository.existsById(id)) {
+                throw new RecursoNaoEncontradoException("Escola não encontrada", id);
+            }
+            throw new ConflitoException("Total de vagas menor que as vagas ocupadas da escola " + id);
+        }
+
+        // Relida depois do UPDATE, com as vagas ocupadas atuais
+        Escola escola = escolaRepository.findById(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Escola não encontrada", id));
+        indiceEscolasProximas.atualizar(escola);
+        listaEsperaService.promover(escola);
+        return toDTO(escola);
     }
 
     private EscolaDTO toDTO(Escola escola) {
@@ -68,6 +134,8 @@ public class EscolaService {
         dto.setBairro(escola.getBairro());
         dto.setCidade(escola.getCidade());
         dto.setTelefone(escola.getTelefone());
+        dto.setLatitude(escola.getLatitude());
+        dto.setLongitude(escola.getLongitude());
         dto.setNivelEnsino(escola.getNivelEnsino());
         dto.setNivelEnsinoDescricao(escola.getNivelEnsino().getDescricao());
         dto.setVagasTotais(escola.getVagasTotais());
@@ -0,0 +1,260 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.domain.FormatoExportacao;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.HexFormat;
+
+/**
+ * Exporta solicitações e matrículas como dados abertos, lendo o banco com um cursor
+ * somente-avanço e escrevendo cada linha diretamente na saída, sem materializar o resultado.
+ */
+@Service
+public class ExportacaoService {
+
+    private static final String SQL_SOLICITACOES =
+            "SELECT s.protocolo, s.tipo_servico, s.status, s.prioridade, s.bairro, s.endereco, " +
+            "s.latitude, s.longitude, s.data_solicitacao, s.data_conclusao, s.cidadao_id%s " +
+            "FROM solicitacoes_servicos s%s " +
+            "WHERE s.data_solicitacao >= ? AND s.data_solicitacao < ? ORDER BY s.id";
+
+    private static final String SQL_MATRICULAS =
+            "SELECT m.protocolo, m.escola_id, e.nome AS escola_nome, e.bairro AS escola_bairro, m.nivel_ensino, " +
+            "m.serie, m.status, m.data_solicitacao, m.data_atualizacao, m.cidadao_id, %s " +
+            "FROM matriculas m JOIN escolas e ON e.id = m.escola_id%s " +
+            "WHERE m.data_solicitacao >= ? AND m.data_solicitacao < ? ORDER BY m.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final byte[] segredoAnonimizacao;
+
+    public ExportacaoService(DataSource dataSource,
+                             ObjectMapper objectMapper,
+                             @Value("${exportacao.fetch-size:-2147483648}") int fetchSize,
+                             @Value("${exportacao.segredo-anonimizacao}") String segredoAnonimizacao) {
+        if (segredoAnonimizacao == null || segredoAnonimizacao.isBlank()) {
+            throw new IllegalStateException("Defina EXPORT_SECRET (exportacao.segredo-anonimizacao)");
+        }
+        // Com o MySQL Connector/J, fetch size Integer.MIN_VALUE ativa o streaming linha a linha
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+        this.segredoAnonimizacao = segredoAnonimizacao.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public void exportarSolicitacoes(FormatoExportacao formato, LocalDate inicio, LocalDate fim,
+                                     boolean anonimizar, OutputStream saida) {
+        String sql = anonimizar
+                ? String.format(SQL_SOLICITACOES, "", "")
+                : String.format(SQL_SOLICITACOES, ", c.nome AS cidadao_nome, s.descricao",
+                        " JOIN cidadaos c ON c.id = s.cidadao_id");
+        exportar(sql, formato, inicio, fim, anonimizar, saida);
+    }
+
+    public void exportarMatriculas(FormatoExportacao formato, LocalDate inicio, LocalDate fim,
+                                   boolean anonimizar, OutputStream saida) {
+        String sql = anonimizar
+                ? String.format(SQL_MATRICULAS, "YEAR(m.data_nascimento) AS ano_nascimento", "")
+                : String.format(SQL_MATRICULAS, "c.nome AS cidadao_nome, m.nome_aluno, m.data_nascimento",
+                        " JOIN cidadaos c ON c.id = m.cidadao_id");
+        exportar(sql, formato, inicio, fim, anonimizar, saida);
+    }
+
+    private void exportar(String sql, FormatoExportacao formato, LocalDate inicio, LocalDate fim,
+                          boolean anonimizar, OutputStream saida) {
+        Timestamp de = Timestamp.valueOf((inicio != null ? inicio : LocalDate.of(1970, 1, 1)).atStartOfDay());
+        Timestamp ate = Timestamp.valueOf((fim != null ? fim.plusDays(1) : LocalDate.of(9999, 1, 1)).atStartOfDay());
+        Pseudonimizador pseudonimizador = anonimizar ? new Pseudonimizador(segredoAnonimizacao) : null;
+
+        try (EscritorLinhas escritor = formato == FormatoExportacao.CSV
+                ? new EscritorCsv(saida)
+                : new EscritorNdjson(objectMapper, saida)) {
+            jdbcTemplate.query(sql, (ResultSet rs) -> {
+                String[] colunas = nomesColunas(rs.getMetaData(), anonimizar);
+                escritor.cabecalho(colunas);
+                Object[] valores = new Object[colunas.length];
+                while (rs.next()) {
+                    for (int i = 0; i < colunas.length; i++) {
+                        Object valor = rs.getObject(i + 1);
+                        if (pseudonimizador != null && valor != null && colunas[i].equals("cidadao")) {
+                            valor = pseudonimizador.aplicar(valor.toString());
+                        }
+                        valores[i] = valor;
+                    }
+                    escritor.linha(colunas, valores);
+                }
+                return null;
+            }, de, ate);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String[] nomesColunas(ResultSetMetaData metaData, boolean anonimizar) throws SQLException {
+        String[] colunas = new String[metaData.getColumnCount()];
+        for (int i = 0; i < colunas.length; i++) {
+            String nome = metaData.getColumnLabel(i + 1).toLowerCase();
+            // O ID do cidadão é substituído por um pseudônimo estável na exportação anonimizada
+            colunas[i] = anonimizar && nome.equals("cidadao_id") ? "cidadao" : nome;
+        }
+        return colunas;
+    }
+
+    private interface EscritorLinhas extends AutoCloseable {
+
+        void cabecalho(String[] colunas);
+
+        void linha(String[] colunas, Object[] valores);
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class EscritorCsv implements EscritorLinhas {
+
+        private final Writer writer;
+
+        private EscritorCsv(OutputStream saida) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public void cabecalho(String[] colunas) {
+            escrever(colunas);
+        }
+
+        @Override
+        public void linha(String[] colunas, Object[] valores) {
+            escrever(valores);
+        }
+
+        private void escrever(Object[] campos) {
+            try {
+                for (int i = 0; i < campos.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(escapar(formatar(campos[i])));
+                }
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static String escapar(String valor) {
+            if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+                return valor;
+            }
+            return '"' + valor.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static final class EscritorNdjson implements EscritorLinhas {
+
+        private final JsonGenerator gerador;
+
+        private EscritorNdjson(ObjectMapper objectMapper, OutputStream saida) {
+            try {
+                this.gerador = objectMapper.getFactory().createGenerator(saida, JsonEncoding.UTF8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.gerador.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            this.gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void cabecalho(String[] colunas) {
+        }
+
+        @Override
+        public void linha(String[] colunas, Object[] valores) {
+            try {
+                gerador.writeStartObject();
+                for (int i = 0; i < colunas.length; i++) {
+                    Object valor = valores[i];
+                    gerador.writeFieldName(colunas[i]);
+                    if (valor == null) {
+                        gerador.writeNull();
+                    } else if (valor instanceof BigDecimal numero) {
+                        gerador.writeNumber(numero);
+                    } else if (valor instanceof Number numero) {
+                        gerador.writeNumber(numero.longValue());
+                    } else {
+                        gerador.writeString(formatar(valor));
+                    }
+                }
+                gerador.writeEndObject();
+                gerador.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            gerador.close();
+        }
+    }
+
+    private static String formatar(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor instanceof Timestamp data) {
+            return data.toLocalDateTime().toString();
+        }
+        if (valor instanceof BigDecimal numero) {
+            return numero.toPlainString();
+        }
+        return valor.toString();
+    }
+
+    private static final class Pseudonimizador {
+
+        private final Mac mac;
+
+        private Pseudonimizador(byte[] segredo) {
+            try {
+                mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(segredo, "HmacSHA256"));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private String aplicar(String valor) {
+            byte[] hash = mac.doFinal(valor.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.repository.CidadaoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Filtro de Bloom com os CPFs e emails já cadastrados. Uma resposta negativa garante
+ * que o valor não existe e dispensa a consulta ao banco no cadastro; uma positiva pode
+ * ser falsa e é confirmada com a consulta. Remoções não são refletidas até a próxima
+ * reconstrução, o que só aumenta os falsos positivos. As restrições UNIQUE da tabela
+ * continuam sendo a garantia final.
+ */
+@Slf4j
+@Component
+public class FiltroCadastroCidadaos {
+
+    private final CidadaoRepository cidadaoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long capacidadeMinima;
+    private final double taxaFalsoPositivo;
+
+    private volatile Filtro atual;
+    private volatile Filtro emConstrucao;
+    private final AtomicBoolean reconstruindo = new AtomicBoolean();
+
+    public FiltroCadastroCidadaos(CidadaoRepository cidadaoRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${cidadaos.filtro-cadastro.capacidade-minima:100000}") long capacidadeMinima,
+                                  @Value("${cidadaos.filtro-cadastro.taxa-falso-positivo:0.01}") double taxaFalsoPositivo) {
+        this.cidadaoRepository = cidadaoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.capacidadeMinima = capacidadeMinima;
+        this.taxaFalsoPositivo = taxaFalsoPositivo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${cidadaos.filtro-cadastro.reconstrucao-ms:21600000}", initialDelayString = "${cidadaos.filtro-cadastro.reconstrucao-ms:21600000}")
+    public synchronized void reconstruir() {
+        long total = cidadaoRepository.count();
+        // Duas chaves por cidadão (CPF e email), com folga para o dobro de cadastros
+        Filtro novo = new Filtro(4 * Math.max(total, capacidadeMinima), taxaFalsoPositivo);
+        // Valores inseridos durante a carga também são gravados no filtro em construção
+        emConstrucao = novo;
+        try {
+            transactionTemplate.execute(status -> {
+                try (Stream<Object[]> cadastros = cidadaoRepository.streamCpfEmail()) {
+                    cadastros.forEach(linha -> {
+                        novo.adicionar(chaveCpf((String) linha[0]));
+                        novo.adicionar(chaveEmail((String) linha[1]));
+                    });
+                }
+                return null;
+            });
+            atual = novo;
+            log.debug("Filtro de cadastro de cidadãos carregado com {} registros", total);
+        } finally {
+            emConstrucao = null;
+        }
+    }
+
+    public boolean podeExistirCpf(String cpf) {
+        return podeExistir(chaveCpf(cpf));
+    }
+
+    public boolean podeExistirEmail(String email) {
+        return podeExistir(chaveEmail(email));
+    }
+
+    public void registrar(String cpf, String email) {
+        adicionar(chaveCpf(cpf));
+        adicionar(chaveEmail(email));
+    }
+
+    private boolean podeExistir(String chave) {
+        Filtro filtro = atual;
+        // Antes da primeira carga não há como afirmar que o valor é novo
+        return filtro == null || filtro.contem(chave);
+    }
+
+    private void adicionar(String chave) {
+        Filtro filtro = atual;
+        if (filtro != null) {
+            filtro.adicionar(chave);
+            // Cresce além da capacidade prevista: reconstrói maior para manter a taxa de falsos positivos
+            if (filtro.cheio() && reconstruindo.compareAndSet(false, true)) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        reconstruir();
+                    } finally {
+                        reconstruindo.set(false);
+                    }
+                }, "filtro-cadastro-reconstrucao");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        Filtro novo = emConstrucao;
+        if (novo != null) {
+            novo.adicionar(chave);
+        }
+    }
+
+    // CPF comparado apenas pelos dígitos e email sem diferenciar maiúsculas
+    private static String chaveCpf(String cpf) {
+        return "c:" + (cpf == null ? "" : cpf.replaceAll("\\D", ""));
+    }
+
+    private static String chaveEmail(String email) {
+        return "e:" + (email == null ? "" : email.trim().toLowerCase());
+    }
+
+    private static final class Filtro {
+
+        private final AtomicLongArray palavras;
+        private final long bits;
+        private final int funcoes;
+        private final long capacidade;
+        private final AtomicLong inseridos = new AtomicLong();
+
+        private Filtro(long capacidade, double taxaFalsoPositivo) {
+            long m = (long) Math.ceil(-capacidade * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+            this.palavras = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6));
+            this.bits = (long) palavras.length() << 6;
+            this.funcoes = Math.max(1, (int) Math.round((double) bits / capacidade * Math.log(2)));
+            this.capacidade = capacidade;
+        }
+
+        private void adicionar(String chave) {
+            long hash = hash64(chave);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= funcoes; i++) {
+                long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bits;
+                int indice = (int) (bit >>> 6);
+                long mascara = 1L << bit;
+                long palavra = palavras.get(indice);
+                while ((palavra & mascara) == 0 && !palavras.compareAndSet(indice, palavra, palavra | mascara)) {
+                    palavra = palavras.get(indice);
+                }
+            }
+            inseridos.incrementAndGet();
+        }
+
+        private boolean contem(String chave) {
+            long hash = hash64(chave);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= funcoes; i++) {
+                long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bits;
+                if ((palavras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean cheio() {
+            return inseridos.get() > capacidade;
+        }
+
+        // FNV-1a de 64 bits seguido da finalização do MurmurHash3 para espalhar os bits
+        private static long hash64(String chave) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : chave.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb93fe53e87ebL;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.dto.GravacaoJfrDTO;
+import br.gov.sp.centralcidadao.exception.ConflitoException;
+import br.gov.sp.centralcidadao.exception.RecursoNaoEncontradoException;
+import br.gov.sp.centralcidadao.exception.RegraNegocioException;
+import br.gov.sp.centralcidadao.monitoramento.EventoControlador;
+import br.gov.sp.centralcidadao.monitoramento.EventoMapeamento;
+import br.gov.sp.centralcidadao.monitoramento.EventoRepositorio;
+import br.gov.sp.centralcidadao.monitoramento.EventoRequisicao;
+import br.gov.sp.centralcidadao.monitoramento.EventoSerializacao;
+import br.gov.sp.centralcidadao.monitoramento.EventoServico;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Gravação JFR sob demanda, com os eventos da aplicação (requisição, controlador, serviço,
+ * repositório, mapeamento e serialização) somados à configuração padrão do JDK. Só existe
+ * uma gravação por vez; ela termina sozinha após a duração máxima, gravando o arquivo no
+ * diretório configurado, onde ficam apenas os últimos arquivos.
+ */
+@Slf4j
+@Service
+public class GravacaoJfrService {
+
+    private static final List<Class<? extends Event>> EVENTOS = List.of(
+            EventoRequisicao.class, EventoControlador.class, EventoServico.class,
+            EventoRepositorio.class, EventoMapeamento.class, EventoSerializacao.class);
+    private static final Pattern NOME_VALIDO = Pattern.compile("central-cidadao-[0-9-]+(-dump)?\\.jfr");
+    private static final DateTimeFormatter CARIMBO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path diretorio;
+    private final String configuracaoPadrao;
+    private final Duration limiar;
+    private final Duration duracaoMaxima;
+    private final int maxArquivos;
+
+    private Recording gravacao;
+    private String configuracao;
+    private String ultimoArquivo;
+
+    public GravacaoJfrService(@Value("${jfr.diretorio:dados/jfr}") String diretorio,
+                              @Value("${jfr.configuracao:default}") String configuracaoPadrao,
+                              @Value("${jfr.eventos.limiar-ms:0}") long limiarMs,
+                              @Value("${jfr.duracao-maxima-minutos:30}") long duracaoMaximaMinutos,
+                              @Value("${jfr.max-arquivos:10}") int maxArquivos) {
+        this.diretorio = Paths.get(diretorio).toAbsolutePath().normalize();
+        this.configuracaoPadrao = configuracaoPadrao;
+        this.limiar = Duration.ofMillis(limiarMs);
+        this.duracaoMaxima = Duration.ofMinutes(duracaoMaximaMinutos);
+        this.maxArquivos = Math.max(1, maxArquivos);
+    }
+
+    public synchronized GravacaoJfrDTO situacao() {
+        return toDTO();
+    }
+
+    // configuracao: "default" (sobrecarga baixa, para produção) ou "profile" (mais detalhes)
+    public synchronized GravacaoJfrDTO iniciar(String configuracao, Long duracaoMinutos) {
+        if (ativa()) {
+            throw new ConflitoException("Já existe uma gravação JFR em andamento");
+        }
+        String nome = configuracao != null && !configuracao.isBlank() ? configuracao : configuracaoPadrao;
+        Duration duracao = duracaoMinutos != null ? Duration.ofMinutes(duracaoMinutos) : duracaoMaxima;
+        if (duracao.isNegative() || duracao.isZero() || duracao.compareTo(duracaoMaxima) > 0) {
+            throw new RegraNegocioException("Duração deve estar entre 1 e " + duracaoMaxima.toMinutes() + " minutos");
+        }
+
+        Recording nova;
+        try {
+            nova = new Recording(Configuration.getConfiguration(nome));
+        } catch (IOException | ParseException e) {
+            throw new RegraNegocioException("Configuração JFR inválida: " + nome);
+        }
+        EVENTOS.forEach(evento -> nova.enable(evento).withThreshold(limiar));
+        Path destino = novoArquivo("");
+        try {
+            nova.setName("central-cidadao");
+            nova.setToDisk(true);
+            nova.setDuration(duracao);
+            nova.setDestination(destino);
+        } catch (IOException e) {
+            nova.close();
+            throw new UncheckedIOException(e);
+        }
+        nova.start();
+        if (gravacao != null) {
+            gravacao.close();
+        }
+        gravacao = nova;
+        this.configuracao = nome;
+        ultimoArquivo = destino.getFileName().toString();
+        log.info("Gravação JFR iniciada ({}, até {} min): {}", nome, duracao.toMinutes(), destino);
+        return toDTO();
+    }
+
+    // Com destino definido, o stop grava o arquivo
+    public synchronized GravacaoJfrDTO parar() {
+        if (!ativa()) {
+            throw new ConflitoException("Nenhuma gravação JFR em andamento");
+        }
+        gravacao.stop();
+        ultimoArquivo = gravacao.getDestination().getFileName().toString();
+        gravacao.close();
+        gravacao = null;
+        limparAntigos();
+        log.info("Gravação JFR encerrada: {}", ultimoArquivo);
+        return toDTO();
+    }
+
+    // Cópia do que foi gravado até agora, sem interromper a gravação
+    public synchronized GravacaoJfrDTO dump() {
+        if (!ativa()) {
+            throw new ConflitoException("Nenhuma gravação JFR em andamento");
+        }
+        Path destino = novoArquivo("-dump");
+        try {
+            gravacao.dump(destino);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ultimoArquivo = destino.getFileName().toString();
+        limparAntigos();
+        return toDTO();
+    }
+
+    public Path arquivo(String nome) {
+        if (!NOME_VALIDO.matcher(nome).matches()) {
+            throw new RecursoNaoEncontradoException("Gravação JFR não encontrada", nome);
+        }
+        Path arquivo = diretorio.resolve(nome);
+        if (!Files.isRegularFile(arquivo)) {
+            throw new RecursoNaoEncontradoException("Gravação JFR não encontrada", nome);
+        }
+        return arquivo;
+    }
+
+    @PreDestroy
+    public synchronized void encerrar() {
+        if (gravacao != null) {
+            gravacao.close();
+        }
+    }
+
+    // Gravação que atingiu a duração máxima já parou sozinha (estado STOPPED)
+    private boolean ativa() {
+        return gravacao != null && gravacao.getState() == RecordingState.RUNNING;
+    }
+
+    private Path novoArquivo(String sufixo) {
+        try {
+            Files.createDirectories(diretorio);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return diretorio.resolve("central-cidadao-" + LocalDateTime.now().format(CARIMBO) + sufixo + ".jfr");
+    }
+
+    private void limparAntigos() {
+        List<Path> antigos = arquivos().stream().skip(maxArquivos).map(diretorio::resolve).toList();
+        for (Path antigo : antigos) {
+            try {
+                Files.deleteIfExists(antigo);
+            } catch (IOException e) {
+                log.warn("Não foi possível remover a gravação JFR {}", antigo, e);
+            }
+        }
+    }
+
+    private List<String> arquivos() {
+        if (!Files.isDirectory(diretorio)) {
+            return List.of();
+        }
+        try (Stream<Path> conteudo = Files.list(diretorio)) {
+            return conteudo.map(arquivo -> arquivo.getFileName().toString())
+                    .filter(nome -> NOME_VALIDO.matcher(nome).matches())
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private GravacaoJfrDTO toDTO() {
+        boolean ativa = ativa();
+        return new GravacaoJfrDTO(
+                ativa,
+                ativa ? configuracao : null,
+                ativa ? gravacao.getStartTime() : null,
+                ativa && gravacao.getDuration() != null ? gravacao.getDuration().toSeconds() : null,
+                ultimoArquivo,
+                arquivos());
+    }
+}
@@ -0,0 +1,260 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.domain.ChaveIdempotencia;
+import br.gov.sp.centralcidadao.repository.ChaveIdempotenciaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Armazena as respostas de requisições POST identificadas por {@code Idempotency-Key}.
+ * A camada em memória (limitada e com TTL) atende as repetições locais; a tabela
+ * {@code chaves_idempotencia} garante a unicidade entre instâncias.
+ */
+@Slf4j
+@Service
+public class IdempotenciaService {
+
+    private final ChaveIdempotenciaRepository chaveRepository;
+    private final ConcurrentHashMap<String, Entrada> memoria = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entrada> ordemInsercao = new ConcurrentLinkedQueue<>();
+    private final int capacidadeMaxima;
+    private final Duration ttl;
+    private final Duration esperaMaxima;
+    private final Duration processamentoMaximo;
+    private final long intervaloConsultaMs;
+
+    public IdempotenciaService(ChaveIdempotenciaRepository chaveRepository,
+                               @Value("${idempotencia.capacidade-memoria:10000}") int capacidadeMaxima,
+                               @Value("${idempotencia.ttl-horas:24}") long ttlHoras,
+                               @Value("${idempotencia.espera-maxima-ms:10000}") long esperaMaximaMs,
+                               @Value("${idempotencia.processamento-maximo-ms:60000}") long processamentoMaximoMs,
+                               @Value("${idempotencia.intervalo-consulta-ms:100}") long intervaloConsultaMs) {
+        this.chaveRepository = chaveRepository;
+        this.capacidadeMaxima = capacidadeMaxima;
+        this.ttl = Duration.ofHours(ttlHoras);
+        this.esperaMaxima = Duration.ofMillis(esperaMaximaMs);
+        this.processamentoMaximo = Duration.ofMillis(processamentoMaximoMs);
+        this.intervaloConsultaMs = intervaloConsultaMs;
+    }
+
+    /**
+     * Reserva a chave para a requisição atual ou devolve a resposta original.
+     * Duplicatas concorrentes aguardam a conclusão da primeira requisição.
+     */
+    public Reserva reservar(String chave, String hashRequisicao) {
+        long limite = System.nanoTime() + esperaMaxima.toNanos();
+
+        while (true) {
+            Entrada existente = memoria.get(chave);
+            if (existente != null && existente.isExpirada()) {
+                retirar(existente);
+                continue;
+            }
+
+            if (existente == null) {
+                Entrada nova = new Entrada(chave, hashRequisicao, System.nanoTime() + ttl.toNanos());
+                if (memoria.putIfAbsent(chave, nova) != null) {
+                    continue;
+                }
+                ordemInsercao.offer(nova);
+                podar();
+                return reservarNoBanco(nova, limite);
+            }
+
+            if (!existente.hashRequisicao.equals(hashRequisicao)) {
+                return Reserva.conflito();
+            }
+
+            RespostaArmazenada resposta = aguardar(existente.resposta, limite);
+            if (resposta != null) {
+                return Reserva.repeticao(resposta);
+            }
+            if (System.nanoTime() >= limite) {
+                return Reserva.emProcessamento();
+            }
+            // A primeira requisição falhou e liberou a chave: tentar novamente
+        }
+    }
+
+    public void concluir(String chave, RespostaArmazenada resposta) {
+        try {
+            chaveRepository.concluir(chave, resposta.status(), resposta.contentType(),
+                    new String(resposta.corpo(), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            log.warn("Falha ao persistir resposta idempotente da chave {}", chave, e);
+        }
+        Entrada entrada = memoria.get(chave);
+        if (entrada != null) {
+            entrada.resposta.complete(resposta);
+        }
+    }
+
+    public void liberar(String chave) {
+        try {
+            chaveRepository.liberar(chave);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao liberar chave idempotente {}", chave, e);
+        }
+        Entrada entrada = memoria.get(chave);
+        if (entrada != null) {
+            retirar(entrada);
+            entrada.resposta.complete(null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotencia.limpeza-intervalo-ms:600000}")
+    public void removerExpiradas() {
+        int removidas = chaveRepository.removerExpiradas(LocalDateTime.now());
+        if (removidas > 0) {
+            log.debug("{} chaves de idempotência expiradas removidas", removidas);
+        }
+        podar();
+    }
+
+    private Reserva reservarNoBanco(Entrada entrada, long limite) {
+        while (true) {
+            LocalDateTime agora = LocalDateTime.now();
+            try {
+                chaveRepository.reservar(entrada.chave, entrada.hashRequisicao, agora, agora.plus(ttl));
+                return Reserva.processar();
+            } catch (DataIntegrityViolationException e) {
+                // Chave já registrada por outra instância (ou por uma execução anterior)
+            }
+
+            Optional<ChaveIdempotencia> registro = chaveRepository.findById(entrada.chave);
+            if (registro.isEmpty()) {
+                continue;
+            }
+            ChaveIdempotencia chave = registro.get();
+            boolean abandonada = !chave.isConcluida() && chave.getDataCriacao().plus(processamentoMaximo).isBefore(agora);
+            if (chave.getDataExpiracao().isBefore(agora) || abandonada) {
+                chaveRepository.liberar(entrada.chave);
+                continue;
+            }
+            if (!chave.getHashRequisicao().equals(entrada.hashRequisicao)) {
+                descartar(entrada);
+                return Reserva.conflito();
+            }
+            if (chave.isConcluida()) {
+                RespostaArmazenada resposta = RespostaArmazenada.de(chave);
+                entrada.resposta.complete(resposta);
+                return Reserva.repeticao(resposta);
+            }
+            if (System.nanoTime() >= limite) {
+                descartar(entrada);
+                return Reserva.emProcessamento();
+            }
+            dormir();
+        }
+    }
+
+    private RespostaArmazenada aguardar(CompletableFuture<RespostaArmazenada> resposta, long limite) {
+        try {
+            return resposta.get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private void descartar(Entrada entrada) {
+        retirar(entrada);
+        entrada.resposta.complete(null);
+    }
+
+    // Sai do mapa e da fila juntas, para a fila não acumular chaves que já não estão na memória
+    private void retirar(Entrada entrada) {
+        if (memoria.remove(entrada.chave, entrada)) {
+            ordemInsercao.remove(entrada);
+        }
+    }
+
+    private void podar() {
+        Entrada cabeca;
+        while ((cabeca = ordemInsercao.peek()) != null) {
+            boolean cheia = memoria.size() > capacidadeMaxima;
+            if (!cabeca.isExpirada() && !cheia) {
+                break;
+            }
+            // Entradas em processamento não são descartadas para não liberar duplicatas
+            if (!cabeca.isExpirada() && !cabeca.resposta.isDone()) {
+                break;
+            }
+            if (ordemInsercao.remove(cabeca)) {
+                memoria.remove(cabeca.chave, cabeca);
+            }
+        }
+    }
+
+    private void dormir() {
+        try {
+            Thread.sleep(intervaloConsultaMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Entrada {
+        private final String chave;
+        private final String hashRequisicao;
+        private final long expiraEmNanos;
+        private final CompletableFuture<RespostaArmazenada> resposta = new CompletableFuture<>();
+
+        private Entrada(String chave, String hashRequisicao, long expiraEmNanos) {
+            this.chave = chave;
+            this.hashRequisicao = hashRequisicao;
+            this.expiraEmNanos = expiraEmNanos;
+        }
+
+        private boolean isExpirada() {
+            return System.nanoTime() - expiraEmNanos > 0;
+        }
+    }
+
+    public record RespostaArmazenada(int status, String contentType, byte[] corpo) {
+
+        static RespostaArmazenada de(ChaveIdempotencia chave) {
+            byte[] corpo = chave.getCorpo() != null ? chave.getCorpo().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            return new RespostaArmazenada(chave.getStatusHttp(), chave.getContentType(), corpo);
+        }
+    }
+
+    public record Reserva(Situacao situacao, RespostaArmazenada resposta) {
+
+        public enum Situacao { PROCESSAR, REPETICAO, CONFLITO, EM_PROCESSAMENTO }
+
+        static Reserva processar() {
+            return new Reserva(Situacao.PROCESSAR, null);
+        }
+
+        static Reserva repeticao(RespostaArmazenada resposta) {
+            return new Reserva(Situacao.REPETICAO, resposta);
+        }
+
+        static Reserva conflito() {
+            return new Reserva(Situacao.CONFLITO, null);
+        }
+
+        static Reserva emProcessamento() {
+            return new Reserva(Situacao.EM_PROCESSAMENTO, null);
+        }
+    }
+}
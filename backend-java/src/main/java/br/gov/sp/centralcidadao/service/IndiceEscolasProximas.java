@@ -0,0 +1,229 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.config.ShardContexto;
+import br.gov.sp.centralcidadao.config.ShardsProperties;
+import br.gov.sp.centralcidadao.domain.Escola;
+import br.gov.sp.centralcidadao.domain.NivelEnsino;
+import br.gov.sp.centralcidadao.repository.EscolaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice em memória das escolas ativas com coordenadas, organizado em uma
+ * árvore k-d por nível de ensino. As posições ficam em vetores unitários 3D,
+ * em que a distância euclidiana preserva a ordem da distância geodésica.
+ * As vagas disponíveis são mantidas à parte e atualizadas a cada alteração.
+ * Com shards, cada banco tem o próprio índice: os ids só são únicos dentro do shard.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndiceEscolasProximas {
+
+    private static final double RAIO_TERRA_KM = 6371.0;
+
+    private final EscolaRepository escolaRepository;
+    private final ShardsProperties shards;
+    private final Map<String, IndiceShard> indices = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${escolas.indice.reconstrucao-ms:600000}", initialDelayString = "${escolas.indice.reconstrucao-ms:600000}")
+    public void reconstruir() {
+        shards.nomes().forEach(this::reconstruir);
+    }
+
+    private void reconstruir(String shard) {
+        IndiceShard indice = indice(shard);
+        Map<NivelEnsino, List<Escola>> porNivel = new EnumMap<>(NivelEnsino.class);
+        for (Escola escola : ShardContexto.executarEm(shard, escolaRepository::findByAtivoTrue)) {
+            indice.vagasDisponiveis.put(escola.getId(), escola.getVagasDisponiveis());
+            if (escola.getLatitude() != null && escola.getLongitude() != null) {
+                porNivel.computeIfAbsent(escola.getNivelEnsino(), n -> new ArrayList<>()).add(escola);
+            }
+        }
+
+        Map<NivelEnsino, ArvoreKd> novas = new EnumMap<>(NivelEnsino.class);
+        porNivel.forEach((nivel, escolas) -> novas.put(nivel, new ArvoreKd(escolas)));
+        indice.arvores = novas;
+        log.debug("Índice de escolas do shard {} reconstruído: {} níveis", shard, novas.size());
+    }
+
+    /**
+     * Registra a alteração de uma escola após o commit da transação corrente, para que
+     * um rollback não deixe o índice à frente do banco. Mudanças de vagas são aplicadas
+     * na hora; mudanças de posição, nível ou situação reconstroem o índice.
+     */
+    public void atualizar(Escola escola) {
+        String shard = shards.atual();
+        Long id = escola.getId();
+        int vagas = escola.getVagasDisponiveis();
+        boolean ativa = Boolean.TRUE.equals(escola.getAtivo());
+        aposCommit(() -> {
+            Integer anterior = indice(shard).vagasDisponiveis.put(id, vagas);
+            if (anterior == null || !ativa) {
+                reconstruir(shard);
+            }
+        });
+    }
+
+    /**
+     * Soma {@code delta} às vagas disponíveis da escola após o commit. Usado quando o contador
+     * é alterado direto no banco (ocupar/liberar vaga), em que a entidade lida pode estar defasada.
+     */
+    public void ajustarVagas(Long escolaId, int delta) {
+        IndiceShard indice = indice(shards.atual());
+        aposCommit(() -> indice.vagasDisponiveis.computeIfPresent(escolaId, (id, vagas) -> Math.max(0, vagas + delta)));
+    }
+
+    public List<Resultado> buscarProximas(double latitude, double longitude, NivelEnsino nivel, int limite) {
+        double[] ponto = paraVetor(latitude, longitude);
+        IndiceShard indice = indice(shards.atual());
+        Map<NivelEnsino, ArvoreKd> atuais = indice.arvores;
+
+        PriorityQueue<Candidato> melhores = new PriorityQueue<>(Comparator.comparingDouble(Candidato::distancia2).reversed());
+        for (Map.Entry<NivelEnsino, ArvoreKd> entrada : atuais.entrySet()) {
+            if (nivel == null || entrada.getKey() == nivel) {
+                entrada.getValue().buscar(ponto, limite, indice.vagasDisponiveis, melhores);
+            }
+        }
+
+        List<Resultado> resultados = new ArrayList<>(melhores.size());
+        while (!melhores.isEmpty()) {
+            Candidato candidato = melhores.poll();
+            resultados.add(new Resultado(candidato.id(), distanciaKm(candidato.distancia2())));
+        }
+        resultados.sort(Comparator.comparingDouble(Resultado::distanciaKm));
+        return resultados;
+    }
+
+    private static void aposCommit(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    private IndiceShard indice(String shard) {
+        return indices.computeIfAbsent(shard, s -> new IndiceShard());
+    }
+
+    private static double[] paraVetor(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        return new double[] { cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat) };
+    }
+
+    // Converte o quadrado da corda entre vetores unitários em distância sobre a superfície
+    private static double distanciaKm(double corda2) {
+        double corda = Math.sqrt(corda2);
+        return 2 * RAIO_TERRA_KM * Math.asin(Math.min(1.0, corda / 2));
+    }
+
+    public record Resultado(Long escolaId, double distanciaKm) {
+    }
+
+    private record Candidato(long id, double distancia2) {
+    }
+
+    private static final class IndiceShard {
+        private final Map<Long, Integer> vagasDisponiveis = new ConcurrentHashMap<>();
+        private volatile Map<NivelEnsino, ArvoreKd> arvores = new EnumMap<>(NivelEnsino.class);
+    }
+
+    private static final class ArvoreKd {
+
+        private final long[] ids;
+        private final double[][] pontos;
+
+        private ArvoreKd(List<Escola> escolas) {
+            int n = escolas.size();
+            ids = new long[n];
+            pontos = new double[n][];
+            Integer[] ordem = new Integer[n];
+            double[][] vetores = new double[n][];
+            for (int i = 0; i < n; i++) {
+                Escola escola = escolas.get(i);
+                vetores[i] = paraVetor(escola.getLatitude().doubleValue(), escola.getLongitude().doubleValue());
+                ordem[i] = i;
+            }
+            construir(ordem, vetores, 0, n, 0);
+            for (int i = 0; i < n; i++) {
+                ids[i] = escolas.get(ordem[i]).getId();
+                pontos[i] = vetores[ordem[i]];
+            }
+        }
+
+        // Árvore implícita: o nó de [inicio, fim) é a mediana, ordenada pelo eixo da profundidade
+        private void construir(Integer[] ordem, double[][] vetores, int inicio, int fim, int eixo) {
+            if (fim - inicio <= 1) {
+                return;
+            }
+            Arrays.sort(ordem, inicio, fim, Comparator.comparingDouble(i -> vetores[i][eixo]));
+            int meio = (inicio + fim) >>> 1;
+            construir(ordem, vetores, inicio, meio, (eixo + 1) % 3);
+            construir(ordem, vetores, meio + 1, fim, (eixo + 1) % 3);
+        }
+
+        private void buscar(double[] ponto, int limite, Map<Long, Integer> vagas, PriorityQueue<Candidato> melhores) {
+            buscar(ponto, limite, vagas, melhores, 0, ids.length, 0);
+        }
+
+        private void buscar(double[] ponto, int limite, Map<Long, Integer> vagas, PriorityQueue<Candidato> melhores,
+                            int inicio, int fim, int eixo) {
+            if (inicio >= fim) {
+                return;
+            }
+            int meio = (inicio + fim) >>> 1;
+            double[] no = pontos[meio];
+
+            if (vagas.getOrDefault(ids[meio], 0) > 0) {
+                double dx = no[0] - ponto[0];
+                double dy = no[1] - ponto[1];
+                double dz = no[2] - ponto[2];
+                double d2 = dx * dx + dy * dy + dz * dz;
+                if (melhores.size() < limite) {
+                    melhores.add(new Candidato(ids[meio], d2));
+                } else if (d2 < melhores.peek().distancia2()) {
+                    melhores.poll();
+                    melhores.add(new Candidato(ids[meio], d2));
+                }
+            }
+
+            double diferenca = ponto[eixo] - no[eixo];
+            int proximoEixo = (eixo + 1) % 3;
+            if (diferenca < 0) {
+                buscar(ponto, limite, vagas, melhores, inicio, meio, proximoEixo);
+                if (melhores.size() < limite || diferenca * diferenca < melhores.peek().distancia2()) {
+                    buscar(ponto, limite, vagas, melhores, meio + 1, fim, proximoEixo);
+                }
+            } else {
+                buscar(ponto, limite, vagas, melhores, meio + 1, fim, proximoEixo);
+                if (melhores.size() < limite || diferenca * diferenca < melhores.peek().distancia2()) {
+                    buscar(ponto, limite, vagas, melhores, inicio, meio, proximoEixo);
+                }
+            }
+        }
+    }
+}
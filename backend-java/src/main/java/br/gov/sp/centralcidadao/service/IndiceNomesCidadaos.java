@@ -0,0 +1,396 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.config.ShardContexto;
+import br.gov.sp.centralcidadao.config.ShardsProperties;
+import br.gov.sp.centralcidadao.domain.Cidadao;
+import br.gov.sp.centralcidadao.repository.CidadaoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Índice em memória dos nomes dos cidadãos para a busca aproximada do atendimento.
+ * Cada nome é indexado pelos trigramas do texto sem acentos e pela chave fonética de
+ * cada palavra, com listas invertidas montadas na carga. Cadastros, alterações e remoções
+ * feitos depois da carga ficam em um mapa à parte, consultado junto com o índice e
+ * incorporado na próxima reconstrução.
+ * Com shards, cada banco tem o próprio índice: os ids só são únicos dentro do shard.
+ */
+@Slf4j
+@Component
+public class IndiceNomesCidadaos {
+
+    private static final Set<String> PALAVRAS_IGNORADAS = Set.of("de", "da", "do", "das", "dos", "e");
+    private static final int SEM_DATA = Integer.MIN_VALUE;
+    private static final Comparator<Resultado> ORDEM = Comparator.comparingDouble(Resultado::pontuacao).reversed()
+            .thenComparing(Resultado::nome)
+            .thenComparing(Resultado::cidadaoId);
+
+    private final CidadaoRepository cidadaoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardsProperties shards;
+    private final double similaridadeMinima;
+    private final int maxAlteracoes;
+
+    private final Map<String, IndiceShard> indices = new ConcurrentHashMap<>();
+    private final AtomicLong sequencia = new AtomicLong();
+
+    public IndiceNomesCidadaos(CidadaoRepository cidadaoRepository,
+                               TransactionTemplate transactionTemplate,
+                               ShardsProperties shards,
+                               @Value("${cidadaos.busca.similaridade-minima:0.5}") double similaridadeMinima,
+                               @Value("${cidadaos.busca.max-alteracoes:50000}") int maxAlteracoes) {
+        this.cidadaoRepository = cidadaoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.shards = shards;
+        this.similaridadeMinima = similaridadeMinima;
+        this.maxAlteracoes = maxAlteracoes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${cidadaos.busca.reconstrucao-ms:3600000}", initialDelayString = "${cidadaos.busca.reconstrucao-ms:3600000}")
+    public void reconstruir() {
+        shards.nomes().forEach(this::reconstruir);
+    }
+
+    private void reconstruir(String shard) {
+        IndiceShard indice = indice(shard);
+        synchronized (indice) {
+            // Alterações registradas a partir daqui podem não estar na leitura e são mantidas
+            long inicio = sequencia.get();
+            List<Entrada> entradas = new ArrayList<>();
+            ShardContexto.executarEm(shard, () -> transactionTemplate.execute(status -> {
+                try (Stream<Object[]> linhas = cidadaoRepository.streamParaBusca()) {
+                    linhas.forEach(linha -> entradas.add(criarEntrada(
+                            (Long) linha[0], (String) linha[1], (String) linha[2], (LocalDateTime) linha[3])));
+                }
+                return null;
+            }));
+            indice.atual = new Indice(entradas);
+            indice.alteracoes.values().removeIf(alteracao -> alteracao.sequencia() < inicio);
+            log.debug("Índice de nomes de cidadãos do shard {} carregado com {} registros", shard, entradas.size());
+        }
+    }
+
+    // Aplicado só depois do commit, para a busca nunca mostrar um cadastro desfeito; vale para o shard da requisição
+    public void registrar(Cidadao cidadao) {
+        String shard = shards.atual();
+        Entrada entrada = criarEntrada(cidadao.getId(), cidadao.getNome(), cidadao.getBairro(), cidadao.getDataCadastro());
+        aposCommit(() -> alterar(shard, entrada.id(), entrada));
+    }
+
+    public void remover(Long id) {
+        String shard = shards.atual();
+        aposCommit(() -> alterar(shard, id, null));
+    }
+
+    /**
+     * Busca os nomes mais parecidos, do mais para o menos semelhante. Um nome entra no resultado
+     * quando contém ao menos a fração mínima dos trigramas da consulta ou das chaves fonéticas
+     * das palavras da consulta.
+     */
+    public List<Resultado> buscar(String nome, String bairro, LocalDate cadastradoDe, LocalDate cadastradoAte, int limite) {
+        Consulta consulta = new Consulta(
+                criarEntrada(0L, nome, null, null),
+                bairro != null && !bairro.isBlank() ? DeduplicacaoSolicitacoes.normalizar(bairro) : null,
+                cadastradoDe != null ? (int) cadastradoDe.toEpochDay() : Integer.MIN_VALUE,
+                cadastradoAte != null ? (int) cadastradoAte.toEpochDay() : Integer.MAX_VALUE,
+                cadastradoDe != null || cadastradoAte != null);
+
+        PriorityQueue<Resultado> melhores = new PriorityQueue<>(ORDEM.reversed());
+        IndiceShard indiceShard = indice(shards.atual());
+        Indice indice = indiceShard.atual;
+        Map<Long, Alteracao> alteracoes = indiceShard.alteracoes;
+        BitSet candidatos = indice.candidatos(consulta.entrada(), similaridadeMinima);
+        for (int posicao = candidatos.nextSetBit(0); posicao >= 0; posicao = candidatos.nextSetBit(posicao + 1)) {
+            Entrada entrada = indice.entradas[posicao];
+            // Versões substituídas ou removidas depois da carga são ignoradas aqui
+            if (!alteracoes.containsKey(entrada.id())) {
+                avaliar(consulta, entrada, limite, melhores);
+            }
+        }
+        for (Alteracao alteracao : alteracoes.values()) {
+            if (alteracao.entrada() != null) {
+                avaliar(consulta, alteracao.entrada(), limite, melhores);
+            }
+        }
+
+        List<Resultado> resultados = new ArrayList<>(melhores);
+        resultados.sort(ORDEM);
+        return resultados;
+    }
+
+    private void avaliar(Consulta consulta, Entrada entrada, int limite, PriorityQueue<Resultado> melhores) {
+        if (consulta.bairro() != null && !consulta.bairro().equals(entrada.bairroNormalizado())) {
+            return;
+        }
+        if (consulta.filtraData() && (entrada.diaCadastro() == SEM_DATA
+                || entrada.diaCadastro() < consulta.diaInicial() || entrada.diaCadastro() > consulta.diaFinal())) {
+            return;
+        }
+
+        int[] trigramas = consulta.entrada().trigramas();
+        int comuns = comuns(trigramas, entrada.trigramas());
+        double contencao = trigramas.length == 0 ? 0 : (double) comuns / trigramas.length;
+        double fonetica = fracaoFonetica(consulta.entrada().chaves(), entrada.chaves());
+        double semelhanca = Math.max(contencao, fonetica);
+        if (semelhanca < similaridadeMinima) {
+            return;
+        }
+        // Jaccard desempata a favor do nome mais próximo do texto inteiro digitado
+        int uniao = trigramas.length + entrada.trigramas().length - comuns;
+        double jaccard = uniao == 0 ? 0 : (double) comuns / uniao;
+        Resultado resultado = new Resultado(entrada.id(), entrada.nome(), entrada.bairro(),
+                entrada.diaCadastro() == SEM_DATA ? null : LocalDate.ofEpochDay(entrada.diaCadastro()),
+                Math.round((0.7 * semelhanca + 0.3 * jaccard) * 1000) / 1000.0);
+        if (melhores.size() < limite) {
+            melhores.add(resultado);
+        } else if (ORDEM.compare(resultado, melhores.peek()) < 0) {
+            melhores.poll();
+            melhores.add(resultado);
+        }
+    }
+
+    private void alterar(String shard, Long id, Entrada entrada) {
+        IndiceShard indice = indice(shard);
+        indice.alteracoes.put(id, new Alteracao(entrada, sequencia.getAndIncrement()));
+        // Muitas alterações pendentes deixam a busca linear na parte fora do índice: reconstrói antes do horário
+        if (indice.alteracoes.size() > maxAlteracoes && indice.reconstruindo.compareAndSet(false, true)) {
+            Thread thread = new Thread(() -> {
+                try {
+                    reconstruir(shard);
+                } finally {
+                    indice.reconstruindo.set(false);
+                }
+            }, "indice-nomes-reconstrucao-" + shard);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private IndiceShard indice(String shard) {
+        return indices.computeIfAbsent(shard, s -> new IndiceShard());
+    }
+
+    private static void aposCommit(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    private static Entrada criarEntrada(Long id, String nome, String bairro, LocalDateTime dataCadastro) {
+        String normalizado = DeduplicacaoSolicitacoes.normalizar(nome);
+        int[] chaves = Arrays.stream(normalizado.split(" "))
+                .filter(palavra -> !palavra.isEmpty() && !PALAVRAS_IGNORADAS.contains(palavra))
+                .mapToInt(palavra -> chaveFonetica(palavra).hashCode())
+                .sorted()
+                .distinct()
+                .toArray();
+        return new Entrada(id, nome, bairro, DeduplicacaoSolicitacoes.normalizar(bairro),
+                dataCadastro != null ? (int) dataCadastro.toLocalDate().toEpochDay() : SEM_DATA,
+                trigramas(normalizado), chaves);
+    }
+
+    /**
+     * Chave fonética de uma palavra já normalizada, com regras simplificadas da pronúncia
+     * do português: grafias que soam igual (Souza/Sousa, Thiago/Tiago, Felipe/Filipe,
+     * Guilherme/Guilerme) chegam à mesma chave.
+     */
+    static String chaveFonetica(String palavra) {
+        String chave = palavra
+                .replace("ph", "f")
+                .replace("th", "t")
+                .replace("lh", "l")
+                .replace("nh", "n")
+                .replace("sch", "x")
+                .replace("sh", "x")
+                .replace("ch", "x")
+                .replaceAll("[sx]c(?=[eiy])", "s")
+                .replaceAll("c(?=[eiy])", "s")
+                .replace("ck", "k")
+                .replace("c", "k")
+                .replaceAll("qu(?=[eiy])", "k")
+                .replace("q", "k")
+                .replaceAll("g(?=[eiy])", "j")
+                .replaceAll("gu(?=[eiy])", "g")
+                .replace("y", "i")
+                .replace("w", "v")
+                .replace("z", "s")
+                .replace("h", "")
+                // Vogais átonas finais e médias se confundem na fala: e/i e o/u viram uma só
+                .replace("e", "i")
+                .replace("o", "u")
+                .replaceAll("(.)\\1+", "$1")
+                .replaceAll("m$", "n");
+        // S final é opcional em sobrenomes (Marques/Marque, Luiz/Lui)
+        return chave.length() > 2 && chave.endsWith("s") ? chave.substring(0, chave.length() - 1) : chave;
+    }
+
+    // Mesma codificação de trigramas da deduplicação de solicitações
+    private static int[] trigramas(String normalizado) {
+        String texto = " " + normalizado + " ";
+        if (texto.length() < 3) {
+            return new int[0];
+        }
+        int[] hashes = new int[texto.length() - 2];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = (texto.charAt(i) << 16) ^ (texto.charAt(i + 1) << 8) ^ texto.charAt(i + 2);
+        }
+        return Arrays.stream(hashes).sorted().distinct().toArray();
+    }
+
+    private static int comuns(int[] a, int[] b) {
+        int i = 0;
+        int j = 0;
+        int comuns = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                comuns++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return comuns;
+    }
+
+    private static double fracaoFonetica(int[] consulta, int[] nome) {
+        if (consulta.length == 0) {
+            return 0;
+        }
+        return (double) comuns(consulta, nome) / consulta.length;
+    }
+
+    public record Resultado(Long cidadaoId, String nome, String bairro, LocalDate dataCadastro, double pontuacao) {
+    }
+
+    private record Entrada(Long id, String nome, String bairro, String bairroNormalizado, int diaCadastro,
+                           int[] trigramas, int[] chaves) {
+    }
+
+    private record Alteracao(Entrada entrada, long sequencia) {
+    }
+
+    private record Consulta(Entrada entrada, String bairro, int diaInicial, int diaFinal, boolean filtraData) {
+    }
+
+    // Índice carregado de um shard e as alterações feitas nele depois da carga
+    private static final class IndiceShard {
+
+        private volatile Indice atual = new Indice(new ArrayList<>());
+        // Por id: a versão mais recente (ou null quando removido), que substitui a do índice
+        private final Map<Long, Alteracao> alteracoes = new ConcurrentHashMap<>();
+        private final AtomicBoolean reconstruindo = new AtomicBoolean();
+    }
+
+    /**
+     * Listas invertidas (trigrama → posições e chave fonética → posições) sobre um vetor
+     * imutável de entradas. Substituído inteiro a cada reconstrução.
+     */
+    private static final class Indice {
+
+        private static final int[] VAZIA = new int[0];
+
+        private final Entrada[] entradas;
+        private final Map<Integer, int[]> porTrigrama;
+        private final Map<Integer, int[]> porChave;
+
+        private Indice(List<Entrada> lista) {
+            entradas = lista.toArray(new Entrada[0]);
+            Map<Integer, Posicoes> trigramas = new HashMap<>();
+            Map<Integer, Posicoes> chaves = new HashMap<>();
+            for (int posicao = 0; posicao < entradas.length; posicao++) {
+                for (int trigrama : entradas[posicao].trigramas()) {
+                    trigramas.computeIfAbsent(trigrama, t -> new Posicoes()).adicionar(posicao);
+                }
+                for (int chave : entradas[posicao].chaves()) {
+                    chaves.computeIfAbsent(chave, c -> new Posicoes()).adicionar(posicao);
+                }
+            }
+            porTrigrama = compactar(trigramas);
+            porChave = compactar(chaves);
+        }
+
+        /**
+         * Posições que podem atingir a similaridade mínima. Para conter uma fração t dos
+         * trigramas da consulta, o nome precisa ter ao menos um dos |Q| - ⌈t·|Q|⌉ + 1 trigramas
+         * mais raros; o mesmo vale para as chaves fonéticas. Assim as listas dos trigramas
+         * e sobrenomes mais comuns (" ma", "silva") quase nunca são percorridas.
+         */
+        private BitSet candidatos(Entrada consulta, double similaridadeMinima) {
+            BitSet candidatos = new BitSet(entradas.length);
+            adicionarMaisRaras(consulta.trigramas(), porTrigrama, similaridadeMinima, candidatos);
+            adicionarMaisRaras(consulta.chaves(), porChave, similaridadeMinima, candidatos);
+            return candidatos;
+        }
+
+        private static void adicionarMaisRaras(int[] valores, Map<Integer, int[]> listas, double similaridadeMinima,
+                                               BitSet candidatos) {
+            int[][] ordenadas = Arrays.stream(valores)
+                    .mapToObj(valor -> listas.getOrDefault(valor, VAZIA))
+                    .sorted(Comparator.comparingInt(lista -> lista.length))
+                    .toArray(int[][]::new);
+            int necessarios = Math.max(1, (int) Math.ceil(similaridadeMinima * ordenadas.length));
+            for (int i = 0; i < ordenadas.length - necessarios + 1; i++) {
+                for (int posicao : ordenadas[i]) {
+                    candidatos.set(posicao);
+                }
+            }
+        }
+
+        private static Map<Integer, int[]> compactar(Map<Integer, Posicoes> listas) {
+            Map<Integer, int[]> compactas = new HashMap<>(listas.size() * 4 / 3 + 1);
+            listas.forEach((chave, posicoes) -> compactas.put(chave, posicoes.paraVetor()));
+            return compactas;
+        }
+    }
+
+    private static final class Posicoes {
+
+        private int[] valores = new int[4];
+        private int tamanho;
+
+        private void adicionar(int posicao) {
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            valores[tamanho++] = posicao;
+        }
+
+        private int[] paraVetor() {
+            return Arrays.copyOf(valores, tamanho);
+        }
+    }
+}
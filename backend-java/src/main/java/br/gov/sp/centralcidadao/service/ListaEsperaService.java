@@ -0,0 +1,117 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.domain.*;
+import br.gov.sp.centralcidadao.repository.ListaEsperaRepository;
+import br.gov.sp.centralcidadao.repository.MatriculaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class ListaEsperaService {
+
+    // Promovidas nestes status ainda não ocupam vaga, mas já têm uma reservada
+    private static final Set<StatusMatricula> AGUARDANDO_ANALISE = EnumSet.of(StatusMatricula.PENDENTE, StatusMatricula.EM_ANALISE);
+
+    private final ListaEsperaRepository listaEsperaRepository;
+    private final MatriculaRepository matriculaRepository;
+    private final NotificacaoService notificacaoService;
+
+    public boolean possuiFila(Escola escola, NivelEnsino nivel) {
+        return listaEsperaRepository.existsByEscolaIdAndNivelEnsino(escola.getId(), nivel);
+    }
+
+    @Transactional
+    public void inscrever(Matricula matricula) {
+        ListaEspera entrada = new ListaEspera();
+        entrada.setMatricula(matricula);
+        entrada.setEscola(matricula.getEscola());
+        entrada.setNivelEnsino(matricula.getNivelEnsino());
+        entrada.setPrioridade(calcularPrioridade(matricula));
+        listaEsperaRepository.save(entrada);
+    }
+
+    @Transactional
+    public void remover(Matricula matricula) {
+        listaEsperaRepository.removerPorMatricula(matricula.getId());
+    }
+
+    /**
+     * Promove as próximas matrículas da fila enquanto houver vagas livres na escola.
+     * As vagas são da escola e não de um nível, então todas as filas dela disputam a vaga:
+     * a cada promoção vence a cabeça de fila com maior prioridade e, no empate, a mais antiga.
+     * Cada cabeça é buscada pelo índice, sem varrer matrículas.
+     * <p>
+     * Uma matrícula promovida só ocupa a vaga quando é aprovada; até lá ela é descontada das vagas
+     * livres, para que a próxima vaga liberada não promova outra entrada para a mesma vaga.
+     */
+    @Transactional
+    public int promover(Escola escola) {
+        int vagasLivres = escola.getVagasDisponiveis() - (int) matriculaRepository
+                .countByEscolaIdAndPromovidaListaEsperaTrueAndStatusIn(escola.getId(), AGUARDANDO_ANALISE);
+        if (vagasLivres <= 0) {
+            return 0;
+        }
+
+        List<NivelEnsino> niveis = new ArrayList<>(listaEsperaRepository.findNiveisComFila(escola.getId()));
+        int promovidas = 0;
+
+        while (promovidas < vagasLivres && !niveis.isEmpty()) {
+            ListaEspera entrada = null;
+            for (Iterator<NivelEnsino> it = niveis.iterator(); it.hasNext(); ) {
+                Optional<ListaEspera> cabeca = listaEsperaRepository
+                        .findFirstByEscolaIdAndNivelEnsinoOrderByPrioridadeDescIdAsc(escola.getId(), it.next());
+                if (cabeca.isEmpty()) {
+                    it.remove();
+                } else if (entrada == null || precede(cabeca.get(), entrada)) {
+                    entrada = cabeca.get();
+                }
+            }
+            if (entrada == null) {
+                break;
+            }
+            if (listaEsperaRepository.remover(entrada.getId()) == 0) {
+                continue;
+            }
+
+            Matricula matricula = entrada.getMatricula();
+            matricula.setStatus(StatusMatricula.PENDENTE);
+            matricula.setPromovidaListaEspera(true);
+            matriculaRepository.save(matricula);
+            promovidas++;
+
+            notificacaoService.notificarProtocolo(
+                    matricula.getCidadao().getId(),
+                    matricula.getProtocolo(),
+                    "Vaga Disponível",
+                    "Surgiu uma vaga em " + escola.getNome() + ". Sua matrícula " + matricula.getProtocolo() +
+                        " saiu da lista de espera e está pendente de análise.",
+                    TipoNotificacao.SUCESSO
+            );
+        }
+        return promovidas;
+    }
+
+    private boolean precede(ListaEspera a, ListaEspera b) {
+        int prioridade = Integer.compare(a.getPrioridade(), b.getPrioridade());
+        return prioridade > 0 || (prioridade == 0 && a.getId() < b.getId());
+    }
+
+    // Critério de prioridade: cidadão residente no mesmo bairro da escola
+    private int calcularPrioridade(Matricula matricula) {
+        String bairroCidadao = matricula.getCidadao().getBairro();
+        String bairroEscola = matricula.getEscola().getBairro();
+        if (bairroCidadao != null && bairroCidadao.equalsIgnoreCase(bairroEscola)) {
+            return 1;
+        }
+        return 0;
+    }
+}
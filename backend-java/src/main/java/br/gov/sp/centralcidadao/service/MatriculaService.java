@@ -1,111 +1,193 @@
 package br.gov.sp.centralcidadao.service;
 
 import br.gov.sp.centralcidadao.domain.*;
+import br.gov.sp.centralcidadao.dto.LoteDTO;
 import br.gov.sp.centralcidadao.dto.MatriculaDTO;
+import br.gov.sp.centralcidadao.exception.ConflitoException;
+import br.gov.sp.centralcidadao.exception.RecursoNaoEncontradoException;
+import br.gov.sp.centralcidadao.exception.RegraNegocioException;
+import br.gov.sp.centralcidadao.monitoramento.MapeamentoDTO;
 import br.gov.sp.centralcidadao.repository.CidadaoRepository;
 import br.gov.sp.centralcidadao.repository.EscolaRepository;
 import br.gov.sp.centralcidadao.repository.MatriculaRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class MatriculaService {
 
+    // Mesma ordem da consulta em cada shard, para intercalar os resultados
+    private static final Comparator<MatriculaDTO> ORDEM_SOLICITACAO = Comparator
+            .comparing(MatriculaDTO::getDataSolicitacao, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(MatriculaDTO::getId);
+
     private final MatriculaRepository matriculaRepository;
     private final CidadaoRepository cidadaoRepository;
     private final EscolaRepository escolaRepository;
     private final NotificacaoService notificacaoService;
+    private final ListaEsperaService listaEsperaService;
+    private final IndiceEscolasProximas indiceEscolasProximas;
+    private final ConsultaShards consultaShards;
+
+    @Value("${lote.max-itens:500}")
+    private int maxItensLote;
 
     public List<MatriculaDTO> listarTodas() {
-        return matriculaRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return consultaShards.listar(() -> matriculaRepository.findAllByOrderByDataSolicitacaoAscIdAsc().stream()
+                .collect(MapeamentoDTO.converter(Matricula.class, this::toDTO)), ORDEM_SOLICITACAO);
     }
 
     public MatriculaDTO buscarPorId(Long id) {
         Matricula matricula = matriculaRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Matrícula não encontrada: " + id));
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Matrícula não encontrada", id));
         return toDTO(matricula);
     }
 
     public MatriculaDTO buscarPorProtocolo(String protocolo) {
         Matricula matricula = matriculaRepository.findByProtocolo(protocolo)
-                .orElseThrow(() -> new RuntimeException("Matrícula não encontrada com protocolo: " + protocolo));
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Matrícula não encontrada com protocolo", protocolo));
         return toDTO(matricula);
     }
 
+    public LoteDTO<MatriculaDTO> buscarEmLote(List<Long> ids, List<String> protocolos) {
+        if ((ids == null) == (protocolos == null)) {
+            throw new RegraNegocioException("Informe ids ou protocolos");
+        }
+        return ids != null ? buscarPorIds(ids) : buscarPorProtocolos(protocolos);
+    }
+
+    public LoteDTO<MatriculaDTO> buscarPorIds(List<Long> ids) {
+        return BuscaEmLote.buscar(ids, maxItensLote,
+                bloco -> matriculaRepository.findComRelacionamentosByIdIn(bloco).stream().map(this::toDTO).toList(),
+                MatriculaDTO::getId);
+    }
+
+    public LoteDTO<MatriculaDTO> buscarPorProtocolos(List<String> protocolos) {
+        return BuscaEmLote.buscar(protocolos, maxItensLote,
+                bloco -> matriculaRepository.findComRelacionamentosByProtocoloIn(bloco).stream().map(this::toDTO).toList(),
+                MatriculaDTO::getProtocolo);
+    }
+
     public List<MatriculaDTO> listarPorCidadao(Long cidadaoId) {
         return matriculaRepository.findByCidadaoIdOrderByDataSolicitacaoDesc(cidadaoId).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(MapeamentoDTO.converter(Matricula.class, this::toDTO));
+    }
+
+    // Sincronização incremental: matrículas do cidadão gravadas no intervalo (desde, ate]
+    public List<MatriculaDTO> listarAlteradasPorCidadao(Long cidadaoId, LocalDateTime desde, LocalDateTime ate) {
+        return matriculaRepository.findAlteradas(cidadaoId, desde, ate).stream()
+                .collect(MapeamentoDTO.converter(Matricula.class, this::toDTO));
     }
 
     public List<MatriculaDTO> listarPorStatus(StatusMatricula status) {
         return matriculaRepository.findByStatus(status).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(MapeamentoDTO.converter(Matricula.class, this::toDTO));
     }
 
     @Transactional
     public MatriculaDTO criar(MatriculaDTO dto) {
-        Cidadao cidadao = cidadaoRepository.findById(dto.getCidadaoId())
-                .orElseThrow(() -> new RuntimeException("Cidadão não encontrado: " + dto.getCidadaoId()));
-
+        Long cidadaoId = dto.getCidadaoId();
+        // A escola é carregada para a checagem de vagas; o cidadão é só uma referência
         Escola escola = escolaRepository.findById(dto.getEscolaId())
-                .orElseThrow(() -> new RuntimeException("Escola não encontrada: " + dto.getEscolaId()));
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Escola não encontrada", dto.getEscolaId()));
 
-        // Verificar vagas disponíveis
-        if (escola.getVagasDisponiveis() <= 0) {
-            throw new RuntimeException("Escola sem vagas disponíveis: " + escola.getNome());
-        }
+        // Sem vagas (ou com fila já formada) a matrícula entra na lista de espera
+        boolean listaEspera = escola.getVagasDisponiveis() <= 0
+                || listaEsperaService.possuiFila(escola, dto.getNivelEnsino());
 
         Matricula matricula = new Matricula();
-        matricula.setCidadao(cidadao);
+        matricula.setCidadao(cidadaoRepository.getReferenceById(cidadaoId));
         matricula.setEscola(escola);
         matricula.setNomeAluno(dto.getNomeAluno());
         matricula.setDataNascimento(dto.getDataNascimento());
         matricula.setNivelEnsino(dto.getNivelEnsino());
         matricula.setSerie(dto.getSerie());
         matricula.setObservacoes(dto.getObservacoes());
-        matricula.setStatus(StatusMatricula.PENDENTE);
+        matricula.setStatus(listaEspera ? StatusMatricula.LISTA_ESPERA : StatusMatricula.PENDENTE);
 
-        matricula = matriculaRepository.save(matricula);
+        try {
+            matricula = matriculaRepository.save(matricula);
+        } catch (DataIntegrityViolationException e) {
+            throw ChavesEstrangeiras.traduzir(e, "cidadaos", "Cidadão não encontrado", cidadaoId);
+        }
+
+        if (listaEspera) {
+            listaEsperaService.inscrever(matricula);
+            notificacaoService.notificarNovoProtocolo(
+                    cidadaoId,
+                    matricula.getProtocolo(),
+                    "Matrícula em Lista de Espera",
+                    "A escola " + escola.getNome() + " está sem vagas no momento. Sua matrícula " +
+                        matricula.getProtocolo() + " entrou na lista de espera e você será avisado quando surgir uma vaga.",
+                    TipoNotificacao.ALERTA
+            );
+            return toDTO(matricula, false);
+        }
 
         // Criar notificação
-        notificacaoService.criarNotificacao(
-                cidadao.getId(),
+        notificacaoService.notificarNovoProtocolo(
+                cidadaoId,
+                matricula.getProtocolo(),
                 "Matrícula Registrada",
                 "Sua solicitação de matrícula foi registrada com protocolo " + matricula.getProtocolo(),
                 TipoNotificacao.SUCESSO
         );
 
-        return toDTO(matricula);
+        return toDTO(matricula, false);
     }
 
     @Transactional
     public MatriculaDTO atualizarStatus(Long id, StatusMatricula novoStatus) {
-        Matricula matricula = matriculaRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Matrícula não encontrada: " + id));
+        Matricula matricula = matriculaRepository.findComRelacionamentosById(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Matrícula não encontrada", id));
 
         StatusMatricula statusAnterior = matricula.getStatus();
+        validarTransicao(id, statusAnterior, novoStatus);
+
+        // Grava só se ninguém mudou o status depois da leitura; a entidade fica desanexada a partir daqui
+        LocalDateTime agora = LocalDateTime.now();
+        if (matriculaRepository.alterarStatus(id, statusAnterior, novoStatus, agora) == 0) {
+            throw new ConflitoException("Matrícula alterada por outra operação, tente novamente: " + id);
+        }
         matricula.setStatus(novoStatus);
-        matricula = matriculaRepository.save(matricula);
+        matricula.setVersao(matricula.getVersao() + 1);
+        matricula.setDataAtualizacao(agora);
+
+        if (statusAnterior == StatusMatricula.LISTA_ESPERA) {
+            listaEsperaService.remover(matricula);
+        }
+
+        Escola escola = matricula.getEscola();
 
         // Atualizar vagas da escola se aprovada
-        if (novoStatus == StatusMatricula.APROVADA && statusAnterior != StatusMatricula.APROVADA) {
-            Escola escola = matricula.getEscola();
+        if (novoStatus == StatusMatricula.APROVADA) {
+            escolaRepository.ocuparVaga(escola.getId());
             escola.setVagasOcupadas(escola.getVagasOcupadas() + 1);
-            escolaRepository.save(escola);
+            indiceEscolasProximas.ajustarVagas(escola.getId(), -1);
+        }
+
+        // Liberar a vaga de uma matrícula aprovada que foi cancelada ou rejeitada
+        boolean encerrada = novoStatus.isFinal();
+        if (encerrada && statusAnterior == StatusMatricula.APROVADA && escolaRepository.liberarVaga(escola.getId()) > 0) {
+            escola.setVagasOcupadas(Math.max(0, escola.getVagasOcupadas() - 1));
+            indiceEscolasProximas.ajustarVagas(escola.getId(), 1);
+        }
+        if (encerrada) {
+            listaEsperaService.promover(escola);
         }
 
         // Criar notificação
-        notificacaoService.criarNotificacao(
+        notificacaoService.notificarAtualizacao(
                 matricula.getCidadao().getId(),
+                matricula.getProtocolo(),
                 "Status da Matrícula Atualizado",
                 "Sua matrícula " + matricula.getProtocolo() + " foi atualizada para: " + novoStatus.getDescricao(),
                 TipoNotificacao.INFO
@@ -114,12 +196,30 @@ public class MatriculaService {
         return toDTO(matricula);
     }
 
+    // Repetir o status atual é conflito (pedido duplicado); os demais saltos fora da tabela são regra de negócio
+    private void validarTransicao(Long id, StatusMatricula atual, StatusMatricula novo) {
+        if (atual == novo) {
+            throw new ConflitoException("Matrícula já está com status " + novo.getDescricao() + ": " + id);
+        }
+        if (!atual.podeMudarPara(novo)) {
+            throw new RegraNegocioException("Transição de status inválida para a matrícula " + id + ": " +
+                    atual.getDescricao() + " → " + novo.getDescricao());
+        }
+    }
+
     private MatriculaDTO toDTO(Matricula matricula) {
+        return toDTO(matricula, true);
+    }
+
+    // Na criação o cidadão é só uma referência: o nome ficaria em uma consulta extra
+    private MatriculaDTO toDTO(Matricula matricula, boolean incluirNomeCidadao) {
         MatriculaDTO dto = new MatriculaDTO();
         dto.setId(matricula.getId());
         dto.setProtocolo(matricula.getProtocolo());
         dto.setCidadaoId(matricula.getCidadao().getId());
-        dto.setCidadaoNome(matricula.getCidadao().getNome());
+        if (incluirNomeCidadao) {
+            dto.setCidadaoNome(matricula.getCidadao().getNome());
+        }
         dto.setEscolaId(matricula.getEscola().getId());
         dto.setEscolaNome(matricula.getEscola().getNome());
         dto.setNomeAluno(matricula.getNomeAluno());
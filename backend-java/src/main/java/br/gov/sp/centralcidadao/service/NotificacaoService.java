@@ -1,76 +1,249 @@
 package br.gov.sp.centralcidadao.service;
 
-import br.gov.sp.centralcidadao.domain.Cidadao;
+import br.gov.sp.centralcidadao.domain.Comunicado;
+import br.gov.sp.centralcidadao.domain.CursorLeitura;
 import br.gov.sp.centralcidadao.domain.Notificacao;
+import br.gov.sp.centralcidadao.domain.ResumoPendente;
 import br.gov.sp.centralcidadao.domain.TipoNotificacao;
 import br.gov.sp.centralcidadao.dto.NotificacaoDTO;
+import br.gov.sp.centralcidadao.exception.RecursoNaoEncontradoException;
 import br.gov.sp.centralcidadao.repository.CidadaoRepository;
+import br.gov.sp.centralcidadao.repository.ComunicadoRepository;
+import br.gov.sp.centralcidadao.repository.CursorLeituraRepository;
 import br.gov.sp.centralcidadao.repository.NotificacaoRepository;
-import lombok.RequiredArgsConstructor;
+import br.gov.sp.centralcidadao.repository.ResumoPendenteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-@RequiredArgsConstructor
 public class NotificacaoService {
 
     private final NotificacaoRepository notificacaoRepository;
     private final CidadaoRepository cidadaoRepository;
+    private final ResumoPendenteRepository resumoPendenteRepository;
+    private final ComunicadoRepository comunicadoRepository;
+    private final CursorLeituraRepository cursorLeituraRepository;
+    private final Duration janelaAgrupamento;
 
+    public NotificacaoService(NotificacaoRepository notificacaoRepository,
+                              CidadaoRepository cidadaoRepository,
+                              ResumoPendenteRepository resumoPendenteRepository,
+                              ComunicadoRepository comunicadoRepository,
+                              CursorLeituraRepository cursorLeituraRepository,
+                              @Value("${notificacoes.janela-agrupamento-minutos:120}") long janelaAgrupamentoMinutos) {
+        this.notificacaoRepository = notificacaoRepository;
+        this.cidadaoRepository = cidadaoRepository;
+        this.resumoPendenteRepository = resumoPendenteRepository;
+        this.comunicadoRepository = comunicadoRepository;
+        this.cursorLeituraRepository = cursorLeituraRepository;
+        this.janelaAgrupamento = Duration.ofMinutes(janelaAgrupamentoMinutos);
+    }
+
+    // Notificações próprias e comunicados em vigor para o público do cidadão, do mais recente ao mais antigo
     public List<NotificacaoDTO> listarPorCidadao(Long cidadaoId) {
-        return notificacaoRepository.findByCidadaoIdOrderByDataCriacaoDesc(cidadaoId).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        CursorLeitura cursor = cursor(cidadaoId);
+        List<Comunicado> comunicados = comunicadoRepository.findVisiveis(cidadaoId, LocalDateTime.now(), 0);
+        return intercalar(notificacaoRepository.findByCidadaoIdOrderByDataCriacaoDesc(cidadaoId),
+                comunicados, cidadaoId, cursor);
     }
 
     public List<NotificacaoDTO> listarNaoLidasPorCidadao(Long cidadaoId) {
-        return notificacaoRepository.findByCidadaoIdAndLidaFalseOrderByDataCriacaoDesc(cidadaoId).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        CursorLeitura cursor = cursor(cidadaoId);
+        List<Comunicado> comunicados = comunicadoRepository.findVisiveis(cidadaoId, LocalDateTime.now(),
+                cursor.getUltimoComunicadoId());
+        return intercalar(notificacaoRepository.findNaoLidas(cidadaoId, cursor.getUltimaNotificacaoId()),
+                comunicados, cidadaoId, cursor);
+    }
+
+    /**
+     * Sincronização incremental: notificações e comunicados visíveis gravados no intervalo
+     * (desde, ate]. O "lida" vem calculado com o cursor informado; como o cursor avança sem
+     * alterar as linhas, o aplicativo reaplica os cursores devolvidos às cópias locais.
+     */
+    public List<NotificacaoDTO> listarAlteradasPorCidadao(Long cidadaoId, CursorLeitura cursor,
+                                                         LocalDateTime desde, LocalDateTime ate) {
+        List<Comunicado> comunicados = comunicadoRepository.findVisiveisAlterados(cidadaoId, LocalDateTime.now(), 0,
+                desde, ate);
+        return intercalar(notificacaoRepository.findAlteradas(cidadaoId, desde, ate), comunicados, cidadaoId, cursor);
     }
 
     public long contarNaoLidas(Long cidadaoId) {
-        return notificacaoRepository.countByCidadaoIdAndLidaFalse(cidadaoId);
+        CursorLeitura cursor = cursor(cidadaoId);
+        return notificacaoRepository.countNaoLidas(cidadaoId, cursor.getUltimaNotificacaoId())
+                + comunicadoRepository.countVisiveis(cidadaoId, LocalDateTime.now(), cursor.getUltimoComunicadoId());
     }
 
     @Transactional
     public NotificacaoDTO marcarComoLida(Long id) {
         Notificacao notificacao = notificacaoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Notificação não encontrada: " + id));
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Notificação não encontrada", id));
 
         notificacao.setLida(true);
         notificacao = notificacaoRepository.save(notificacao);
         return toDTO(notificacao);
     }
 
+    /**
+     * Avança os cursores do cidadão até a última notificação e o último comunicado existentes:
+     * um upsert de uma linha, sem tocar nas notificações. Os máximos são lidos antes, em
+     * leituras simples, para o INSERT não bloquear as tabelas de origem como faria um INSERT ... SELECT.
+     */
     @Transactional
     public void marcarTodasComoLidas(Long cidadaoId) {
-        notificacaoRepository.marcarTodasComoLidas(cidadaoId);
+        avancarCursor(cidadaoId, comunicadoRepository.findUltimoId(), notificacaoRepository.findUltimoId(cidadaoId));
+    }
+
+    /**
+     * Comunicados são lidos em ordem: marcar um como lido avança o cursor do cidadão
+     * até ele, o que também marca os anteriores.
+     */
+    @Transactional
+    public void marcarComunicadoComoLido(Long cidadaoId, Long comunicadoId) {
+        if (!comunicadoRepository.existsById(comunicadoId)) {
+            throw new RecursoNaoEncontradoException("Comunicado não encontrado", comunicadoId);
+        }
+        avancarCursor(cidadaoId, comunicadoId, 0);
+    }
+
+    CursorLeitura cursor(Long cidadaoId) {
+        return cursorLeituraRepository.findById(cidadaoId).orElseGet(() -> CursorLeitura.inicial(cidadaoId));
+    }
+
+    private void avancarCursor(Long cidadaoId, long comunicadoId, long notificacaoId) {
+        try {
+            cursorLeituraRepository.avancar(cidadaoId, comunicadoId, notificacaoId);
+        } catch (DataIntegrityViolationException e) {
+            throw ChavesEstrangeiras.traduzir(e, "cidadaos", "Cidadão não encontrado", cidadaoId);
+        }
     }
 
     @Transactional
     public NotificacaoDTO criarNotificacao(Long cidadaoId, String titulo, String mensagem, TipoNotificacao tipo) {
-        Cidadao cidadao = cidadaoRepository.findById(cidadaoId)
-                .orElseThrow(() -> new RuntimeException("Cidadão não encontrado: " + cidadaoId));
+        try {
+            return toDTO(inserir(cidadaoId, null, titulo, mensagem, tipo));
+        } catch (DataIntegrityViolationException e) {
+            throw ChavesEstrangeiras.traduzir(e, "cidadaos", "Cidadão não encontrado", cidadaoId);
+        }
+    }
+
+    /**
+     * Primeira notificação de um protocolo recém-criado: não há o que agrupar,
+     * então é um único INSERT.
+     */
+    @Transactional
+    public void notificarNovoProtocolo(Long cidadaoId, String protocolo, String titulo, String mensagem, TipoNotificacao tipo) {
+        inserir(cidadaoId, protocolo, titulo, mensagem, tipo);
+    }
+
+    /**
+     * Notifica um evento de protocolo. Se já houver notificação não lida do mesmo protocolo
+     * dentro da janela de agrupamento, ela é atualizada em vez de criar uma nova linha.
+     */
+    @Transactional
+    public void notificarProtocolo(Long cidadaoId, String protocolo, String titulo, String mensagem, TipoNotificacao tipo) {
+        LocalDateTime agora = LocalDateTime.now();
+        int agrupadas = notificacaoRepository.agrupar(cidadaoId, protocolo, titulo, mensagem, tipo,
+                agora, agora.minus(janelaAgrupamento));
+        if (agrupadas == 0) {
+            inserir(cidadaoId, protocolo, titulo, mensagem, tipo);
+        }
+    }
 
+    /**
+     * Notifica uma mudança de status. Cidadãos com resumo diário ativo recebem apenas
+     * a última atualização de cada protocolo no resumo do dia.
+     */
+    @Transactional
+    public void notificarAtualizacao(Long cidadaoId, String protocolo, String titulo, String mensagem, TipoNotificacao tipo) {
+        if (!Boolean.TRUE.equals(cidadaoRepository.findResumoDiarioById(cidadaoId))) {
+            notificarProtocolo(cidadaoId, protocolo, titulo, mensagem, tipo);
+            return;
+        }
+
+        if (resumoPendenteRepository.atualizar(cidadaoId, protocolo, mensagem, LocalDateTime.now()) == 0) {
+            ResumoPendente pendente = new ResumoPendente();
+            pendente.setCidadao(cidadaoRepository.getReferenceById(cidadaoId));
+            pendente.setProtocolo(protocolo);
+            pendente.setMensagem(mensagem);
+            resumoPendenteRepository.save(pendente);
+        }
+    }
+
+    @Transactional
+    public void enviarResumo(Long cidadaoId) {
+        List<ResumoPendente> pendentes = resumoPendenteRepository.findByCidadaoIdOrderByDataAtualizacaoAsc(cidadaoId);
+        if (pendentes.isEmpty()) {
+            return;
+        }
+
+        StringBuilder mensagem = new StringBuilder("Atualizações dos seus protocolos hoje:");
+        for (ResumoPendente pendente : pendentes) {
+            mensagem.append("\n• ").append(pendente.getMensagem());
+        }
+
+        inserir(cidadaoId, null, "Resumo do Dia", mensagem.toString(), TipoNotificacao.INFO);
+        resumoPendenteRepository.deleteAllInBatch(pendentes);
+    }
+
+    private Notificacao inserir(Long cidadaoId, String protocolo, String titulo, String mensagem, TipoNotificacao tipo) {
         Notificacao notificacao = new Notificacao();
-        notificacao.setCidadao(cidadao);
+        notificacao.setCidadao(cidadaoRepository.getReferenceById(cidadaoId));
+        notificacao.setProtocolo(protocolo);
         notificacao.setTitulo(titulo);
         notificacao.setMensagem(mensagem);
         notificacao.setTipo(tipo);
         notificacao.setLida(false);
+        return notificacaoRepository.save(notificacao);
+    }
 
-        notificacao = notificacaoRepository.save(notificacao);
-        return toDTO(notificacao);
+    private List<NotificacaoDTO> intercalar(List<Notificacao> notificacoes, List<Comunicado> comunicados,
+                                            Long cidadaoId, CursorLeitura cursor) {
+        long ultimaLida = cursor.getUltimaNotificacaoId();
+        if (comunicados.isEmpty()) {
+            return notificacoes.stream().map(n -> toDTO(n, ultimaLida)).collect(Collectors.toList());
+        }
+        return Stream.concat(notificacoes.stream().map(n -> toDTO(n, ultimaLida)),
+                        comunicados.stream().map(c -> toDTO(c, cidadaoId, cursor.getUltimoComunicadoId())))
+                .sorted(Comparator.comparing(NotificacaoDTO::getDataCriacao,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .collect(Collectors.toList());
+    }
+
+    // Comunicado no formato de notificação: sem id próprio, identificado por comunicadoId
+    private NotificacaoDTO toDTO(Comunicado comunicado, Long cidadaoId, long cursor) {
+        NotificacaoDTO dto = new NotificacaoDTO();
+        dto.setComunicadoId(comunicado.getId());
+        dto.setCidadaoId(cidadaoId);
+        dto.setTitulo(comunicado.getTitulo());
+        dto.setMensagem(comunicado.getMensagem());
+        dto.setTipo(comunicado.getTipo());
+        dto.setLida(comunicado.getId() <= cursor);
+        dto.setDataCriacao(comunicado.getDataPublicacao());
+        dto.setDataExpiracao(comunicado.getDataExpiracao());
+        return dto;
+    }
+
+    // Lida pela marcação individual ou por estar até o cursor do cidadão
+    private NotificacaoDTO toDTO(Notificacao notificacao, long ultimaLida) {
+        NotificacaoDTO dto = toDTO(notificacao);
+        dto.setLida(Boolean.TRUE.equals(notificacao.getLida()) || notificacao.getId() <= ultimaLida);
+        return dto;
     }
 
     private NotificacaoDTO toDTO(Notificacao notificacao) {
         NotificacaoDTO dto = new NotificacaoDTO();
         dto.setId(notificacao.getId());
         dto.setCidadaoId(notificacao.getCidadao().getId());
+        dto.setProtocolo(notificacao.getProtocolo());
         dto.setTitulo(notificacao.getTitulo());
         dto.setMensagem(notificacao.getMensagem());
         dto.setTipo(notificacao.getTipo());
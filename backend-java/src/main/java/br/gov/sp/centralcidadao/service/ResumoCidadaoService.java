@@ -0,0 +1,120 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.config.ShardContexto;
+import br.gov.sp.centralcidadao.dto.CidadaoDTO;
+import br.gov.sp.centralcidadao.dto.MatriculaDTO;
+import br.gov.sp.centralcidadao.dto.ResumoCidadaoDTO;
+import br.gov.sp.centralcidadao.dto.SolicitacaoServicoDTO;
+import br.gov.sp.centralcidadao.exception.CentralCidadaoException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Monta a tela inicial do cidadão em uma única chamada. As seções são consultadas em
+ * paralelo, cada uma em sua própria transação somente leitura (e, portanto, sua própria
+ * conexão); a latência fica próxima à da seção mais lenta em vez da soma de todas.
+ * Seções que falham ou passam do tempo limite voltam vazias e são listadas na resposta.
+ */
+@Slf4j
+@Service
+public class ResumoCidadaoService {
+
+    private final CidadaoService cidadaoService;
+    private final MatriculaService matriculaService;
+    private final SolicitacaoServicoService solicitacaoService;
+    private final NotificacaoService notificacaoService;
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate leitura;
+    private final long tempoLimiteMs;
+
+    public ResumoCidadaoService(CidadaoService cidadaoService,
+                                MatriculaService matriculaService,
+                                SolicitacaoServicoService solicitacaoService,
+                                NotificacaoService notificacaoService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${resumo.threads:6}") int threads,
+                                @Value("${resumo.fila:200}") int fila,
+                                @Value("${resumo.tempo-limite-ms:1500}") long tempoLimiteMs) {
+        this.cidadaoService = cidadaoService;
+        this.matriculaService = matriculaService;
+        this.solicitacaoService = solicitacaoService;
+        this.notificacaoService = notificacaoService;
+        // Pool próprio (e não um bean Executor, que substituiria o executor padrão do Spring).
+        // Cada tarefa ocupa uma conexão: o total de threads deve ficar abaixo do pool do Hikari
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(threads);
+        this.executor.setMaxPoolSize(threads);
+        this.executor.setQueueCapacity(fila);
+        this.executor.setThreadNamePrefix("resumo-");
+        this.executor.setTaskDecorator(ShardContexto::propagar);
+        this.executor.initialize();
+        this.tempoLimiteMs = tempoLimiteMs;
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+        // O timeout da transação também é aplicado às consultas JPA, encerrando as que passarem do limite
+        this.leitura.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(tempoLimiteMs + 999)));
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    public ResumoCidadaoDTO buscar(Long cidadaoId) {
+        CompletableFuture<CidadaoDTO> cidadao = executar(() -> cidadaoService.buscarPorId(cidadaoId));
+        CompletableFuture<List<MatriculaDTO>> matriculas = executar(() -> matriculaService.listarPorCidadao(cidadaoId));
+        CompletableFuture<List<SolicitacaoServicoDTO>> solicitacoes = executar(() -> solicitacaoService.listarPorCidadao(cidadaoId));
+        CompletableFuture<Long> naoLidas = executar(() -> notificacaoService.contarNaoLidas(cidadaoId));
+
+        long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(tempoLimiteMs);
+        List<String> indisponiveis = new ArrayList<>();
+        ResumoCidadaoDTO resumo = new ResumoCidadaoDTO();
+        resumo.setCidadao(aguardar("cidadao", cidadao, prazo, indisponiveis));
+        resumo.setMatriculas(aguardar("matriculas", matriculas, prazo, indisponiveis));
+        resumo.setSolicitacoes(aguardar("solicitacoes", solicitacoes, prazo, indisponiveis));
+        resumo.setNotificacoesNaoLidas(aguardar("notificacoesNaoLidas", naoLidas, prazo, indisponiveis));
+        resumo.setSecoesIndisponiveis(indisponiveis);
+        return resumo;
+    }
+
+    private <T> CompletableFuture<T> executar(Supplier<T> consulta) {
+        try {
+            return CompletableFuture.supplyAsync(() -> leitura.execute(status -> consulta.get()), executor);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T aguardar(String secao, CompletableFuture<T> futuro, long prazo, List<String> indisponiveis) {
+        try {
+            return futuro.get(Math.max(0, prazo - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            // Erros de domínio (ex.: cidadão inexistente) seguem para o tratamento padrão
+            if (e.getCause() instanceof CentralCidadaoException erro) {
+                throw erro;
+            }
+            log.warn("Seção {} do resumo indisponível", secao, e.getCause());
+        } catch (TimeoutException e) {
+            futuro.cancel(false);
+            log.warn("Seção {} do resumo excedeu {} ms", secao, tempoLimiteMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        indisponiveis.add(secao);
+        return null;
+    }
+}
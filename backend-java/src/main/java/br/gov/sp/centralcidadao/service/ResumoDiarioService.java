@@ -0,0 +1,31 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.repository.ResumoPendenteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResumoDiarioService {
+
+    private final ResumoPendenteRepository resumoPendenteRepository;
+    private final NotificacaoService notificacaoService;
+
+    @Scheduled(cron = "${notificacoes.resumo-diario.cron:0 0 19 * * *}")
+    public void enviarResumos() {
+        List<Long> cidadaos = resumoPendenteRepository.findCidadaosComPendencias();
+        for (Long cidadaoId : cidadaos) {
+            try {
+                notificacaoService.enviarResumo(cidadaoId);
+            } catch (RuntimeException e) {
+                log.warn("Falha ao enviar resumo diário do cidadão {}", cidadaoId, e);
+            }
+        }
+        log.info("Resumo diário enviado para {} cidadãos", cidadaos.size());
+    }
+}
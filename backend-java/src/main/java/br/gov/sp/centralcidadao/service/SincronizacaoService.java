@@ -0,0 +1,108 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.domain.CursorLeitura;
+import br.gov.sp.centralcidadao.domain.EntidadeSincronizacao;
+import br.gov.sp.centralcidadao.domain.RemocaoSincronizacao;
+import br.gov.sp.centralcidadao.dto.SincronizacaoDTO;
+import br.gov.sp.centralcidadao.exception.RegraNegocioException;
+import br.gov.sp.centralcidadao.repository.RemocaoSincronizacaoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Sincronização incremental do aplicativo: devolve só o que mudou nas matrículas,
+ * solicitações e notificações do cidadão desde o cursor anterior, mais os registros de
+ * remoção. As linhas trazem data_sincronizacao, preenchida pelo banco a cada gravação.
+ *
+ * O intervalo lido termina alguns segundos antes do relógio do banco (janela de
+ * consolidação): uma transação ainda aberta pode ter gravado com horário anterior ao
+ * do seu commit, e sem a folga ela ficaria para trás de um cursor já entregue.
+ */
+@Slf4j
+@Service
+public class SincronizacaoService {
+
+    // Desde o início: qualquer data_sincronizacao é posterior
+    private static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final MatriculaService matriculaService;
+    private final SolicitacaoServicoService solicitacaoService;
+    private final NotificacaoService notificacaoService;
+    private final RemocaoSincronizacaoRepository remocaoRepository;
+    private final Duration janelaConsolidacao;
+    private final Duration retencaoRemocoes;
+
+    public SincronizacaoService(MatriculaService matriculaService,
+                                SolicitacaoServicoService solicitacaoService,
+                                NotificacaoService notificacaoService,
+                                RemocaoSincronizacaoRepository remocaoRepository,
+                                @Value("${sincronizacao.janela-consolidacao-segundos:5}") long janelaConsolidacaoSegundos,
+                                @Value("${sincronizacao.remocoes.dias:90}") long diasRemocoes) {
+        this.matriculaService = matriculaService;
+        this.solicitacaoService = solicitacaoService;
+        this.notificacaoService = notificacaoService;
+        this.remocaoRepository = remocaoRepository;
+        this.janelaConsolidacao = Duration.ofSeconds(janelaConsolidacaoSegundos);
+        this.retencaoRemocoes = Duration.ofDays(diasRemocoes);
+    }
+
+    // Uma transação só leitura: todas as consultas veem o mesmo instante do banco
+    @Transactional(readOnly = true)
+    public SincronizacaoDTO sincronizar(Long cidadaoId, Long since) {
+        if (since != null && since < 0) {
+            throw new RegraNegocioException("Cursor de sincronização inválido: " + since);
+        }
+        LocalDateTime agora = remocaoRepository.agora();
+        LocalDateTime ate = agora.minus(janelaConsolidacao);
+        LocalDateTime desde = since != null ? paraData(since) : null;
+        // Sem cursor, ou com cursor mais antigo que as remoções guardadas: carga completa
+        boolean completa = desde == null || desde.isBefore(agora.minus(retencaoRemocoes));
+        if (completa) {
+            desde = INICIO;
+        }
+
+        CursorLeitura cursor = notificacaoService.cursor(cidadaoId);
+        SincronizacaoDTO dto = new SincronizacaoDTO();
+        dto.setCursor(paraCursor(ate));
+        dto.setCompleta(completa);
+        dto.setMatriculas(matriculaService.listarAlteradasPorCidadao(cidadaoId, desde, ate));
+        dto.setSolicitacoes(solicitacaoService.listarAlteradasPorCidadao(cidadaoId, desde, ate));
+        dto.setNotificacoes(notificacaoService.listarAlteradasPorCidadao(cidadaoId, cursor, desde, ate));
+        dto.setUltimaNotificacaoLida(cursor.getUltimaNotificacaoId());
+        dto.setUltimoComunicadoLido(cursor.getUltimoComunicadoId());
+        if (!completa) {
+            for (RemocaoSincronizacao remocao : remocaoRepository.findRegistradas(cidadaoId, desde, ate)) {
+                if (remocao.getEntidade() == EntidadeSincronizacao.SOLICITACAO) {
+                    dto.getSolicitacoesRemovidas().add(remocao.getRegistroId());
+                } else {
+                    dto.getNotificacoesRemovidas().add(remocao.getRegistroId());
+                }
+            }
+        }
+        return dto;
+    }
+
+    @Scheduled(cron = "${sincronizacao.remocoes.limpeza-cron:0 30 3 * * *}")
+    public void removerRemocoesAntigas() {
+        int removidas = remocaoRepository.removerAnteriores(remocaoRepository.agora().minus(retencaoRemocoes));
+        if (removidas > 0) {
+            log.debug("{} registros de remoção da sincronização expirados removidos", removidas);
+        }
+    }
+
+    // Cursor opaco para o aplicativo: o instante em microssegundos
+    private static long paraCursor(LocalDateTime data) {
+        return ChronoUnit.MICROS.between(INICIO, data);
+    }
+
+    private static LocalDateTime paraData(long cursor) {
+        return INICIO.plus(cursor, ChronoUnit.MICROS);
+    }
+}
@@ -1,68 +1,144 @@
 package br.gov.sp.centralcidadao.service;
 
 import br.gov.sp.centralcidadao.domain.*;
+import br.gov.sp.centralcidadao.dto.LoteDTO;
 import br.gov.sp.centralcidadao.dto.SolicitacaoServicoDTO;
+import br.gov.sp.centralcidadao.exception.ConflitoException;
+import br.gov.sp.centralcidadao.exception.RecursoNaoEncontradoException;
+import br.gov.sp.centralcidadao.exception.RegraNegocioException;
+import br.gov.sp.centralcidadao.monitoramento.MapeamentoDTO;
 import br.gov.sp.centralcidadao.repository.CidadaoRepository;
+import br.gov.sp.centralcidadao.repository.SolicitacaoServicoArquivadaRepository;
 import br.gov.sp.centralcidadao.repository.SolicitacaoServicoRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class SolicitacaoServicoService {
 
+    // Mesma ordem da consulta em cada shard, para intercalar os resultados
+    private static final Comparator<SolicitacaoServicoDTO> ORDEM_SOLICITACAO = Comparator
+            .comparing(SolicitacaoServicoDTO::getDataSolicitacao, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(SolicitacaoServicoDTO::getId);
+
     private final SolicitacaoServicoRepository solicitacaoRepository;
     private final CidadaoRepository cidadaoRepository;
     private final NotificacaoService notificacaoService;
+    private final DeduplicacaoSolicitacoes deduplicacao;
+    private final SolicitacaoServicoArquivadaRepository arquivoRepository;
+    private final ArmazenamentoFotos armazenamentoFotos;
+    private final ConsultaShards consultaShards;
+
+    @Value("${lote.max-itens:500}")
+    private int maxItensLote;
 
     public List<SolicitacaoServicoDTO> listarTodas() {
-        return solicitacaoRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return consultaShards.listar(() -> solicitacaoRepository.findAllByOrderByDataSolicitacaoAscIdAsc().stream()
+                .collect(MapeamentoDTO.converter(SolicitacaoServico.class, this::toDTO)), ORDEM_SOLICITACAO);
     }
 
     public SolicitacaoServicoDTO buscarPorId(Long id) {
         SolicitacaoServico solicitacao = solicitacaoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Solicitação não encontrada: " + id));
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Solicitação não encontrada", id));
         return toDTO(solicitacao);
     }
 
     public SolicitacaoServicoDTO buscarPorProtocolo(String protocolo) {
-        SolicitacaoServico solicitacao = solicitacaoRepository.findByProtocolo(protocolo)
-                .orElseThrow(() -> new RuntimeException("Solicitação não encontrada com protocolo: " + protocolo));
-        return toDTO(solicitacao);
+        Optional<SolicitacaoServico> solicitacao = solicitacaoRepository.findByProtocolo(protocolo);
+        if (solicitacao.isPresent()) {
+            return toDTO(solicitacao.get());
+        }
+        // Solicitações encerradas há muito tempo ficam na tabela de arquivo
+        SolicitacaoServicoArquivada arquivada = arquivoRepository.findByProtocolo(protocolo)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Solicitação não encontrada com protocolo", protocolo));
+        return toDTO(arquivada);
+    }
+
+    public LoteDTO<SolicitacaoServicoDTO> buscarEmLote(List<Long> ids, List<String> protocolos) {
+        if ((ids == null) == (protocolos == null)) {
+            throw new RegraNegocioException("Informe ids ou protocolos");
+        }
+        return ids != null ? buscarPorIds(ids) : buscarPorProtocolos(protocolos);
+    }
+
+    public LoteDTO<SolicitacaoServicoDTO> buscarPorIds(List<Long> ids) {
+        return BuscaEmLote.buscar(ids, maxItensLote,
+                bloco -> consultarLote(bloco, solicitacaoRepository::findComCidadaoByIdIn,
+                        arquivoRepository::findComCidadaoByIdIn, SolicitacaoServicoDTO::getId),
+                SolicitacaoServicoDTO::getId);
+    }
+
+    public LoteDTO<SolicitacaoServicoDTO> buscarPorProtocolos(List<String> protocolos) {
+        return BuscaEmLote.buscar(protocolos, maxItensLote,
+                bloco -> consultarLote(bloco, solicitacaoRepository::findComCidadaoByProtocoloIn,
+                        arquivoRepository::findComCidadaoByProtocoloIn, SolicitacaoServicoDTO::getProtocolo),
+                SolicitacaoServicoDTO::getProtocolo);
+    }
+
+    // Chaves ausentes na tabela principal são procuradas na tabela de arquivo
+    private <K> List<SolicitacaoServicoDTO> consultarLote(List<K> bloco,
+                                                          Function<List<K>, List<SolicitacaoServico>> principal,
+                                                          Function<List<K>, List<SolicitacaoServicoArquivada>> arquivo,
+                                                          Function<SolicitacaoServicoDTO, K> chaveDe) {
+        List<SolicitacaoServicoDTO> encontradas = principal.apply(bloco).stream()
+                .map(this::toDTO)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (encontradas.size() < bloco.size()) {
+            Set<K> achadas = encontradas.stream().map(chaveDe).collect(Collectors.toSet());
+            List<K> restantes = bloco.stream().filter(chave -> !achadas.contains(chave)).toList();
+            arquivo.apply(restantes).forEach(arquivada -> encontradas.add(toDTO(arquivada)));
+        }
+        return encontradas;
     }
 
     public List<SolicitacaoServicoDTO> listarPorCidadao(Long cidadaoId) {
         return solicitacaoRepository.findByCidadaoIdOrderByDataSolicitacaoDesc(cidadaoId).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(MapeamentoDTO.converter(SolicitacaoServico.class, this::toDTO));
+    }
+
+    // Sincronização incremental: solicitações do cidadão gravadas no intervalo (desde, ate]
+    public List<SolicitacaoServicoDTO> listarAlteradasPorCidadao(Long cidadaoId, LocalDateTime desde, LocalDateTime ate) {
+        return solicitacaoRepository.findAlteradas(cidadaoId, desde, ate).stream()
+                .collect(MapeamentoDTO.converter(SolicitacaoServico.class, this::toDTO));
     }
 
     public List<SolicitacaoServicoDTO> listarPorTipo(TipoServico tipo) {
         return solicitacaoRepository.findByTipoServico(tipo).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(MapeamentoDTO.converter(SolicitacaoServico.class, this::toDTO));
     }
 
     public List<SolicitacaoServicoDTO> listarPorStatus(StatusSolicitacao status) {
         return solicitacaoRepository.findByStatus(status).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(MapeamentoDTO.converter(SolicitacaoServico.class, this::toDTO));
+    }
+
+    public List<SolicitacaoServicoDTO> listarDuplicadas(Long id) {
+        return solicitacaoRepository.findBySolicitacaoPrincipalId(id).stream()
+                .collect(MapeamentoDTO.converter(SolicitacaoServico.class, this::toDTO));
     }
 
     @Transactional
     public SolicitacaoServicoDTO criar(SolicitacaoServicoDTO dto) {
-        Cidadao cidadao = cidadaoRepository.findById(dto.getCidadaoId())
-                .orElseThrow(() -> new RuntimeException("Cidadão não encontrado: " + dto.getCidadaoId()));
+        Long cidadaoId = dto.getCidadaoId();
 
         SolicitacaoServico solicitacao = new SolicitacaoServico();
-        solicitacao.setCidadao(cidadao);
+        solicitacao.setCidadao(cidadaoRepository.getReferenceById(cidadaoId));
         solicitacao.setTipoServico(dto.getTipoServico());
         solicitacao.setDescricao(dto.getDescricao());
         solicitacao.setEndereco(dto.getEndereco());
@@ -74,36 +150,76 @@ public class SolicitacaoServicoService {
         solicitacao.setStatus(StatusSolicitacao.ABERTA);
         solicitacao.setPrioridade(dto.getPrioridade() != null ? dto.getPrioridade() : Prioridade.MEDIA);
 
-        solicitacao = solicitacaoRepository.save(solicitacao);
+        // Vincular a uma solicitação aberta equivalente, se houver
+        Optional<Long> principalId = deduplicacao.encontrarPrincipal(solicitacao);
+        if (principalId.isPresent()) {
+            solicitacao.setSolicitacaoPrincipal(solicitacaoRepository.getReferenceById(principalId.get()));
+        }
+
+        try {
+            solicitacao = solicitacaoRepository.save(solicitacao);
+        } catch (DataIntegrityViolationException e) {
+            throw ChavesEstrangeiras.traduzir(e, "cidadaos", "Cidadão não encontrado", cidadaoId);
+        }
+
+        if (principalId.isPresent()) {
+            notificacaoService.notificarNovoProtocolo(
+                    cidadaoId,
+                    solicitacao.getProtocolo(),
+                    "Solicitação Registrada",
+                    "Sua solicitação de " + dto.getTipoServico().getDescricao() + " foi registrada com protocolo " +
+                        solicitacao.getProtocolo() + ". Este problema já havia sido informado por outro cidadão " +
+                        "e você será avisado quando ele for resolvido.",
+                    TipoNotificacao.SUCESSO
+            );
+            return toDTO(solicitacao, false);
+        }
+        // Só entra no índice de duplicidade após o commit; num rollback não haveria principal para vincular
+        SolicitacaoServico registrada = solicitacao;
+        aposCommit(() -> deduplicacao.registrar(registrada));
 
         // Criar notificação
-        notificacaoService.criarNotificacao(
-                cidadao.getId(),
+        notificacaoService.notificarNovoProtocolo(
+                cidadaoId,
+                solicitacao.getProtocolo(),
                 "Solicitação Registrada",
                 "Sua solicitação de " + dto.getTipoServico().getDescricao() + 
                     " foi registrada com protocolo " + solicitacao.getProtocolo(),
                 TipoNotificacao.SUCESSO
         );
 
-        return toDTO(solicitacao);
+        return toDTO(solicitacao, false);
     }
 
     @Transactional
     public SolicitacaoServicoDTO atualizarStatus(Long id, StatusSolicitacao novoStatus) {
-        SolicitacaoServico solicitacao = solicitacaoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Solicitação não encontrada: " + id));
+        SolicitacaoServico solicitacao = solicitacaoRepository.findComCidadaoById(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Solicitação não encontrada", id));
 
-        solicitacao.setStatus(novoStatus);
+        StatusSolicitacao statusAnterior = solicitacao.getStatus();
+        validarTransicao(id, statusAnterior, novoStatus);
+
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime dataConclusao = novoStatus == StatusSolicitacao.CONCLUIDA ? agora : solicitacao.getDataConclusao();
 
-        if (novoStatus == StatusSolicitacao.CONCLUIDA) {
-            solicitacao.setDataConclusao(LocalDateTime.now());
+        // Grava só se ninguém mudou o status depois da leitura; a entidade fica desanexada a partir daqui
+        if (solicitacaoRepository.alterarStatus(id, statusAnterior, novoStatus, dataConclusao, agora) == 0) {
+            throw new ConflitoException("Solicitação alterada por outra operação, tente novamente: " + id);
         }
+        solicitacao.setStatus(novoStatus);
+        solicitacao.setDataConclusao(dataConclusao);
+        solicitacao.setVersao(solicitacao.getVersao() + 1);
+        solicitacao.setDataAtualizacao(agora);
 
-        solicitacao = solicitacaoRepository.save(solicitacao);
+        if (novoStatus.isFinal()) {
+            aposCommit(() -> deduplicacao.remover(id));
+            encerrarDuplicadas(solicitacao);
+        }
 
         // Criar notificação
-        notificacaoService.criarNotificacao(
+        notificacaoService.notificarAtualizacao(
                 solicitacao.getCidadao().getId(),
+                solicitacao.getProtocolo(),
                 "Status da Solicitação Atualizado",
                 "Sua solicitação " + solicitacao.getProtocolo() + " foi atualizada para: " + novoStatus.getDescricao(),
                 TipoNotificacao.INFO
@@ -112,7 +228,76 @@ public class SolicitacaoServicoService {
         return toDTO(solicitacao);
     }
 
-    private SolicitacaoServicoDTO toDTO(SolicitacaoServico solicitacao) {
+    @Transactional
+    public SolicitacaoServicoDTO anexarFoto(Long id, MultipartFile arquivo) {
+        SolicitacaoServico solicitacao = solicitacaoRepository.findComCidadaoById(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Solicitação não encontrada", id));
+
+        String anterior = armazenamentoFotos.nomeDaUrl(id, solicitacao.getFotoUrl());
+        String nome = armazenamentoFotos.gravar(id, arquivo);
+        solicitacao.setFotoUrl(ArmazenamentoFotos.url(id, nome));
+        solicitacaoRepository.save(solicitacao);
+
+        // Miniatura e remoção da foto anterior só após o commit; se a transação falhar, a nova é descartada
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    armazenamentoFotos.remover(id, nome);
+                    return;
+                }
+                armazenamentoFotos.gerarMiniatura(id, nome);
+                if (anterior != null) {
+                    armazenamentoFotos.remover(id, anterior);
+                }
+            }
+        });
+
+        return toDTO(solicitacao);
+    }
+
+    // Repetir o status atual é conflito (pedido duplicado); os demais saltos fora da tabela são regra de negócio
+    private void validarTransicao(Long id, StatusSolicitacao atual, StatusSolicitacao novo) {
+        if (atual == novo) {
+            throw new ConflitoException("Solicitação já está com status " + novo.getDescricao() + ": " + id);
+        }
+        if (!atual.podeMudarPara(novo)) {
+            throw new RegraNegocioException("Transição de status inválida para a solicitação " + id + ": " +
+                    atual.getDescricao() + " → " + novo.getDescricao());
+        }
+    }
+
+    // Replica o encerramento da solicitação principal para as duplicatas e avisa cada cidadão
+    private void encerrarDuplicadas(SolicitacaoServico principal) {
+        for (SolicitacaoServico duplicada : solicitacaoRepository.findBySolicitacaoPrincipalId(principal.getId())) {
+            if (!duplicada.getStatus().podeMudarPara(principal.getStatus())) {
+                continue;
+            }
+            duplicada.setStatus(principal.getStatus());
+            duplicada.setDataConclusao(principal.getDataConclusao());
+            solicitacaoRepository.save(duplicada);
+
+            notificacaoService.notificarAtualizacao(
+                    duplicada.getCidadao().getId(),
+                    duplicada.getProtocolo(),
+                    "Status da Solicitação Atualizado",
+                    "Sua solicitação " + duplicada.getProtocolo() + " foi atualizada para: " +
+                        principal.getStatus().getDescricao(),
+                    TipoNotificacao.INFO
+            );
+        }
+    }
+
+    private static void aposCommit(Runnable acao) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    private SolicitacaoServicoDTO toDTO(SolicitacaoServicoArquivada solicitacao) {
         SolicitacaoServicoDTO dto = new SolicitacaoServicoDTO();
         dto.setId(solicitacao.getId());
         dto.setProtocolo(solicitacao.getProtocolo());
@@ -131,6 +316,42 @@ public class SolicitacaoServicoService {
         dto.setStatusDescricao(solicitacao.getStatus().getDescricao());
         dto.setPrioridade(solicitacao.getPrioridade());
         dto.setPrioridadeDescricao(solicitacao.getPrioridade().getDescricao());
+        dto.setSolicitacaoPrincipalId(solicitacao.getSolicitacaoPrincipalId());
+        dto.setDataSolicitacao(solicitacao.getDataSolicitacao());
+        dto.setDataAtualizacao(solicitacao.getDataAtualizacao());
+        dto.setDataConclusao(solicitacao.getDataConclusao());
+        return dto;
+    }
+
+    private SolicitacaoServicoDTO toDTO(SolicitacaoServico solicitacao) {
+        return toDTO(solicitacao, true);
+    }
+
+    // Na criação o cidadão é só uma referência: o nome ficaria em uma consulta extra
+    private SolicitacaoServicoDTO toDTO(SolicitacaoServico solicitacao, boolean incluirNomeCidadao) {
+        SolicitacaoServicoDTO dto = new SolicitacaoServicoDTO();
+        dto.setId(solicitacao.getId());
+        dto.setProtocolo(solicitacao.getProtocolo());
+        dto.setCidadaoId(solicitacao.getCidadao().getId());
+        if (incluirNomeCidadao) {
+            dto.setCidadaoNome(solicitacao.getCidadao().getNome());
+        }
+        dto.setTipoServico(solicitacao.getTipoServico());
+        dto.setTipoServicoDescricao(solicitacao.getTipoServico().getDescricao());
+        dto.setDescricao(solicitacao.getDescricao());
+        dto.setEndereco(solicitacao.getEndereco());
+        dto.setBairro(solicitacao.getBairro());
+        dto.setPontoReferencia(solicitacao.getPontoReferencia());
+        dto.setLatitude(solicitacao.getLatitude());
+        dto.setLongitude(solicitacao.getLongitude());
+        dto.setFotoUrl(solicitacao.getFotoUrl());
+        dto.setStatus(solicitacao.getStatus());
+        dto.setStatusDescricao(solicitacao.getStatus().getDescricao());
+        dto.setPrioridade(solicitacao.getPrioridade());
+        dto.setPrioridadeDescricao(solicitacao.getPrioridade().getDescricao());
+        if (solicitacao.getSolicitacaoPrincipal() != null) {
+            dto.setSolicitacaoPrincipalId(solicitacao.getSolicitacaoPrincipal().getId());
+        }
         dto.setDataSolicitacao(solicitacao.getDataSolicitacao());
         dto.setDataAtualizacao(solicitacao.getDataAtualizacao());
         dto.setDataConclusao(solicitacao.getDataConclusao());
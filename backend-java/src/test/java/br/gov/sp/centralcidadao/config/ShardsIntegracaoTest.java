@@ -0,0 +1,192 @@
+package br.gov.sp.centralcidadao.config;
+
+import br.gov.sp.centralcidadao.filter.ShardFilter;
+import br.gov.sp.centralcidadao.service.ConsultaShards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Roteamento por município sobre dois bancos H2 em memória, no lugar dos MySQL de cada shard:
+ * filtro, DataSource de roteamento e listagem em todos os shards.
+ */
+class ShardsIntegracaoTest {
+
+    private String urlPrincipal;
+    private String urlCapital;
+    private ShardsConfig.RoteamentoShards roteamento;
+    private JdbcTemplate jdbc;
+    private ShardsProperties shards;
+    private ConsultaShards consultaShards;
+
+    @BeforeEach
+    void criarShards() {
+        String sufixo = UUID.randomUUID().toString();
+        urlPrincipal = "jdbc:h2:mem:principal-" + sufixo + ";DB_CLOSE_DELAY=-1";
+        urlCapital = "jdbc:h2:mem:capital-" + sufixo + ";DB_CLOSE_DELAY=-1";
+
+        shards = new ShardsProperties();
+        shards.setHabilitado(true);
+        ShardsProperties.Base capital = new ShardsProperties.Base();
+        capital.setUrl(urlCapital);
+        capital.setUsuario("sa");
+        capital.setSenha("");
+        shards.getBases().put("capital", capital);
+        shards.getMunicipios().put("São Paulo", "capital");
+
+        DataSourceProperties principal = new DataSourceProperties();
+        principal.setUrl(urlPrincipal);
+        principal.setUsername("sa");
+        principal.setPassword("");
+
+        roteamento = (ShardsConfig.RoteamentoShards) new ShardsConfig().dataSource(principal, shards);
+        roteamento.afterPropertiesSet();
+        jdbc = new JdbcTemplate(roteamento);
+        for (String shard : shards.nomes()) {
+            ShardContexto.executarEm(shard, () -> {
+                jdbc.execute("CREATE TABLE escolas (id BIGINT PRIMARY KEY, nome VARCHAR(100))");
+                return null;
+            });
+        }
+        consultaShards = new ConsultaShards(shards, new DataSourceTransactionManager(roteamento));
+    }
+
+    @AfterEach
+    void encerrar() {
+        ShardContexto.limpar();
+        consultaShards.encerrar();
+        roteamento.close();
+    }
+
+    @Test
+    void gravacaoVaiParaOShardDoMunicipio() throws Exception {
+        MockHttpServletRequest request = requisicao("POST", "/api/escolas");
+        request.addHeader(ShardFilter.HEADER_MUNICIPIO, "SAO PAULO");
+
+        MockHttpServletResponse response = filtrar(request, () ->
+                jdbc.update("INSERT INTO escolas (id, nome) VALUES (1, 'EMEF Centro')"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(contar(urlCapital)).isEqualTo(1);
+        assertThat(contar(urlPrincipal)).isZero();
+    }
+
+    @Test
+    void municipioForaDoMapaVaiParaOShardPadrao() throws Exception {
+        MockHttpServletRequest request = requisicao("POST", "/api/escolas");
+        request.setParameter("municipio", "Campinas");
+
+        filtrar(request, () -> jdbc.update("INSERT INTO escolas (id, nome) VALUES (1, 'EMEF Campinas')"));
+
+        assertThat(contar(urlPrincipal)).isEqualTo(1);
+        assertThat(contar(urlCapital)).isZero();
+    }
+
+    @Test
+    void mesmoIdEmShardsDiferentesNaoSeMistura() {
+        inserir("principal", 1, "EMEF Campinas");
+        inserir("capital", 1, "EMEF Centro");
+
+        assertThat(ShardContexto.executarEm("principal", () -> nome(1))).isEqualTo("EMEF Campinas");
+        assertThat(ShardContexto.executarEm("capital", () -> nome(1))).isEqualTo("EMEF Centro");
+    }
+
+    @Test
+    void requisicaoSemMunicipioERecusada() throws Exception {
+        AtomicReference<Boolean> chamou = new AtomicReference<>(false);
+
+        MockHttpServletResponse response = filtrar(requisicao("POST", "/api/matriculas"), () -> chamou.set(true));
+
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(response.getContentAsString()).contains(ShardFilter.HEADER_MUNICIPIO);
+        assertThat(chamou.get()).isFalse();
+    }
+
+    @Test
+    void listagemGeralSemMunicipioConsultaTodosOsShardsEmOrdem() throws Exception {
+        inserir("principal", 1, "A");
+        inserir("principal", 4, "D");
+        inserir("principal", 5, "E");
+        inserir("capital", 2, "B");
+        inserir("capital", 3, "C");
+
+        AtomicReference<List<Long>> ids = new AtomicReference<>();
+        MockHttpServletResponse response = filtrar(requisicao("GET", "/api/escolas"), () ->
+                ids.set(consultaShards.listar(this::listarIds, Comparator.naturalOrder())));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(ids.get()).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void listagemComMunicipioConsultaSoOShardDele() throws Exception {
+        inserir("principal", 1, "A");
+        inserir("capital", 2, "B");
+        MockHttpServletRequest request = requisicao("GET", "/api/escolas");
+        request.addHeader(ShardFilter.HEADER_MUNICIPIO, "São Paulo");
+
+        AtomicReference<List<Long>> ids = new AtomicReference<>();
+        filtrar(request, () -> ids.set(consultaShards.listar(this::listarIds, Comparator.naturalOrder())));
+
+        assertThat(ids.get()).containsExactly(2L);
+    }
+
+    @Test
+    void shardDesconhecidoNaoCaiNoPadrao() {
+        assertThatThrownBy(() -> ShardContexto.executarEm("interior", () -> nome(1)))
+                .isInstanceOf(CannotGetJdbcConnectionException.class)
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+    }
+
+    private MockHttpServletResponse filtrar(MockHttpServletRequest request, Runnable acao) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        ShardFilter filter = new ShardFilter(shards, objectMapper);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> acao.run();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest requisicao(String metodo, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, uri);
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+
+    private void inserir(String shard, long id, String nome) {
+        ShardContexto.executarEm(shard, () -> jdbc.update("INSERT INTO escolas (id, nome) VALUES (?, ?)", id, nome));
+    }
+
+    private String nome(long id) {
+        return jdbc.queryForObject("SELECT nome FROM escolas WHERE id = ?", String.class, id);
+    }
+
+    private List<Long> listarIds() {
+        return jdbc.queryForList("SELECT id FROM escolas ORDER BY id", Long.class);
+    }
+
+    // Conexão direta no banco, sem passar pelo roteamento
+    private static int contar(String url) {
+        Integer total = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""))
+                .queryForObject("SELECT COUNT(*) FROM escolas", Integer.class);
+        return total != null ? total : 0;
+    }
+}
@@ -0,0 +1,93 @@
+package br.gov.sp.centralcidadao.exception;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caminho de um recurso não encontrado (e de um cadastro duplicado), do lançamento até o corpo
+ * do erro: a RuntimeException com stack trace e o HashMap do handler antigo contra as exceções
+ * sem stack trace e o ErroResposta do {@link GlobalExceptionHandler}. A profundidade simula os
+ * frames entre o repositório e o handler; uma requisição do Spring MVC passa de uma centena.
+ * <p>
+ * Execução: {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ExcecoesBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExcecoesBenchmark {
+
+    @Param({"20", "120"})
+    private int profundidade;
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private long id;
+
+    @Benchmark
+    public Object naoEncontradoAntes() {
+        long atual = ++id;
+        try {
+            lancar(profundidade, () -> new RuntimeException("Cidadão não encontrado com ID: " + atual));
+            return null;
+        } catch (RuntimeException e) {
+            return corpoAntigo(e);
+        }
+    }
+
+    @Benchmark
+    public Object naoEncontradoDepois() {
+        long atual = ++id;
+        try {
+            lancar(profundidade, () -> new RecursoNaoEncontradoException("Cidadão não encontrado", atual));
+            return null;
+        } catch (RecursoNaoEncontradoException e) {
+            return handler.handleNaoEncontrado(e);
+        }
+    }
+
+    @Benchmark
+    public Object conflitoAntes() {
+        long atual = ++id;
+        try {
+            lancar(profundidade, () -> new RuntimeException("CPF já cadastrado: " + atual));
+            return null;
+        } catch (RuntimeException e) {
+            return corpoAntigo(e);
+        }
+    }
+
+    @Benchmark
+    public Object conflitoDepois() {
+        long atual = ++id;
+        try {
+            lancar(profundidade, () -> new ConflitoException("CPF já cadastrado: " + atual));
+            return null;
+        } catch (ConflitoException e) {
+            return handler.handleConflito(e);
+        }
+    }
+
+    private static void lancar(int profundidade, Supplier<RuntimeException> excecao) {
+        if (profundidade == 0) {
+            throw excecao.get();
+        }
+        lancar(profundidade - 1, excecao);
+    }
+
+    // Corpo montado pelo handler de RuntimeException antes das exceções tipadas
+    private static Map<String, Object> corpoAntigo(RuntimeException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", 400);
+        body.put("error", "Erro na requisição");
+        body.put("message", ex.getMessage());
+        return body;
+    }
+}
@@ -0,0 +1,63 @@
+package br.gov.sp.centralcidadao.filter;
+
+import br.gov.sp.centralcidadao.service.IdempotenciaService;
+import br.gov.sp.centralcidadao.service.IdempotenciaService.Reserva;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Escopo da chave de idempotência, com o serviço simulado: só interessa a chave que o filtro calcula.
+ */
+class IdempotenciaFilterTest {
+
+    private final IdempotenciaService idempotenciaService = mock(IdempotenciaService.class);
+    private final IdempotenciaFilter filter = new IdempotenciaFilter(idempotenciaService, new ObjectMapper());
+
+    @Test
+    void mesmaChaveDeIpsDiferentesNaoSeConfunde() throws Exception {
+        List<String> chaves = chavesReservadas(
+                requisicao("10.0.0.1", null), requisicao("10.0.0.2", null), requisicao("10.0.0.1", null));
+
+        assertThat(chaves.get(0)).isNotEqualTo(chaves.get(1));
+        assertThat(chaves.get(0)).isEqualTo(chaves.get(2));
+    }
+
+    @Test
+    void mesmaChaveDeUsuariosDiferentesNoMesmoIpNaoSeConfunde() throws Exception {
+        List<String> chaves = chavesReservadas(requisicao("10.0.0.1", "maria"), requisicao("10.0.0.1", "joao"));
+
+        assertThat(chaves.get(0)).isNotEqualTo(chaves.get(1));
+    }
+
+    private List<String> chavesReservadas(MockHttpServletRequest... requisicoes) throws Exception {
+        when(idempotenciaService.reservar(anyString(), anyString())).thenReturn(
+                new Reserva(Reserva.Situacao.PROCESSAR, null));
+        for (MockHttpServletRequest requisicao : requisicoes) {
+            filter.doFilter(requisicao, new MockHttpServletResponse(), new MockFilterChain());
+        }
+        ArgumentCaptor<String> chave = ArgumentCaptor.forClass(String.class);
+        verify(idempotenciaService, times(requisicoes.length)).reservar(chave.capture(), anyString());
+        return chave.getAllValues();
+    }
+
+    private static MockHttpServletRequest requisicao(String ip, String usuario) {
+        MockHttpServletRequest requisicao = new MockHttpServletRequest("POST", "/api/solicitacoes");
+        requisicao.setRemoteAddr(ip);
+        requisicao.setRemoteUser(usuario);
+        requisicao.addHeader(IdempotenciaFilter.HEADER_CHAVE, "pedido-1");
+        requisicao.setContentType("application/json");
+        requisicao.setContent("{}".getBytes(StandardCharsets.UTF_8));
+        return requisicao;
+    }
+}
@@ -0,0 +1,79 @@
+package br.gov.sp.centralcidadao.filter;
+
+import br.gov.sp.centralcidadao.config.LimiteRequisicoesProperties;
+import br.gov.sp.centralcidadao.config.LimiteRequisicoesProperties.Rota;
+import br.gov.sp.centralcidadao.config.LimiteRequisicoesProperties.TipoChave;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do {@link LimiteRequisicoesFilter} por requisição aceita, comparado a chamar a cadeia
+ * direto. As requisições vêm de 1024 IPs, cada um com o próprio balde, e o limite nunca é atingido.
+ * <p>
+ * Execução: {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=LimiteRequisicoesBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LimiteRequisicoesBenchmark {
+
+    private LimiteRequisicoesFilter filter;
+    private MockHttpServletRequest[] requisicoes;
+    private int proxima;
+
+    @Setup
+    public void criar() {
+        Rota rota = new Rota();
+        rota.setNome("benchmark");
+        rota.setPadrao("/api/**");
+        rota.setChave(TipoChave.IP);
+        rota.setLimite(1_000_000_000);
+        rota.setPeriodoSegundos(1);
+        rota.setRajada(1_000);
+
+        LimiteRequisicoesProperties properties = new LimiteRequisicoesProperties();
+        properties.setRotas(List.of(rota));
+        filter = new LimiteRequisicoesFilter(properties, new ObjectMapper());
+
+        requisicoes = new MockHttpServletRequest[1024];
+        for (int i = 0; i < requisicoes.length; i++) {
+            requisicoes[i] = new MockHttpServletRequest("GET", "/api/escolas");
+            requisicoes[i].setRemoteAddr("10.0." + (i / 256) + "." + (i % 256));
+        }
+    }
+
+    @TearDown
+    public void encerrar() {
+        filter.encerrar();
+    }
+
+    @Benchmark
+    public Object semFiltro() throws Exception {
+        MockHttpServletResponse resposta = new MockHttpServletResponse();
+        new MockFilterChain().doFilter(proximaRequisicao(), resposta);
+        return resposta;
+    }
+
+    @Benchmark
+    public Object comFiltro() throws Exception {
+        MockHttpServletResponse resposta = new MockHttpServletResponse();
+        filter.doFilter(proximaRequisicao(), resposta, new MockFilterChain());
+        return resposta;
+    }
+
+    private MockHttpServletRequest proximaRequisicao() {
+        MockHttpServletRequest requisicao = requisicoes[proxima++ & (requisicoes.length - 1)];
+        // O OncePerRequestFilter marca a requisição como já filtrada
+        requisicao.clearAttributes();
+        return requisicao;
+    }
+}
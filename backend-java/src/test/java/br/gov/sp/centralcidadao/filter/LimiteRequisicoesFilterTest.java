@@ -0,0 +1,94 @@
+package br.gov.sp.centralcidadao.filter;
+
+import br.gov.sp.centralcidadao.config.LimiteRequisicoesProperties;
+import br.gov.sp.centralcidadao.config.LimiteRequisicoesProperties.Rota;
+import br.gov.sp.centralcidadao.config.LimiteRequisicoesProperties.TipoChave;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LimiteRequisicoesFilterTest {
+
+    private LimiteRequisicoesFilter filter;
+
+    @AfterEach
+    void encerrar() {
+        if (filter != null) {
+            filter.encerrar();
+        }
+    }
+
+    @Test
+    void trocarIdDoCidadaoNaUrlNaoRenovaOBalde() throws Exception {
+        filter = criar(100_000, TipoChave.CIDADAO, 1, 1);
+
+        assertThat(requisitar("/api/notificacoes/cidadao/1", "10.0.0.1").getStatus()).isEqualTo(200);
+        MockHttpServletResponse segunda = requisitar("/api/notificacoes/cidadao/2", "10.0.0.1");
+
+        assertThat(segunda.getStatus()).isEqualTo(429);
+        assertThat(segunda.getHeader(HttpHeaders.RETRY_AFTER)).isNotBlank();
+    }
+
+    @Test
+    void usuarioAutenticadoTemBaldeProprio() throws Exception {
+        filter = criar(100_000, TipoChave.CIDADAO, 1, 1);
+
+        MockHttpServletRequest maria = requisicao("/api/notificacoes/cidadao/1", "10.0.0.1");
+        maria.setRemoteUser("maria");
+        MockHttpServletRequest joao = requisicao("/api/notificacoes/cidadao/2", "10.0.0.1");
+        joao.setRemoteUser("joao");
+
+        assertThat(executar(maria).getStatus()).isEqualTo(200);
+        assertThat(executar(joao).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void mapaCheioUsaBaldeCompartilhadoEmVezDeLiberar() throws Exception {
+        filter = criar(1, TipoChave.IP, 1, 1);
+
+        assertThat(requisitar("/api/escolas", "10.0.0.1").getStatus()).isEqualTo(200);
+        // Sem espaço para novos baldes: os IPs seguintes dividem o balde da rota
+        assertThat(requisitar("/api/escolas", "10.0.0.2").getStatus()).isEqualTo(200);
+        assertThat(requisitar("/api/escolas", "10.0.0.3").getStatus()).isEqualTo(429);
+    }
+
+    private MockHttpServletResponse requisitar(String caminho, String ip) throws Exception {
+        return executar(requisicao(caminho, ip));
+    }
+
+    private MockHttpServletResponse executar(MockHttpServletRequest requisicao) throws Exception {
+        MockHttpServletResponse resposta = new MockHttpServletResponse();
+        filter.doFilter(requisicao, resposta, new MockFilterChain());
+        return resposta;
+    }
+
+    private static MockHttpServletRequest requisicao(String caminho, String ip) {
+        MockHttpServletRequest requisicao = new MockHttpServletRequest("GET", caminho);
+        requisicao.setRemoteAddr(ip);
+        return requisicao;
+    }
+
+    private static LimiteRequisicoesFilter criar(int maxBaldes, TipoChave chave, int limite, int rajada) {
+        Rota rota = new Rota();
+        rota.setNome("teste");
+        rota.setPadrao("/api/**");
+        rota.setChave(chave);
+        rota.setLimite(limite);
+        rota.setPeriodoSegundos(limite == 1 ? 3600 : 1);
+        rota.setRajada(rajada);
+
+        LimiteRequisicoesProperties properties = new LimiteRequisicoesProperties();
+        properties.setMaxBaldes(maxBaldes);
+        properties.setRotas(List.of(rota));
+        return new LimiteRequisicoesFilter(properties, new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+}
@@ -0,0 +1,53 @@
+package br.gov.sp.centralcidadao.monitoramento;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Comandos SQL preparados pelo Hibernate na thread atual, entre iniciar() e encerrar().
+ * Comandos iguais (o mesmo texto, com parâmetros diferentes) são contados juntos: o mesmo
+ * SELECT repetido a cada linha do resultado é a assinatura de um N+1.
+ */
+public final class ContagemConsultas {
+
+    private static final ThreadLocal<ContagemConsultas> ATUAL = new ThreadLocal<>();
+
+    private final Map<String, Integer> porComando = new HashMap<>();
+    private int total;
+
+    private ContagemConsultas() {
+    }
+
+    public static ContagemConsultas iniciar() {
+        ContagemConsultas contagem = new ContagemConsultas();
+        ATUAL.set(contagem);
+        return contagem;
+    }
+
+    public static void encerrar() {
+        ATUAL.remove();
+    }
+
+    static void registrar(String sql) {
+        ContagemConsultas contagem = ATUAL.get();
+        if (contagem != null) {
+            contagem.total++;
+            contagem.porComando.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    // Comando executado mais vezes, ou null sem nenhum comando
+    public Map.Entry<String, Integer> maisRepetido() {
+        Map.Entry<String, Integer> maior = null;
+        for (Map.Entry<String, Integer> comando : porComando.entrySet()) {
+            if (maior == null || comando.getValue() > maior.getValue()) {
+                maior = comando;
+            }
+        }
+        return maior;
+    }
+}
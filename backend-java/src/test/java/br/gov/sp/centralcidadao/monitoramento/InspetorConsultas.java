@@ -0,0 +1,16 @@
+package br.gov.sp.centralcidadao.monitoramento;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Registrado em hibernate.session_factory.statement_inspector: o Hibernate cria a instância
+ * e a chama a cada comando preparado. Sem contagem ativa na thread não faz nada.
+ */
+public class InspetorConsultas implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        ContagemConsultas.registrar(sql);
+        return sql;
+    }
+}
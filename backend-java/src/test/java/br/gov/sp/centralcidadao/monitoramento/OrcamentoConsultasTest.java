@@ -0,0 +1,365 @@
+package br.gov.sp.centralcidadao.monitoramento;
+
+import br.gov.sp.centralcidadao.domain.*;
+import br.gov.sp.centralcidadao.repository.*;
+import br.gov.sp.centralcidadao.service.IndiceEscolasProximas;
+import br.gov.sp.centralcidadao.service.IndiceNomesCidadaos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Orçamento de comandos SQL por endpoint, contado pelo {@link InspetorConsultas}.
+ * A API sobe sobre um H2 em memória (perfil teste) e cada endpoint é chamado duas vezes:
+ * com poucos registros e depois de multiplicar os dados. O teste falha quando a contagem
+ * cresce com o resultado, passa do orçamento declarado ou repete o mesmo comando além de
+ * {@link #REPETICOES_MAXIMAS} vezes (a assinatura de um N+1). As gravações agem a cada
+ * chamada sobre um registro novo.
+ * <p>
+ * Todo endpoint da API tem um orçamento ou está em {@link #FORA_DO_ORCAMENTO} com o motivo;
+ * um segundo teste compara as duas listas com os mapeamentos dos controllers.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("teste")
+class OrcamentoConsultasTest {
+
+    private static final int POUCOS = 2;
+    private static final int MUITOS = 20;
+    private static final int REPETICOES_MAXIMAS = 5;
+    private static final byte[] FOTO = png();
+
+    // Endpoints sem orçamento e o motivo; um endpoint novo precisa entrar aqui ou em orcamentos()
+    private static final Map<String, String> FORA_DO_ORCAMENTO = Map.ofEntries(
+            Map.entry("GET /api/cidadaos/{id}/resumo",
+                    "as seções são consultadas em paralelo no pool do resumo, fora da thread contada"),
+            Map.entry("GET /api/exportacoes/solicitacoes",
+                    "o corpo é gravado em streaming por outra thread, depois que o controller retorna"),
+            Map.entry("GET /api/exportacoes/matriculas",
+                    "o corpo é gravado em streaming por outra thread, depois que o controller retorna"),
+            Map.entry("GET /api/solicitacoes/{id}/fotos/{arquivo}", "lê o arquivo do disco, sem acessar o banco"),
+            Map.entry("GET /api/solicitacoes/{id}/fotos/{arquivo}/miniatura", "lê o arquivo do disco, sem acessar o banco"),
+            Map.entry("GET /api/admin/jfr", "gravação JFR da JVM, sem acessar o banco"),
+            Map.entry("POST /api/admin/jfr/iniciar", "gravação JFR da JVM, sem acessar o banco"),
+            Map.entry("POST /api/admin/jfr/parar", "gravação JFR da JVM, sem acessar o banco"),
+            Map.entry("POST /api/admin/jfr/dump", "gravação JFR da JVM, sem acessar o banco"),
+            Map.entry("GET /api/admin/jfr/arquivos/{arquivo}", "gravação JFR da JVM, sem acessar o banco"));
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+    @Autowired
+    private CidadaoRepository cidadaoRepository;
+    @Autowired
+    private EscolaRepository escolaRepository;
+    @Autowired
+    private MatriculaRepository matriculaRepository;
+    @Autowired
+    private SolicitacaoServicoRepository solicitacaoRepository;
+    @Autowired
+    private NotificacaoRepository notificacaoRepository;
+    @Autowired
+    private ComunicadoRepository comunicadoRepository;
+    @Autowired
+    private IndiceEscolasProximas indiceEscolasProximas;
+    @Autowired
+    private IndiceNomesCidadaos indiceNomesCidadaos;
+
+    private Cidadao cidadao;
+    private Escola escola;
+    private SolicitacaoServico solicitacao;
+    private Matricula matricula;
+    // Contínua entre os testes da classe, que dividem o banco do contexto
+    private static int sequencia;
+
+    @BeforeEach
+    void criarRegistrosMedidos() {
+        cidadao = cidadaoRepository.save(novoCidadao());
+        escola = escolaRepository.save(novaEscola());
+        solicitacao = solicitacaoRepository.save(novaSolicitacao(cidadao, null));
+        matricula = matriculaRepository.save(novaMatricula(cidadao, escola));
+    }
+
+    @Test
+    void comandosPorRequisicaoNaoCrescemComOsDados() throws Exception {
+        List<Orcamento> orcamentos = orcamentos();
+
+        semear(POUCOS);
+        Map<String, ContagemConsultas> poucos = medir(orcamentos);
+        semear(MUITOS - POUCOS);
+        Map<String, ContagemConsultas> muitos = medir(orcamentos);
+
+        List<String> violacoes = new ArrayList<>();
+        for (Orcamento orcamento : orcamentos) {
+            ContagemConsultas antes = poucos.get(orcamento.endpoint());
+            ContagemConsultas depois = muitos.get(orcamento.endpoint());
+            if (depois.getTotal() > antes.getTotal()) {
+                violacoes.add(orcamento.endpoint() + ": " + antes.getTotal() + " comandos com " + POUCOS + " registros, "
+                        + depois.getTotal() + " com " + MUITOS + " (mais repetido: " + depois.maisRepetido() + ")");
+            }
+            if (depois.getTotal() > orcamento.limite()) {
+                violacoes.add(orcamento.endpoint() + ": " + depois.getTotal() + " comandos, orçamento de " + orcamento.limite());
+            }
+            Map.Entry<String, Integer> repetido = depois.maisRepetido();
+            if (repetido != null && repetido.getValue() > REPETICOES_MAXIMAS) {
+                violacoes.add(orcamento.endpoint() + ": comando repetido " + repetido.getValue() + " vezes: " + repetido.getKey());
+            }
+        }
+        assertThat(violacoes).as("endpoints fora do orçamento de comandos SQL").isEmpty();
+    }
+
+    @Test
+    void todoEndpointTemOrcamentoOuMotivoParaFicarDeFora() {
+        Set<String> endpoints = new TreeSet<>();
+        handlerMapping.getHandlerMethods().keySet().forEach(mapeamento ->
+                mapeamento.getMethodsCondition().getMethods().forEach(metodo ->
+                        mapeamento.getPatternValues().stream()
+                                .filter(caminho -> caminho.startsWith("/api/"))
+                                .forEach(caminho -> endpoints.add(metodo + " " + caminho))));
+
+        Set<String> cobertos = new TreeSet<>(FORA_DO_ORCAMENTO.keySet());
+        orcamentos().forEach(orcamento -> cobertos.add(orcamento.endpoint()));
+
+        assertThat(cobertos).as("endpoints do teste").containsExactlyInAnyOrderElementsOf(endpoints);
+    }
+
+    // Endpoints e o máximo de comandos SQL que cada um pode preparar
+    private List<Orcamento> orcamentos() {
+        Long cidadaoId = cidadao.getId();
+        return List.of(
+                leitura("/api/cidadaos", "/api/cidadaos", 1),
+                leitura("/api/cidadaos/{id}", "/api/cidadaos/" + cidadaoId, 1),
+                leitura("/api/cidadaos/cpf/{cpf}", "/api/cidadaos/cpf/" + cidadao.getCpf(), 1),
+                // Busca por nome respondida pelo índice em memória
+                leitura("/api/cidadaos/busca", "/api/cidadaos/busca?nome=Maria Souza", 0),
+                leitura("/api/escolas", "/api/escolas", 1),
+                leitura("/api/escolas/{id}", "/api/escolas/" + escola.getId(), 1),
+                leitura("/api/escolas/nivel/{nivel}", "/api/escolas/nivel/" + NivelEnsino.FUNDAMENTAL_I, 1),
+                leitura("/api/escolas/bairro/{bairro}", "/api/escolas/bairro/Centro", 1),
+                leitura("/api/escolas/nome/{nome}", "/api/escolas/nome/EMEF", 1),
+                leitura("/api/escolas/vagas-disponiveis", "/api/escolas/vagas-disponiveis", 1),
+                leitura("/api/escolas/vagas-disponiveis/nivel/{nivel}",
+                        "/api/escolas/vagas-disponiveis/nivel/" + NivelEnsino.FUNDAMENTAL_I, 1),
+                leitura("/api/escolas/proximas", "/api/escolas/proximas?cidadaoId=" + cidadaoId, 2),
+                leitura("/api/matriculas", "/api/matriculas", 1),
+                leitura("/api/matriculas/{id}", "/api/matriculas/" + matricula.getId(), 3),
+                leitura("/api/matriculas/protocolo/{protocolo}", "/api/matriculas/protocolo/" + matricula.getProtocolo(), 3),
+                leitura("/api/matriculas/cidadao/{cidadaoId}", "/api/matriculas/cidadao/" + cidadaoId, 1),
+                leitura("/api/matriculas/status/{status}", "/api/matriculas/status/" + StatusMatricula.PENDENTE, 1),
+                leitura("/api/matriculas/lote", "/api/matriculas/lote?ids=" + matricula.getId(), 1),
+                leitura("/api/solicitacoes", "/api/solicitacoes", 1),
+                leitura("/api/solicitacoes/{id}", "/api/solicitacoes/" + solicitacao.getId(), 2),
+                leitura("/api/solicitacoes/protocolo/{protocolo}", "/api/solicitacoes/protocolo/" + solicitacao.getProtocolo(), 2),
+                leitura("/api/solicitacoes/{id}/duplicadas", "/api/solicitacoes/" + solicitacao.getId() + "/duplicadas", 1),
+                leitura("/api/solicitacoes/cidadao/{cidadaoId}", "/api/solicitacoes/cidadao/" + cidadaoId, 1),
+                leitura("/api/solicitacoes/tipo/{tipo}", "/api/solicitacoes/tipo/" + TipoServico.ILUMINACAO, 1),
+                leitura("/api/solicitacoes/status/{status}", "/api/solicitacoes/status/" + StatusSolicitacao.ABERTA, 1),
+                leitura("/api/solicitacoes/lote", "/api/solicitacoes/lote?ids=" + solicitacao.getId(), 1),
+                leitura("/api/notificacoes/cidadao/{cidadaoId}", "/api/notificacoes/cidadao/" + cidadaoId, 3),
+                leitura("/api/notificacoes/cidadao/{cidadaoId}/nao-lidas", "/api/notificacoes/cidadao/" + cidadaoId + "/nao-lidas", 3),
+                leitura("/api/notificacoes/cidadao/{cidadaoId}/contador", "/api/notificacoes/cidadao/" + cidadaoId + "/contador", 3),
+                leitura("/api/comunicados", "/api/comunicados", 1),
+                leitura("/api/sync", "/api/sync?cidadaoId=" + cidadaoId, 6),
+
+                // Gravações: cada chamada cria o próprio registro ou age sobre um criado antes da medição
+                // Criação: leitura da escola, checagem da fila, INSERT da matrícula e INSERT da notificação
+                new Orcamento("POST /api/matriculas", () -> post("/api/matriculas").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cidadaoId\": " + cidadaoId + ", \"escolaId\": " + escola.getId() +
+                                ", \"nomeAluno\": \"Aluno Novo\", \"nivelEnsino\": \"FUNDAMENTAL_I\"}"), 4),
+                new Orcamento("PATCH /api/matriculas/{id}/status/{status}", () -> patch("/api/matriculas/" +
+                        matriculaRepository.save(novaMatricula(cidadao, escola)).getId() + "/status/" + StatusMatricula.APROVADA), 6),
+                // Criação: INSERT da solicitação e INSERT da notificação; a duplicidade é checada em memória
+                new Orcamento("POST /api/solicitacoes", () -> post("/api/solicitacoes").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cidadaoId\": " + cidadaoId + ", \"tipoServico\": \"PODA\"," +
+                                " \"descricao\": \"Galho caído " + (++sequencia) + "\", \"endereco\": \"Rua Nova\"}"), 2),
+                new Orcamento("PATCH /api/solicitacoes/{id}/status/{status}", () -> patch("/api/solicitacoes/" +
+                        solicitacaoRepository.save(novaSolicitacao(cidadao, null)).getId() + "/status/" + StatusSolicitacao.EM_ANALISE), 5),
+                new Orcamento("POST /api/solicitacoes/{id}/foto", () -> multipart("/api/solicitacoes/" + solicitacao.getId() + "/foto")
+                        .file(new MockMultipartFile("arquivo", "foto.png", MediaType.IMAGE_PNG_VALUE, FOTO)), 2),
+                new Orcamento("PATCH /api/escolas/{id}/vagas/{vagasTotais}", () ->
+                        patch("/api/escolas/" + escola.getId() + "/vagas/" + (1000 + ++sequencia)), 4),
+                // Cadastro: só o INSERT, com CPF e email novos descartados pelo filtro de Bloom
+                new Orcamento("POST /api/cidadaos", () -> post("/api/cidadaos").contentType(MediaType.APPLICATION_JSON)
+                        .content(corpoCidadao(novoCidadao())), 1),
+                new Orcamento("PUT /api/cidadaos/{id}", () -> {
+                    cidadao.setNome("Maria Souza " + (++sequencia));
+                    return put("/api/cidadaos/" + cidadaoId).contentType(MediaType.APPLICATION_JSON).content(corpoCidadao(cidadao));
+                }, 2),
+                new Orcamento("DELETE /api/cidadaos/{id}", () ->
+                        delete("/api/cidadaos/" + cidadaoRepository.save(novoCidadao()).getId()), 3),
+                new Orcamento("PATCH /api/notificacoes/{id}/lida", () ->
+                        patch("/api/notificacoes/" + notificacaoRepository.save(novaNotificacao()).getId() + "/lida"), 2),
+                new Orcamento("PATCH /api/notificacoes/cidadao/{cidadaoId}/comunicados/{comunicadoId}/lido", () ->
+                        patch("/api/notificacoes/cidadao/" + cidadaoId + "/comunicados/" +
+                                comunicadoRepository.save(novoComunicado()).getId() + "/lido"), 2),
+                new Orcamento("PATCH /api/notificacoes/cidadao/{cidadaoId}/marcar-todas-lidas", () ->
+                        patch("/api/notificacoes/cidadao/" + cidadaoId + "/marcar-todas-lidas"), 3),
+                new Orcamento("POST /api/comunicados", () -> post("/api/comunicados").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"titulo\": \"Aviso\", \"mensagem\": \"Mensagem " + (++sequencia) + "\"}"), 1));
+    }
+
+    private Map<String, ContagemConsultas> medir(List<Orcamento> orcamentos) throws Exception {
+        Map<String, ContagemConsultas> contagens = new LinkedHashMap<>();
+        for (Orcamento orcamento : orcamentos) {
+            MockHttpServletRequestBuilder requisicao = orcamento.requisicao().get();
+            ContagemConsultas contagem = ContagemConsultas.iniciar();
+            MvcResult resultado;
+            try {
+                resultado = mockMvc.perform(requisicao).andReturn();
+            } finally {
+                ContagemConsultas.encerrar();
+            }
+            assertThat(resultado.getResponse().getStatus()).as(orcamento.endpoint()).isBetween(200, 299);
+            contagens.put(orcamento.endpoint(), contagem);
+        }
+        return contagens;
+    }
+
+    // Cada rodada traz um cidadão e uma escola novos, ligados aos registros medidos: relações
+    // repetidas ficariam no cache da sessão e esconderiam um N+1
+    private void semear(int quantidade) {
+        for (int i = 0; i < quantidade; i++) {
+            Cidadao outroCidadao = cidadaoRepository.save(novoCidadao());
+            Escola outraEscola = escolaRepository.save(novaEscola());
+            matriculaRepository.save(novaMatricula(cidadao, outraEscola));
+            matriculaRepository.save(novaMatricula(outroCidadao, escola));
+            solicitacaoRepository.save(novaSolicitacao(cidadao, null));
+            solicitacaoRepository.save(novaSolicitacao(outroCidadao, solicitacao));
+
+            notificacaoRepository.save(novaNotificacao());
+            comunicadoRepository.save(novoComunicado());
+        }
+        indiceEscolasProximas.reconstruir();
+        indiceNomesCidadaos.reconstruir();
+    }
+
+    private Cidadao novoCidadao() {
+        int n = ++sequencia;
+        Cidadao novo = new Cidadao();
+        novo.setNome("Maria Souza " + n);
+        novo.setCpf(String.format("%011d", n));
+        novo.setEmail("cidadao" + n + "@teste.gov.br");
+        novo.setBairro("Centro");
+        novo.setCidade("São Paulo");
+        novo.setLatitude(new BigDecimal("-23.550520"));
+        novo.setLongitude(new BigDecimal("-46.633308"));
+        return novo;
+    }
+
+    private Escola novaEscola() {
+        int n = ++sequencia;
+        Escola nova = new Escola();
+        nova.setNome("EMEF " + n);
+        nova.setBairro("Centro");
+        nova.setCidade("São Paulo");
+        nova.setNivelEnsino(NivelEnsino.FUNDAMENTAL_I);
+        nova.setVagasTotais(100);
+        nova.setLatitude(new BigDecimal("-23.55").add(BigDecimal.valueOf(n, 4)));
+        nova.setLongitude(new BigDecimal("-46.63"));
+        return nova;
+    }
+
+    private Matricula novaMatricula(Cidadao aluno, Escola destino) {
+        int n = ++sequencia;
+        Matricula nova = new Matricula();
+        // O protocolo gerado usa o relógio e repete quando os registros são gravados em sequência
+        nova.setProtocolo("MAT" + n);
+        nova.setCidadao(aluno);
+        nova.setEscola(destino);
+        nova.setNomeAluno("Aluno " + n);
+        nova.setDataNascimento(LocalDate.of(2018, 1, 1));
+        nova.setNivelEnsino(NivelEnsino.FUNDAMENTAL_I);
+        return nova;
+    }
+
+    private SolicitacaoServico novaSolicitacao(Cidadao autor, SolicitacaoServico principal) {
+        int n = ++sequencia;
+        SolicitacaoServico nova = new SolicitacaoServico();
+        nova.setProtocolo("SOL" + n);
+        nova.setCidadao(autor);
+        nova.setTipoServico(TipoServico.ILUMINACAO);
+        nova.setDescricao("Poste apagado " + n);
+        nova.setEndereco("Rua " + n);
+        nova.setBairro("Centro");
+        nova.setSolicitacaoPrincipal(principal);
+        return nova;
+    }
+
+    private static Orcamento leitura(String caminho, String url, int limite) {
+        return new Orcamento("GET " + caminho, () -> get(url), limite);
+    }
+
+    // Endpoint no formato do mapeamento ("PATCH /api/escolas/{id}/vagas/{vagasTotais}"); a requisição
+    // é montada a cada medição, para as gravações não repetirem o mesmo registro
+    private Notificacao novaNotificacao() {
+        int n = ++sequencia;
+        Notificacao nova = new Notificacao();
+        nova.setCidadao(cidadao);
+        nova.setProtocolo("NT" + n);
+        nova.setTitulo("Aviso " + n);
+        nova.setMensagem("Mensagem " + n);
+        return nova;
+    }
+
+    private Comunicado novoComunicado() {
+        int n = ++sequencia;
+        Comunicado novo = new Comunicado();
+        novo.setTitulo("Comunicado " + n);
+        novo.setMensagem("Mensagem " + n);
+        return novo;
+    }
+
+    private static String corpoCidadao(Cidadao dados) {
+        return "{\"nome\": \"" + dados.getNome() + "\", \"cpf\": \"" + dados.getCpf() + "\", \"email\": \"" +
+                dados.getEmail() + "\", \"bairro\": \"" + dados.getBairro() + "\", \"latitude\": " + dados.getLatitude() +
+                ", \"longitude\": " + dados.getLongitude() + "}";
+    }
+
+    private static byte[] png() {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png", saida);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return saida.toByteArray();
+    }
+
+    private record Orcamento(String endpoint, Supplier<MockHttpServletRequestBuilder> requisicao, int limite) {
+    }
+}
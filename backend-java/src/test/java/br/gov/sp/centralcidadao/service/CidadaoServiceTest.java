@@ -0,0 +1,68 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.domain.Cidadao;
+import br.gov.sp.centralcidadao.dto.CidadaoDTO;
+import br.gov.sp.centralcidadao.exception.ConflitoException;
+import br.gov.sp.centralcidadao.repository.CidadaoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Duplicidade detectada pela restrição UNIQUE, sobre o H2 do perfil teste. Os cidadãos
+ * existentes são gravados direto pelo repositório, fora do filtro de cadastro: é o caso
+ * de um cadastro concorrente ou feito por outra instância.
+ */
+@SpringBootTest
+@ActiveProfiles("teste")
+class CidadaoServiceTest {
+
+    // Os testes dividem o banco do contexto: CPFs fora da faixa dos outros testes
+    private static final AtomicLong SEQUENCIA = new AtomicLong(90_000_000_000L);
+
+    @Autowired
+    private CidadaoService cidadaoService;
+    @Autowired
+    private CidadaoRepository cidadaoRepository;
+
+    @Test
+    void emailComCpfNoTextoEReconhecidoComoEmailDuplicado() {
+        String email = "cpf" + SEQUENCIA.incrementAndGet() + "@teste.gov.br";
+        existente(String.valueOf(SEQUENCIA.incrementAndGet()), email);
+
+        assertThatThrownBy(() -> cidadaoService.criar(novo(String.valueOf(SEQUENCIA.incrementAndGet()), email)))
+                .isInstanceOf(ConflitoException.class)
+                .hasMessageStartingWith("Email já cadastrado");
+    }
+
+    @Test
+    void cpfDuplicadoEReconhecidoPelaRestricao() {
+        String cpf = String.valueOf(SEQUENCIA.incrementAndGet());
+        existente(cpf, "email" + cpf + "@teste.gov.br");
+
+        assertThatThrownBy(() -> cidadaoService.criar(novo(cpf, "outro" + cpf + "@teste.gov.br")))
+                .isInstanceOf(ConflitoException.class)
+                .hasMessageStartingWith("CPF já cadastrado");
+    }
+
+    private void existente(String cpf, String email) {
+        Cidadao cidadao = new Cidadao();
+        cidadao.setNome("Cidadão Existente");
+        cidadao.setCpf(cpf);
+        cidadao.setEmail(email);
+        cidadaoRepository.save(cidadao);
+    }
+
+    private static CidadaoDTO novo(String cpf, String email) {
+        CidadaoDTO dto = new CidadaoDTO();
+        dto.setNome("Cidadão Novo");
+        dto.setCpf(cpf);
+        dto.setEmail(email);
+        return dto;
+    }
+}
@@ -0,0 +1,118 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.config.ShardContexto;
+import br.gov.sp.centralcidadao.config.ShardsProperties;
+import br.gov.sp.centralcidadao.domain.Cidadao;
+import br.gov.sp.centralcidadao.repository.CidadaoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Busca aproximada de nomes e separação dos índices por shard, com o repositório simulado:
+ * cada shard devolve as linhas do próprio banco.
+ */
+class IndiceNomesCidadaosTest {
+
+    private final Map<String, List<Object[]>> bancos = new HashMap<>();
+    private IndiceNomesCidadaos indice;
+
+    @BeforeEach
+    void criarIndice() {
+        ShardsProperties shards = new ShardsProperties();
+        shards.setHabilitado(true);
+        shards.getBases().put("capital", new ShardsProperties.Base());
+
+        CidadaoRepository repository = mock(CidadaoRepository.class);
+        when(repository.streamParaBusca()).thenAnswer(invocacao ->
+                bancos.getOrDefault(shards.atual(), List.of()).stream());
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        indice = new IndiceNomesCidadaos(repository, transactionTemplate, shards, 0.5, 50_000);
+    }
+
+    @AfterEach
+    void limparShard() {
+        ShardContexto.limpar();
+    }
+
+    @Test
+    void nomeSemAcentoEncontraNomeComAcentoEPreposicao() {
+        cadastrar("principal", 1L, "João da Silva");
+        cadastrar("principal", 2L, "Pedro Almeida");
+        indice.reconstruir();
+
+        assertThat(ids(indice.buscar("Joao Silva", null, null, null, 10))).containsExactly(1L);
+    }
+
+    @Test
+    void grafiasQueSoamIgualSeEncontram() {
+        cadastrar("principal", 1L, "Thiago Sousa");
+        cadastrar("principal", 2L, "Guilherme Felipe");
+        indice.reconstruir();
+
+        assertThat(ids(indice.buscar("Tiago Souza", null, null, null, 10))).containsExactly(1L);
+        assertThat(ids(indice.buscar("Guilerme Filipe", null, null, null, 10))).containsExactly(2L);
+    }
+
+    @Test
+    void cadaShardBuscaSoOsProprios() {
+        cadastrar("principal", 1L, "Maria Souza");
+        cadastrar("capital", 1L, "Ana Pereira");
+        cadastrar("capital", 2L, "Maria Sousa");
+        indice.reconstruir();
+
+        assertThat(noShard("principal", "Maria Souza")).extracting(IndiceNomesCidadaos.Resultado::nome)
+                .containsExactly("Maria Souza");
+        assertThat(noShard("capital", "Maria Souza")).extracting(IndiceNomesCidadaos.Resultado::nome)
+                .containsExactly("Maria Sousa");
+        assertThat(noShard("capital", "Ana Pereira")).extracting(IndiceNomesCidadaos.Resultado::cidadaoId)
+                .containsExactly(1L);
+    }
+
+    @Test
+    void alteracaoNoShardNaoSobrescreveOMesmoIdEmOutro() {
+        cadastrar("principal", 1L, "Maria Souza");
+        cadastrar("capital", 1L, "Ana Pereira");
+        indice.reconstruir();
+
+        Cidadao renomeado = new Cidadao();
+        renomeado.setId(1L);
+        renomeado.setNome("Ana Pereira Lima");
+        ShardContexto.executarEm("capital", () -> {
+            indice.registrar(renomeado);
+            return null;
+        });
+
+        assertThat(noShard("principal", "Maria Souza")).extracting(IndiceNomesCidadaos.Resultado::nome)
+                .containsExactly("Maria Souza");
+        assertThat(noShard("principal", "Ana Pereira")).isEmpty();
+        assertThat(noShard("capital", "Ana Pereira")).extracting(IndiceNomesCidadaos.Resultado::nome)
+                .containsExactly("Ana Pereira Lima");
+    }
+
+    private void cadastrar(String shard, Long id, String nome) {
+        bancos.computeIfAbsent(shard, s -> new ArrayList<>())
+                .add(new Object[]{id, nome, "Centro", LocalDateTime.of(2024, 1, 1, 0, 0)});
+    }
+
+    private List<IndiceNomesCidadaos.Resultado> noShard(String shard, String nome) {
+        return ShardContexto.executarEm(shard, () -> indice.buscar(nome, null, null, null, 10));
+    }
+
+    private static List<Long> ids(List<IndiceNomesCidadaos.Resultado> resultados) {
+        return resultados.stream().map(IndiceNomesCidadaos.Resultado::cidadaoId).toList();
+    }
+}
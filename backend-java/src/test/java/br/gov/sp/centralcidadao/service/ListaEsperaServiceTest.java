@@ -0,0 +1,133 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.domain.*;
+import br.gov.sp.centralcidadao.exception.ConflitoException;
+import br.gov.sp.centralcidadao.repository.CidadaoRepository;
+import br.gov.sp.centralcidadao.repository.EscolaRepository;
+import br.gov.sp.centralcidadao.repository.MatriculaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Promoção da lista de espera sobre o H2 do perfil teste, em uma escola de uma vaga.
+ */
+@SpringBootTest
+@ActiveProfiles("teste")
+class ListaEsperaServiceTest {
+
+    // Os testes dividem o banco do contexto: CPFs e protocolos fora da faixa dos outros testes
+    private static final AtomicLong SEQUENCIA = new AtomicLong(70_000_000_000L);
+
+    @Autowired
+    private MatriculaService matriculaService;
+    @Autowired
+    private EscolaService escolaService;
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+    @Autowired
+    private MatriculaRepository matriculaRepository;
+    @Autowired
+    private CidadaoRepository cidadaoRepository;
+    @Autowired
+    private EscolaRepository escolaRepository;
+
+    private Cidadao cidadao;
+    private Escola escola;
+    private Matricula aprovada;
+
+    @BeforeEach
+    void escolaLotada() {
+        long n = SEQUENCIA.incrementAndGet();
+        cidadao = new Cidadao();
+        cidadao.setNome("Responsável " + n);
+        cidadao.setCpf(String.valueOf(n));
+        cidadao.setEmail("responsavel" + n + "@teste.gov.br");
+        cidadao.setBairro("Centro");
+        cidadao = cidadaoRepository.save(cidadao);
+
+        escola = new Escola();
+        escola.setNome("EMEI " + n);
+        escola.setBairro("Centro");
+        escola.setNivelEnsino(NivelEnsino.INFANTIL);
+        escola.setVagasTotais(1);
+        escola.setVagasOcupadas(1);
+        escola = escolaRepository.save(escola);
+
+        aprovada = salvar(StatusMatricula.APROVADA);
+    }
+
+    @Test
+    void duasTransicoesFinaisSeguidasPromovemUmaEntrada() {
+        Matricula primeira = naFila();
+        Matricula segunda = naFila();
+        Matricula desistente = naFila();
+
+        matriculaService.atualizarStatus(aprovada.getId(), StatusMatricula.CANCELADA);
+        matriculaService.atualizarStatus(desistente.getId(), StatusMatricula.CANCELADA);
+
+        assertThat(status(primeira)).isEqualTo(StatusMatricula.PENDENTE);
+        assertThat(status(segunda)).isEqualTo(StatusMatricula.LISTA_ESPERA);
+    }
+
+    @Test
+    void vagaReservadaVoltaQuandoAPromovidaERejeitada() {
+        Matricula primeira = naFila();
+        Matricula segunda = naFila();
+
+        matriculaService.atualizarStatus(aprovada.getId(), StatusMatricula.CANCELADA);
+        matriculaService.atualizarStatus(primeira.getId(), StatusMatricula.REJEITADA);
+
+        assertThat(status(segunda)).isEqualTo(StatusMatricula.PENDENTE);
+    }
+
+    @Test
+    void ampliarVagasNaoPromoveDeNovoParaVagaReservada() {
+        Matricula primeira = naFila();
+        Matricula segunda = naFila();
+        Matricula terceira = naFila();
+
+        escolaService.atualizarVagas(escola.getId(), 2);
+        escolaService.atualizarVagas(escola.getId(), 2);
+
+        assertThat(status(primeira)).isEqualTo(StatusMatricula.PENDENTE);
+        assertThat(status(segunda)).isEqualTo(StatusMatricula.LISTA_ESPERA);
+        assertThat(status(terceira)).isEqualTo(StatusMatricula.LISTA_ESPERA);
+    }
+
+    @Test
+    void totalAbaixoDasVagasOcupadasEConflito() {
+        assertThatThrownBy(() -> escolaService.atualizarVagas(escola.getId(), 0))
+                .isInstanceOf(ConflitoException.class);
+        assertThat(escolaRepository.findById(escola.getId()).orElseThrow().getVagasTotais()).isEqualTo(1);
+    }
+
+    private Matricula naFila() {
+        Matricula matricula = salvar(StatusMatricula.LISTA_ESPERA);
+        listaEsperaService.inscrever(matricula);
+        return matricula;
+    }
+
+    // O protocolo gerado usa o relógio e repete quando os registros são gravados em sequência
+    private Matricula salvar(StatusMatricula status) {
+        Matricula matricula = new Matricula();
+        matricula.setProtocolo("LE" + SEQUENCIA.incrementAndGet());
+        matricula.setCidadao(cidadao);
+        matricula.setEscola(escola);
+        matricula.setNomeAluno("Aluno");
+        matricula.setNivelEnsino(NivelEnsino.INFANTIL);
+        matricula.setStatus(status);
+        return matriculaRepository.save(matricula);
+    }
+
+    private StatusMatricula status(Matricula matricula) {
+        return matriculaRepository.findById(matricula.getId()).orElseThrow().getStatus();
+    }
+}
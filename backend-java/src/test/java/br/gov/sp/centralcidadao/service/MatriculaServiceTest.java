@@ -0,0 +1,108 @@
+package br.gov.sp.centralcidadao.service;
+
+import br.gov.sp.centralcidadao.domain.*;
+import br.gov.sp.centralcidadao.exception.ConflitoException;
+import br.gov.sp.centralcidadao.repository.CidadaoRepository;
+import br.gov.sp.centralcidadao.repository.EscolaRepository;
+import br.gov.sp.centralcidadao.repository.MatriculaRepository;
+import org.junit.jupiter.api.RepeatedTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compare-and-set do status da matrícula sob concorrência, sobre o H2 do perfil teste.
+ */
+@SpringBootTest
+@ActiveProfiles("teste")
+class MatriculaServiceTest {
+
+    // Os testes dividem o banco do contexto: CPFs e protocolos fora da faixa dos outros testes
+    private static final AtomicLong SEQUENCIA = new AtomicLong(80_000_000_000L);
+
+    @Autowired
+    private MatriculaService matriculaService;
+    @Autowired
+    private MatriculaRepository matriculaRepository;
+    @Autowired
+    private CidadaoRepository cidadaoRepository;
+    @Autowired
+    private EscolaRepository escolaRepository;
+
+    @RepeatedTest(5)
+    void aprovacoesSimultaneasOcupamUmaVaga() throws Exception {
+        Escola escola = escola();
+        Matricula matricula = pendente(escola);
+
+        CyclicBarrier largada = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<StatusMatricula>> resultados = new ArrayList<>();
+        try {
+            for (int i = 0; i < 2; i++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await(5, TimeUnit.SECONDS);
+                    return matriculaService.atualizarStatus(matricula.getId(), StatusMatricula.APROVADA).getStatus();
+                }));
+            }
+
+            int sucessos = 0;
+            int conflitos = 0;
+            for (Future<StatusMatricula> resultado : resultados) {
+                try {
+                    assertThat(resultado.get(30, TimeUnit.SECONDS)).isEqualTo(StatusMatricula.APROVADA);
+                    sucessos++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(ConflitoException.class);
+                    conflitos++;
+                }
+            }
+            assertThat(sucessos).isEqualTo(1);
+            assertThat(conflitos).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(escolaRepository.findById(escola.getId()).orElseThrow().getVagasOcupadas()).isEqualTo(1);
+        assertThat(matriculaRepository.findById(matricula.getId()).orElseThrow().getStatus())
+                .isEqualTo(StatusMatricula.APROVADA);
+    }
+
+    private Escola escola() {
+        Escola escola = new Escola();
+        escola.setNome("EMEF " + SEQUENCIA.incrementAndGet());
+        escola.setBairro("Centro");
+        escola.setNivelEnsino(NivelEnsino.FUNDAMENTAL_I);
+        escola.setVagasTotais(10);
+        return escolaRepository.save(escola);
+    }
+
+    // O protocolo gerado usa o relógio e repete quando os registros são gravados em sequência
+    private Matricula pendente(Escola escola) {
+        long n = SEQUENCIA.incrementAndGet();
+        Cidadao cidadao = new Cidadao();
+        cidadao.setNome("Responsável " + n);
+        cidadao.setCpf(String.valueOf(n));
+        cidadao.setEmail("responsavel" + n + "@teste.gov.br");
+        cidadao = cidadaoRepository.save(cidadao);
+
+        Matricula matricula = new Matricula();
+        matricula.setProtocolo("MS" + n);
+        matricula.setCidadao(cidadao);
+        matricula.setEscola(escola);
+        matricula.setNomeAluno("Aluno " + n);
+        matricula.setNivelEnsino(NivelEnsino.FUNDAMENTAL_I);
+        return matriculaRepository.save(matricula);
+    }
+}
@@ -0,0 +1,30 @@
+#!/bin/sh
+# ============================================
+# Central do Cidadão - Carga: API MVC x API reativa
+# Dispara a mesma carga de leitura contra as duas APIs e mostra vazão e latências.
+#
+# Uso: ./scripts/comparar-carga-reativo.sh [conexoes] [duracao]
+# Requer o hey (https://github.com/rakyll/hey) e as duas APIs no ar:
+#   docker compose --profile reativo up -d
+# ============================================
+
+CONEXOES=${1:-200}
+DURACAO=${2:-30s}
+MVC=${MVC:-http://localhost:8080}
+REATIVA=${REATIVA:-http://localhost:8081}
+CIDADAO=${CIDADAO:-1}
+ROTAS=${ROTAS:-"/api/escolas /api/notificacoes/cidadao/$CIDADAO/contador /api/notificacoes/cidadao/$CIDADAO/nao-lidas"}
+
+for rota in $ROTAS; do
+    for base in "$MVC" "$REATIVA"; do
+        echo "== $base$rota ($CONEXOES conexões, $DURACAO)"
+        hey -z "$DURACAO" -c "$CONEXOES" "$base$rota" \
+            | grep -E "Requests/sec|Average|(50|95|99)% in|\[[0-9]{3}\]"
+        echo
+    done
+done
+
+# Threads de cada processo ao final da carga (MVC: pool do Tomcat; reativa: event loop do Netty)
+for container in central-cidadao-backend central-cidadao-backend-reativo; do
+    echo "$container: $(docker exec "$container" sh -c 'ls /proc/1/task | wc -l' 2>/dev/null) threads"
+done
@@ -13,8 +13,8 @@ USE central_cidadao;
 CREATE TABLE IF NOT EXISTS cidadaos (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
     nome VARCHAR(255) NOT NULL,
-    cpf VARCHAR(14) UNIQUE NOT NULL,
-    email VARCHAR(255) UNIQUE NOT NULL,
+    cpf VARCHAR(14) NOT NULL,
+    email VARCHAR(255) NOT NULL,
     telefone VARCHAR(20),
     cep VARCHAR(10),
     endereco VARCHAR(255),
@@ -23,8 +23,13 @@ CREATE TABLE IF NOT EXISTS cidadaos (
     bairro VARCHAR(100),
     cidade VARCHAR(100),
     estado VARCHAR(2),
+    latitude DECIMAL(10, 8),
+    longitude DECIMAL(11, 8),
+    resumo_diario BOOLEAN DEFAULT FALSE,
     data_cadastro DATETIME DEFAULT CURRENT_TIMESTAMP,
-    data_atualizacao DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    data_atualizacao DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CONSTRAINT uk_cidadaos_cpf UNIQUE (cpf),
+    CONSTRAINT uk_cidadaos_email UNIQUE (email)
 );
 
 -- ============================================
@@ -38,6 +43,8 @@ CREATE TABLE IF NOT EXISTS escolas (
     bairro VARCHAR(100),
     cidade VARCHAR(100),
     telefone VARCHAR(20),
+    latitude DECIMAL(10, 8),
+    longitude DECIMAL(11, 8),
     nivel_ensino ENUM('INFANTIL', 'FUNDAMENTAL_I', 'FUNDAMENTAL_II', 'MEDIO') NOT NULL,
     vagas_totais INT DEFAULT 0,
     vagas_ocupadas INT DEFAULT 0,
@@ -59,14 +66,32 @@ CREATE TABLE IF NOT EXISTS matriculas (
     data_nascimento DATE,
     nivel_ensino ENUM('INFANTIL', 'FUNDAMENTAL_I', 'FUNDAMENTAL_II', 'MEDIO') NOT NULL,
     serie VARCHAR(50),
-    status ENUM('PENDENTE', 'EM_ANALISE', 'APROVADA', 'REJEITADA', 'CANCELADA') DEFAULT 'PENDENTE',
+    status ENUM('PENDENTE', 'LISTA_ESPERA', 'EM_ANALISE', 'APROVADA', 'REJEITADA', 'CANCELADA') DEFAULT 'PENDENTE',
+    versao BIGINT NOT NULL DEFAULT 0,
+    promovida_lista_espera BOOLEAN NOT NULL DEFAULT FALSE,
     observacoes TEXT,
     data_solicitacao DATETIME DEFAULT CURRENT_TIMESTAMP,
     data_atualizacao DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    data_sincronizacao DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     FOREIGN KEY (cidadao_id) REFERENCES cidadaos(id) ON DELETE CASCADE,
     FOREIGN KEY (escola_id) REFERENCES escolas(id) ON DELETE CASCADE
 );
 
+-- ============================================
+-- TABELA: lista_espera
+-- Fila de matrículas aguardando vaga por escola/nível
+-- ============================================
+CREATE TABLE IF NOT EXISTS lista_espera (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    matricula_id BIGINT UNIQUE NOT NULL,
+    escola_id BIGINT NOT NULL,
+    nivel_ensino ENUM('INFANTIL', 'FUNDAMENTAL_I', 'FUNDAMENTAL_II', 'MEDIO') NOT NULL,
+    prioridade INT NOT NULL DEFAULT 0,
+    data_entrada DATETIME DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (matricula_id) REFERENCES matriculas(id) ON DELETE CASCADE,
+    FOREIGN KEY (escola_id) REFERENCES escolas(id) ON DELETE CASCADE
+);
+
 -- ============================================
 -- TABELA: solicitacoes_servicos
 -- Solicitações de serviços urbanos
@@ -84,11 +109,15 @@ CREATE TABLE IF NOT EXISTS solicitacoes_servicos (
     longitude DECIMAL(11, 8),
     foto_url VARCHAR(500),
     status ENUM('ABERTA', 'EM_ANALISE', 'EM_EXECUCAO', 'CONCLUIDA', 'CANCELADA') DEFAULT 'ABERTA',
+    versao BIGINT NOT NULL DEFAULT 0,
     prioridade ENUM('BAIXA', 'MEDIA', 'ALTA', 'URGENTE') DEFAULT 'MEDIA',
+    solicitacao_principal_id BIGINT,
     data_solicitacao DATETIME DEFAULT CURRENT_TIMESTAMP,
     data_atualizacao DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     data_conclusao DATETIME,
-    FOREIGN KEY (cidadao_id) REFERENCES cidadaos(id) ON DELETE CASCADE
+    data_sincronizacao DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    FOREIGN KEY (cidadao_id) REFERENCES cidadaos(id) ON DELETE CASCADE,
+    FOREIGN KEY (solicitacao_principal_id) REFERENCES solicitacoes_servicos(id) ON DELETE SET NULL
 );
 
 -- ============================================
@@ -116,24 +145,151 @@ CREATE TABLE IF NOT EXISTS notificacoes (
     titulo VARCHAR(255) NOT NULL,
     mensagem TEXT NOT NULL,
     tipo ENUM('INFO', 'ALERTA', 'SUCESSO', 'ERRO') DEFAULT 'INFO',
+    protocolo VARCHAR(20),
     lida BOOLEAN DEFAULT FALSE,
     data_criacao DATETIME DEFAULT CURRENT_TIMESTAMP,
+    data_sincronizacao DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    FOREIGN KEY (cidadao_id) REFERENCES cidadaos(id) ON DELETE CASCADE
+);
+
+-- ============================================
+-- TABELA: resumos_pendentes
+-- Atualizações acumuladas para o resumo diário (uma linha por protocolo)
+-- ============================================
+CREATE TABLE IF NOT EXISTS resumos_pendentes (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    cidadao_id BIGINT NOT NULL,
+    protocolo VARCHAR(20) NOT NULL,
+    mensagem TEXT NOT NULL,
+    data_atualizacao DATETIME DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_resumos_pendentes_protocolo (cidadao_id, protocolo),
+    FOREIGN KEY (cidadao_id) REFERENCES cidadaos(id) ON DELETE CASCADE
+);
+
+-- ============================================
+-- TABELA: solicitacoes_servicos_arquivo
+-- Solicitações encerradas movidas pelo job de arquivamento
+-- ============================================
+CREATE TABLE IF NOT EXISTS solicitacoes_servicos_arquivo (
+    id BIGINT PRIMARY KEY,
+    protocolo VARCHAR(20) UNIQUE NOT NULL,
+    cidadao_id BIGINT NOT NULL,
+    tipo_servico ENUM('PODA', 'ILUMINACAO', 'OBRAS', 'LIMPEZA') NOT NULL,
+    descricao TEXT NOT NULL,
+    endereco VARCHAR(255) NOT NULL,
+    bairro VARCHAR(100),
+    ponto_referencia VARCHAR(255),
+    latitude DECIMAL(10, 8),
+    longitude DECIMAL(11, 8),
+    foto_url VARCHAR(500),
+    status ENUM('ABERTA', 'EM_ANALISE', 'EM_EXECUCAO', 'CONCLUIDA', 'CANCELADA'),
+    prioridade ENUM('BAIXA', 'MEDIA', 'ALTA', 'URGENTE'),
+    solicitacao_principal_id BIGINT,
+    data_solicitacao DATETIME,
+    data_atualizacao DATETIME,
+    data_conclusao DATETIME,
+    data_arquivamento DATETIME DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (cidadao_id) REFERENCES cidadaos(id) ON DELETE CASCADE
 );
 
+-- ============================================
+-- TABELA: notificacoes_arquivo
+-- Notificações lidas antigas movidas pelo job de arquivamento
+-- ============================================
+CREATE TABLE IF NOT EXISTS notificacoes_arquivo (
+    id BIGINT PRIMARY KEY,
+    cidadao_id BIGINT NOT NULL,
+    titulo VARCHAR(255) NOT NULL,
+    mensagem TEXT NOT NULL,
+    tipo ENUM('INFO', 'ALERTA', 'SUCESSO', 'ERRO'),
+    protocolo VARCHAR(20),
+    lida BOOLEAN,
+    data_criacao DATETIME,
+    data_arquivamento DATETIME DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (cidadao_id) REFERENCES cidadaos(id) ON DELETE CASCADE
+);
+
+-- ============================================
+-- TABELA: comunicados
+-- Avisos para todos os cidadãos ou um bairro (uma linha por aviso, lidos via cursor)
+-- ============================================
+CREATE TABLE IF NOT EXISTS comunicados (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    titulo VARCHAR(255) NOT NULL,
+    mensagem TEXT NOT NULL,
+    tipo ENUM('INFO', 'ALERTA', 'SUCESSO', 'ERRO') DEFAULT 'INFO',
+    bairro VARCHAR(100),
+    data_publicacao DATETIME DEFAULT CURRENT_TIMESTAMP,
+    data_expiracao DATETIME,
+    data_sincronizacao DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)
+);
+
+-- ============================================
+-- TABELA: cursores_leitura
+-- Até onde cada cidadão já leu comunicados e notificações (uma linha por cidadão)
+-- ============================================
+CREATE TABLE IF NOT EXISTS cursores_leitura (
+    cidadao_id BIGINT PRIMARY KEY,
+    ultimo_comunicado_id BIGINT NOT NULL DEFAULT 0,
+    ultima_notificacao_id BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (cidadao_id) REFERENCES cidadaos(id) ON DELETE CASCADE
+);
+
+-- ============================================
+-- TABELA: remocoes_sincronizacao
+-- Solicitações e notificações que saíram da visão do cidadão (tombstones da sincronização)
+-- ============================================
+CREATE TABLE IF NOT EXISTS remocoes_sincronizacao (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    cidadao_id BIGINT NOT NULL,
+    entidade ENUM('SOLICITACAO', 'NOTIFICACAO') NOT NULL,
+    registro_id BIGINT NOT NULL,
+    data_remocao DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    FOREIGN KEY (cidadao_id) REFERENCES cidadaos(id) ON DELETE CASCADE
+);
+
+-- ============================================
+-- TABELA: chaves_idempotencia
+-- Respostas de POSTs com Idempotency-Key (compartilhadas entre instâncias)
+-- ============================================
+CREATE TABLE IF NOT EXISTS chaves_idempotencia (
+    chave VARCHAR(64) PRIMARY KEY,
+    hash_requisicao VARCHAR(64) NOT NULL,
+    status_http INT,
+    content_type VARCHAR(100),
+    corpo MEDIUMTEXT,
+    data_criacao DATETIME NOT NULL,
+    data_expiracao DATETIME NOT NULL
+);
+
 -- ============================================
 -- ÍNDICES PARA OTIMIZAÇÃO
 -- ============================================
 CREATE INDEX idx_matriculas_cidadao ON matriculas(cidadao_id);
 CREATE INDEX idx_matriculas_status ON matriculas(status);
 CREATE INDEX idx_matriculas_protocolo ON matriculas(protocolo);
+CREATE INDEX idx_matriculas_sincronizacao ON matriculas(cidadao_id, data_sincronizacao);
+CREATE INDEX idx_lista_espera_fila ON lista_espera(escola_id, nivel_ensino, prioridade DESC, id);
 CREATE INDEX idx_solicitacoes_cidadao ON solicitacoes_servicos(cidadao_id);
 CREATE INDEX idx_solicitacoes_status ON solicitacoes_servicos(status);
 CREATE INDEX idx_solicitacoes_tipo ON solicitacoes_servicos(tipo_servico);
 CREATE INDEX idx_solicitacoes_protocolo ON solicitacoes_servicos(protocolo);
-CREATE INDEX idx_notificacoes_cidadao ON notificacoes(cidadao_id);
+CREATE INDEX idx_solicitacoes_principal ON solicitacoes_servicos(solicitacao_principal_id);
+CREATE INDEX idx_solicitacoes_arquivamento ON solicitacoes_servicos(status, data_atualizacao);
+CREATE INDEX idx_solicitacoes_sincronizacao ON solicitacoes_servicos(cidadao_id, data_sincronizacao);
+CREATE INDEX idx_solicitacoes_arquivo_cidadao ON solicitacoes_servicos_arquivo(cidadao_id);
+CREATE INDEX idx_notificacoes_cidadao ON notificacoes(cidadao_id, id);
 CREATE INDEX idx_notificacoes_lida ON notificacoes(lida);
+CREATE INDEX idx_notificacoes_arquivamento ON notificacoes(lida, data_criacao);
+CREATE INDEX idx_notificacoes_protocolo ON notificacoes(cidadao_id, protocolo, lida);
+CREATE INDEX idx_notificacoes_sincronizacao ON notificacoes(cidadao_id, data_sincronizacao);
+CREATE INDEX idx_notificacoes_arquivo_cidadao ON notificacoes_arquivo(cidadao_id);
+CREATE INDEX idx_comunicados_bairro ON comunicados(bairro, id);
+CREATE INDEX idx_comunicados_sincronizacao ON comunicados(data_sincronizacao);
+CREATE INDEX idx_remocoes_sincronizacao ON remocoes_sincronizacao(cidadao_id, data_remocao);
+CREATE INDEX idx_remocoes_sincronizacao_data ON remocoes_sincronizacao(data_remocao);
 CREATE INDEX idx_historico_registro ON historico_status(tipo_registro, registro_id);
+CREATE INDEX idx_chaves_idempotencia_expiracao ON chaves_idempotencia(data_expiracao);
 
 -- ============================================
 -- DADOS INICIAIS (SEEDS)
@@ -146,13 +302,13 @@ INSERT INTO cidadaos (nome, cpf, email, telefone, cep, endereco, numero, complem
 ('Ana Oliveira', '111.222.333-44', 'ana.oliveira@email.com', '(11) 97777-6666', '12345-680', 'Rua das Palmeiras', '789', 'Casa 2', 'Vila Nova', 'São Paulo', 'SP');
 
 -- Inserir escolas de exemplo
-INSERT INTO escolas (nome, endereco, bairro, cidade, telefone, nivel_ensino, vagas_totais, vagas_ocupadas) VALUES
-('EMEI Monteiro Lobato', 'Rua das Crianças, 100', 'Centro', 'São Paulo', '(11) 3333-1111', 'INFANTIL', 120, 95),
-('EMEI Cecília Meireles', 'Av. da Educação, 200', 'Jardim América', 'São Paulo', '(11) 3333-2222', 'INFANTIL', 100, 100),
-('EMEF Paulo Freire', 'Rua do Saber, 300', 'Vila Nova', 'São Paulo', '(11) 3333-3333', 'FUNDAMENTAL_I', 200, 150),
-('EMEF Anísio Teixeira', 'Av. do Conhecimento, 400', 'Centro', 'São Paulo', '(11) 3333-4444', 'FUNDAMENTAL_I', 180, 120),
-('EMEF Darcy Ribeiro', 'Rua da Ciência, 500', 'Jardim Europa', 'São Paulo', '(11) 3333-5555', 'FUNDAMENTAL_II', 250, 200),
-('EE Machado de Assis', 'Av. das Letras, 600', 'Centro', 'São Paulo', '(11) 3333-6666', 'MEDIO', 300, 280);
+INSERT INTO escolas (nome, endereco, bairro, cidade, telefone, latitude, longitude, nivel_ensino, vagas_totais, vagas_ocupadas) VALUES
+('EMEI Monteiro Lobato', 'Rua das Crianças, 100', 'Centro', 'São Paulo', '(11) 3333-1111', -23.54810000, -46.63610000, 'INFANTIL', 120, 95),
+('EMEI Cecília Meireles', 'Av. da Educação, 200', 'Jardim América', 'São Paulo', '(11) 3333-2222', -23.57190000, -46.67560000, 'INFANTIL', 100, 100),
+('EMEF Paulo Freire', 'Rua do Saber, 300', 'Vila Nova', 'São Paulo', '(11) 3333-3333', -23.53020000, -46.60420000, 'FUNDAMENTAL_I', 200, 150),
+('EMEF Anísio Teixeira', 'Av. do Conhecimento, 400', 'Centro', 'São Paulo', '(11) 3333-4444', -23.55050000, -46.63330000, 'FUNDAMENTAL_I', 180, 120),
+('EMEF Darcy Ribeiro', 'Rua da Ciência, 500', 'Jardim Europa', 'São Paulo', '(11) 3333-5555', -23.58080000, -46.68360000, 'FUNDAMENTAL_II', 250, 200),
+('EE Machado de Assis', 'Av. das Letras, 600', 'Centro', 'São Paulo', '(11) 3333-6666', -23.54590000, -46.63900000, 'MEDIO', 300, 280);
 
 -- Inserir notificações de boas-vindas
 INSERT INTO notificacoes (cidadao_id, titulo, mensagem, tipo) VALUES
@@ -0,0 +1,35 @@
+#!/bin/sh
+# ============================================
+# Central do Cidadão - Tempo até a primeira requisição
+# Sobe a imagem do backend várias vezes e mede o tempo entre o início do
+# container e a primeira resposta bem-sucedida da API.
+#
+# Uso: ./scripts/medir-inicializacao.sh [imagem] [execucoes]
+# Comparação antes/depois: gere uma imagem de cada versão do Dockerfile
+# (ex.: docker build -t hackaton-time-2-backend-java:antes ...) e rode o script
+# para cada uma. O MySQL do docker-compose precisa estar em execução.
+# ============================================
+
+IMAGEM=${1:-hackaton-time-2-backend-java}
+EXECUCOES=${2:-5}
+URL=${URL:-http://localhost:18080/api/escolas}
+REDE=${REDE:-hackaton-time-2_central-cidadao-network}
+
+total=0
+for i in $(seq 1 "$EXECUCOES"); do
+    inicio=$(date +%s%N)
+    id=$(docker run -d --rm --network "$REDE" -p 18080:8080 \
+        -e DB_HOST=mysql -e DB_USER="${DB_USER:-app_user}" -e DB_PASSWORD="${DB_PASSWORD:-app_password}" \
+        "$IMAGEM")
+    until curl -sf -o /dev/null "$URL"; do
+        sleep 0.05
+    done
+    fim=$(date +%s%N)
+    docker stop "$id" > /dev/null
+
+    ms=$(( (fim - inicio) / 1000000 ))
+    total=$(( total + ms ))
+    echo "Execução $i: ${ms} ms"
+done
+
+echo "Média ($IMAGEM): $(( total / EXECUCOES )) ms"
@@ -48,6 +48,7 @@ DB_ROOT_PASSWORD=${db_password}
 DB_NAME=central_cidadao
 DB_USER=app_user
 DB_PASSWORD=${db_password}
+EXPORT_SECRET=$(openssl rand -hex 32)
 EOF
 
 # Ajustar permissões